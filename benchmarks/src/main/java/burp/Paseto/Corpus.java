@@ -0,0 +1,104 @@
+package burp.Paseto;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.Random;
+
+/** Generated request shapes the benchmarks run against. Deterministic for a given seed. */
+public enum Corpus {
+    /** Typical API call: Bearer token in a header, small JSON body. */
+    SMALL_API,
+    /** ~1 MB JSON body with the token in a field near the end. */
+    LARGE_JSON,
+    /** ~4 MB multipart upload, token in a form field before the file part. */
+    MULTIPART,
+    /** Ordinary request without any token – the dominant proxy case. */
+    NO_TOKEN,
+    /** JSON body listing 200 distinct tokens plus a cookie token. */
+    MANY_TOKENS;
+
+    private static final String B64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    /** The token every corpus request (except NO_TOKEN) carries; used for replacement. */
+    static String primaryToken() {
+        return token(new Random(7), "v4", "public", 120);
+    }
+
+    static String token(Random random, String version, String purpose, int payloadLength) {
+        return version + "." + purpose + "." + b64(random, payloadLength);
+    }
+
+    static String b64(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(B64URL.charAt(random.nextInt(B64URL.length())));
+        }
+        return sb.toString();
+    }
+
+    HttpRequest build() {
+        StubRuntime.install();
+        Random random = new Random(42);
+        HttpService service = StubRuntime.service("api.example.test");
+        String token = primaryToken();
+        switch (this) {
+            case SMALL_API:
+                return post(service, "/api/v1/orders", "Authorization: Bearer " + token + "\r\n",
+                        "application/json", "{\"item\":\"widget\",\"quantity\":3}");
+            case LARGE_JSON: {
+                StringBuilder body = new StringBuilder(1 << 20).append("{\"records\":[");
+                while (body.length() < (1 << 20)) {
+                    body.append("{\"id\":").append(random.nextInt()).append(",\"name\":\"")
+                            .append(b64(random, 40)).append("\"},");
+                }
+                body.append("{}],\"session\":\"").append(token).append("\"}");
+                return post(service, "/api/v1/import", "", "application/json", body.toString());
+            }
+            case MULTIPART: {
+                String boundary = "----bench" + b64(random, 16);
+                StringBuilder body = new StringBuilder(4 << 20)
+                        .append("--").append(boundary).append("\r\n")
+                        .append("Content-Disposition: form-data; name=\"token\"\r\n\r\n")
+                        .append(token).append("\r\n")
+                        .append("--").append(boundary).append("\r\n")
+                        .append("Content-Disposition: form-data; name=\"file\"; filename=\"blob.bin\"\r\n")
+                        .append("Content-Type: application/octet-stream\r\n\r\n");
+                while (body.length() < (4 << 20)) {
+                    body.append((char) random.nextInt(256));
+                }
+                body.append("\r\n--").append(boundary).append("--\r\n");
+                return post(service, "/upload", "", "multipart/form-data; boundary=" + boundary, body.toString());
+            }
+            case NO_TOKEN:
+                return post(service, "/api/v1/search", "Cookie: session=" + b64(random, 32) + "\r\n",
+                        "application/json", "{\"query\":\"" + b64(random, 2000) + "\",\"page\":1}");
+            case MANY_TOKENS: {
+                StringBuilder body = new StringBuilder("{\"tokens\":[");
+                for (int i = 0; i < 200; i++) {
+                    body.append('"').append(token(random, "v" + (1 + i % 4), i % 2 == 0 ? "local" : "public", 80))
+                            .append("\",");
+                }
+                body.append('"').append(token).append("\"]}");
+                return post(service, "/api/v1/tokens", "Cookie: auth=" + token + "\r\n",
+                        "application/json", body.toString());
+            }
+            default:
+                throw new IllegalStateException(name());
+        }
+    }
+
+    private static HttpRequest post(HttpService service, String path, String extraHeaders, String contentType,
+                                    String body) {
+        String raw = "POST " + path + " HTTP/1.1\r\n"
+                + "Host: " + service.host() + "\r\n"
+                + "User-Agent: Mozilla/5.0 (bench)\r\n"
+                + "Accept: application/json\r\n"
+                + extraHeaders
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Length: " + body.length() + "\r\n"
+                + "\r\n"
+                + body;
+        return StubRuntime.request(service, raw);
+    }
+}
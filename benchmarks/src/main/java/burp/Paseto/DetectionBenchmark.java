@@ -0,0 +1,54 @@
+package burp.Paseto;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findPasetoToken}: old per-header/body regex vs. the byte scanner, plus a
+ * larger rule set to show that extra rules share the same single pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DetectionBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    private static final String MANY_RULES = DetectionRule.DEFAULT_RULES
+            + "; paserk = k[1-4].(local|public|secret|lid|pid|sid|local-wrap|secret-wrap). segments=1"
+            + "; custom = (acme|corp|internal)_(live|test)_tok. segments=1"
+            + "; cookie = v4.local. in=cookie:session";
+
+    private HttpRequest request;
+    private RuleMatcher manyRules;
+
+    @Setup
+    public void setUp() {
+        request = corpus.build();
+        manyRules = RuleMatcher.compile(MANY_RULES, new ArrayList<>());
+    }
+
+    @Benchmark
+    public String regexFirstToken() {
+        return LegacyImplementations.findPasetoToken(request);
+    }
+
+    @Benchmark
+    public String scannerFirstToken() {
+        return HttpTokens.firstToken(request);
+    }
+
+    @Benchmark
+    public TokenSpans scannerAllTokens() {
+        return HttpTokens.findAll(RuleMatcher.DEFAULT, request.toByteArray(), -1);
+    }
+
+    @Benchmark
+    public TokenSpans manyRulesAllTokens() {
+        return HttpTokens.findAll(manyRules, request.toByteArray(), request.bodyOffset());
+    }
+}
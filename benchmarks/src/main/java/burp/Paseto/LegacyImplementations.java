@@ -0,0 +1,53 @@
+package burp.Paseto;
+
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** The regex-based detection and replacement the extension shipped before the byte scanner; the baseline. */
+final class LegacyImplementations {
+
+    private static final Pattern PASETO_PATTERN =
+            Pattern.compile("v[0-9]\\.(local|public)\\.[A-Za-z0-9_-]+(?:\\.[A-Za-z0-9_-]+)?");
+
+    private LegacyImplementations() {
+    }
+
+    static String findPasetoToken(HttpRequest request) {
+        for (HttpHeader header : request.headers()) {
+            Matcher m = PASETO_PATTERN.matcher(header.value());
+            if (m.find()) {
+                return m.group();
+            }
+        }
+        Matcher m = PASETO_PATTERN.matcher(request.bodyToString());
+        return m.find() ? m.group() : null;
+    }
+
+    static HttpRequest replaceTokenInRequest(HttpRequest original, String oldToken, String newToken) {
+        HttpRequest updated = original;
+        List<HttpHeader> modifiedHeaders = new ArrayList<>();
+        boolean headerChanged = false;
+        for (HttpHeader h : original.headers()) {
+            String newValue = h.value().replaceFirst(Pattern.quote(oldToken), Matcher.quoteReplacement(newToken));
+            if (!newValue.equals(h.value())) {
+                headerChanged = true;
+                modifiedHeaders.add(HttpHeader.httpHeader(h.name(), newValue));
+            } else {
+                modifiedHeaders.add(h);
+            }
+        }
+        if (headerChanged) {
+            updated = updated.withUpdatedHeaders(modifiedHeaders);
+        }
+        String body = updated.bodyToString();
+        if (body.contains(oldToken)) {
+            updated = updated.withBody(body.replaceFirst(Pattern.quote(oldToken), Matcher.quoteReplacement(newToken)));
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,33 @@
+package burp.Paseto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** {@code parsePaseto} over local/public tokens with and without footer. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark {
+
+    @Param({"v4.public", "v4.local.footer", "v2.local"})
+    public String shape;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        String[] parts = shape.split("\\.");
+        token = Corpus.token(random, parts[0], parts[1], 200);
+        if (parts.length > 2) {
+            token += "." + Corpus.b64(random, 40);
+        }
+    }
+
+    @Benchmark
+    public Object parsePaseto() {
+        return PasetoContextMenu.parsePaseto(token);
+    }
+}
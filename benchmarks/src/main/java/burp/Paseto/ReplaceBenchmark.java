@@ -0,0 +1,38 @@
+package burp.Paseto;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** {@code replaceTokenInRequest}: old regex/String round-trip vs. offset splicing. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReplaceBenchmark {
+
+    @Param({"SMALL_API", "LARGE_JSON", "MULTIPART", "MANY_TOKENS"})
+    public Corpus corpus;
+
+    private HttpRequest request;
+    private String oldToken;
+    private String newToken;
+
+    @Setup
+    public void setUp() {
+        request = corpus.build();
+        oldToken = Corpus.primaryToken();
+        newToken = Corpus.token(new Random(11), "v4", "public", 140);
+    }
+
+    @Benchmark
+    public HttpRequest regexReplace() {
+        return LegacyImplementations.replaceTokenInRequest(request, oldToken, newToken);
+    }
+
+    @Benchmark
+    public HttpRequest spliceReplace() {
+        return HttpTokens.replaceToken(request, oldToken, newToken);
+    }
+}
@@ -0,0 +1,220 @@
+package burp.Paseto;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.Range;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+
+/** Array-backed {@link ByteArray} so the extension code runs outside Burp. */
+final class StubByteArray implements ByteArray {
+
+    private final byte[] data;
+
+    StubByteArray(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public byte getByte(int index) {
+        return data[index];
+    }
+
+    @Override
+    public void setByte(int index, byte value) {
+        data[index] = value;
+    }
+
+    @Override
+    public void setByte(int index, int value) {
+        data[index] = (byte) value;
+    }
+
+    @Override
+    public void setBytes(int index, byte... bytes) {
+        System.arraycopy(bytes, 0, data, index, bytes.length);
+    }
+
+    @Override
+    public void setBytes(int index, int... bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            data[index + i] = (byte) bytes[i];
+        }
+    }
+
+    @Override
+    public void setBytes(int index, ByteArray bytes) {
+        setBytes(index, bytes.getBytes());
+    }
+
+    @Override
+    public int length() {
+        return data.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return data.clone();
+    }
+
+    @Override
+    public ByteArray subArray(int startIndexInclusive, int endIndexExclusive) {
+        return new StubByteArray(Arrays.copyOfRange(data, startIndexInclusive, endIndexExclusive));
+    }
+
+    @Override
+    public ByteArray subArray(Range range) {
+        return subArray(range.startIndexInclusive(), range.endIndexExclusive());
+    }
+
+    @Override
+    public ByteArray copy() {
+        return new StubByteArray(data.clone());
+    }
+
+    @Override
+    public ByteArray copyToTempFile() {
+        return copy();
+    }
+
+    @Override
+    public int indexOf(ByteArray searchTerm) {
+        return indexOf(searchTerm, true, 0, data.length);
+    }
+
+    @Override
+    public int indexOf(String searchTerm) {
+        return indexOf(searchTerm, true);
+    }
+
+    @Override
+    public int indexOf(ByteArray searchTerm, boolean caseSensitive) {
+        return indexOf(searchTerm, caseSensitive, 0, data.length);
+    }
+
+    @Override
+    public int indexOf(String searchTerm, boolean caseSensitive) {
+        return indexOf(searchTerm, caseSensitive, 0, data.length);
+    }
+
+    @Override
+    public int indexOf(ByteArray searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        return indexOf(new String(searchTerm.getBytes(), StandardCharsets.ISO_8859_1), caseSensitive,
+                startIndexInclusive, endIndexExclusive);
+    }
+
+    @Override
+    public int indexOf(String searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        String haystack = toString().substring(0, endIndexExclusive);
+        if (!caseSensitive) {
+            haystack = haystack.toLowerCase();
+            searchTerm = searchTerm.toLowerCase();
+        }
+        return haystack.indexOf(searchTerm, startIndexInclusive);
+    }
+
+    @Override
+    public int indexOf(Pattern pattern) {
+        return indexOf(pattern, 0, data.length);
+    }
+
+    @Override
+    public int indexOf(Pattern pattern, int startIndexInclusive, int endIndexExclusive) {
+        var m = pattern.matcher(toString()).region(startIndexInclusive, endIndexExclusive);
+        return m.find() ? m.start() : -1;
+    }
+
+    @Override
+    public int countMatches(ByteArray searchTerm) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int countMatches(String searchTerm) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int countMatches(ByteArray searchTerm, boolean caseSensitive) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int countMatches(String searchTerm, boolean caseSensitive) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int countMatches(ByteArray searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int countMatches(String searchTerm, boolean caseSensitive, int startIndexInclusive, int endIndexExclusive) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int countMatches(Pattern pattern) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int countMatches(Pattern pattern, int startIndexInclusive, int endIndexExclusive) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ByteArray withAppended(byte... bytes) {
+        byte[] out = Arrays.copyOf(data, data.length + bytes.length);
+        System.arraycopy(bytes, 0, out, data.length, bytes.length);
+        return new StubByteArray(out);
+    }
+
+    @Override
+    public ByteArray withAppended(int... bytes) {
+        byte[] b = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            b[i] = (byte) bytes[i];
+        }
+        return withAppended(b);
+    }
+
+    @Override
+    public ByteArray withAppended(String text) {
+        return withAppended(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Override
+    public ByteArray withAppended(ByteArray bytes) {
+        return withAppended(bytes.getBytes());
+    }
+
+    @Override
+    public Iterator<Byte> iterator() {
+        return new Iterator<>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < data.length;
+            }
+
+            @Override
+            public Byte next() {
+                if (i >= data.length) {
+                    throw new NoSuchElementException();
+                }
+                return data[i++];
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, StandardCharsets.ISO_8859_1);
+    }
+}
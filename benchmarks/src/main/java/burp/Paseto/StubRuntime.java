@@ -0,0 +1,397 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.RequestAction;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.proxy.MessageReceivedAction;
+import burp.api.montoya.proxy.http.InterceptedRequest;
+import burp.api.montoya.ui.settings.SettingsPanelWithData;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal stand-in for the parts of the Montoya runtime the benchmarked code touches:
+ * the static factories ({@code ByteArray.byteArray}, {@code HttpRequest.httpRequest},
+ * {@code HttpHeader.httpHeader}, {@code Annotations.annotations} and the handler
+ * actions), an HTTP/1.1 {@link HttpRequest} backed by raw bytes, the handler-facing
+ * views of it ({@link InterceptedRequest}, {@link HttpRequestToBeSent}) and a
+ * settings panel backed by a map. Anything else throws, so code that reaches into
+ * Burp on the hot path shows up immediately.
+ */
+final class StubRuntime {
+
+    private StubRuntime() {
+    }
+
+    /** Points {@link ObjectFactoryLocator#FACTORY} at the stubs. Idempotent. */
+    static synchronized void install() {
+        if (ObjectFactoryLocator.FACTORY != null) {
+            return;
+        }
+        ObjectFactoryLocator.FACTORY = (MontoyaObjectFactory) Proxy.newProxyInstance(
+                StubRuntime.class.getClassLoader(), new Class<?>[]{MontoyaObjectFactory.class}, StubRuntime::factory);
+    }
+
+    static HttpRequest request(HttpService service, String raw) {
+        return request(service, raw.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    static HttpRequest request(HttpService service, byte[] raw) {
+        return message(HttpRequest.class, service, raw, 0);
+    }
+
+    /** The request as the proxy handler sees it, with fresh (empty) annotations. */
+    static InterceptedRequest intercepted(HttpRequest request, int messageId) {
+        return message(InterceptedRequest.class, request.httpService(), request.toByteArray().getBytes(), messageId);
+    }
+
+    /** The request as the HTTP handler sees it, with fresh (empty) annotations. */
+    static HttpRequestToBeSent toBeSent(HttpRequest request, int messageId) {
+        return message(HttpRequestToBeSent.class, request.httpService(), request.toByteArray().getBytes(), messageId);
+    }
+
+    private static <T extends HttpRequest> T message(Class<T> type, HttpService service, byte[] raw, int messageId) {
+        return type.cast(Proxy.newProxyInstance(StubRuntime.class.getClassLoader(),
+                new Class<?>[]{type}, new StubRequest(service, raw, messageId)));
+    }
+
+    /** A {@link MontoyaApi} that refuses every call; handlers must not need Burp per message. */
+    static MontoyaApi api() {
+        return (MontoyaApi) Proxy.newProxyInstance(StubRuntime.class.getClassLoader(),
+                new Class<?>[]{MontoyaApi.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> "StubMontoyaApi";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("stub api: " + method);
+                });
+    }
+
+    /** Settings panel answering {@code getString/getBoolean/getInteger} from {@code values}. */
+    static SettingsPanelWithData settings(Map<String, ?> values) {
+        return (SettingsPanelWithData) Proxy.newProxyInstance(StubRuntime.class.getClassLoader(),
+                new Class<?>[]{SettingsPanelWithData.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getString", "getBoolean", "getInteger" -> values.get((String) args[0]);
+                    case "toString" -> "StubSettings" + values;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("stub settings: " + method);
+                });
+    }
+
+    static HttpService service(String host) {
+        return (HttpService) Proxy.newProxyInstance(StubRuntime.class.getClassLoader(),
+                new Class<?>[]{HttpService.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "host", "toString" -> host;
+                    case "port" -> 443;
+                    case "secure" -> true;
+                    case "ipAddress" -> "127.0.0.1";
+                    case "hashCode" -> host.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static HttpHeader header(String name, String value) {
+        return (HttpHeader) Proxy.newProxyInstance(StubRuntime.class.getClassLoader(),
+                new Class<?>[]{HttpHeader.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "name" -> name;
+                    case "value" -> value;
+                    case "toString" -> name + ": " + value;
+                    case "hashCode" -> name.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Object factory(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "byteArray":
+                if (args[0] instanceof byte[] bytes) {
+                    return new StubByteArray(bytes);
+                }
+                if (args[0] instanceof String s) {
+                    return new StubByteArray(s.getBytes(StandardCharsets.ISO_8859_1));
+                }
+                break;
+            case "byteArrayOfLength":
+                return new StubByteArray(new byte[(Integer) args[0]]);
+            case "httpHeader":
+                if (args.length == 2) {
+                    return header((String) args[0], (String) args[1]);
+                }
+                break;
+            case "httpService":
+                return service((String) args[0]);
+            case "annotations":
+                StubAnnotations annotations = new StubAnnotations();
+                for (Object arg : args == null ? new Object[0] : args) {
+                    if (arg instanceof String notes) {
+                        annotations.setNotes(notes);
+                    } else if (arg instanceof HighlightColor color) {
+                        annotations.setHighlightColor(color);
+                    }
+                }
+                return annotations;
+            case "requestResult":
+                return action(method.getReturnType(), args[0], args.length > 1 ? args[1] : null, RequestAction.CONTINUE);
+            case "requestInitialInterceptResultFollowUserRules":
+                return action(method.getReturnType(), args[0], args.length > 1 ? args[1] : null,
+                        MessageReceivedAction.CONTINUE);
+            case "httpRequest":
+                if (args.length == 1 && args[0] instanceof ByteArray raw) {
+                    return request(null, raw.getBytes());
+                }
+                if (args.length == 2 && args[1] instanceof ByteArray raw) {
+                    return request((HttpService) args[0], raw.getBytes());
+                }
+                if (args.length == 2 && args[1] instanceof String raw) {
+                    return request((HttpService) args[0], raw);
+                }
+                break;
+            default:
+        }
+        throw new UnsupportedOperationException("stub factory: " + method);
+    }
+
+    /** Handler result ({@code RequestToBeSentAction}, {@code ProxyRequestReceivedAction}, ...). */
+    private static Object action(Class<?> type, Object request, Object annotations, Object action) {
+        return Proxy.newProxyInstance(StubRuntime.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "request" -> request;
+                    case "annotations" -> annotations;
+                    case "action" -> action;
+                    case "toString" -> type.getSimpleName() + "[" + action + ", " + annotations + "]";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("stub action: " + method);
+                });
+    }
+
+    //------------------------------------------------------------------
+    // Annotations
+    //------------------------------------------------------------------
+    static final class StubAnnotations implements Annotations {
+        private volatile String notes;
+        private volatile HighlightColor highlightColor;
+
+        @Override
+        public String notes() {
+            return notes;
+        }
+
+        @Override
+        public boolean hasNotes() {
+            return notes != null && !notes.isEmpty();
+        }
+
+        @Override
+        public boolean hasHighlightColor() {
+            return highlightColor != null && highlightColor != HighlightColor.NONE;
+        }
+
+        @Override
+        public void setNotes(String notes) {
+            this.notes = notes;
+        }
+
+        @Override
+        public HighlightColor highlightColor() {
+            return highlightColor;
+        }
+
+        @Override
+        public void setHighlightColor(HighlightColor highlightColor) {
+            this.highlightColor = highlightColor;
+        }
+
+        @Override
+        public Annotations withNotes(String notes) {
+            StubAnnotations copy = copy();
+            copy.notes = notes;
+            return copy;
+        }
+
+        @Override
+        public Annotations withHighlightColor(HighlightColor highlightColor) {
+            StubAnnotations copy = copy();
+            copy.highlightColor = highlightColor;
+            return copy;
+        }
+
+        private StubAnnotations copy() {
+            StubAnnotations copy = new StubAnnotations();
+            copy.notes = notes;
+            copy.highlightColor = highlightColor;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return "Annotations[" + notes + ", " + highlightColor + "]";
+        }
+    }
+
+    //------------------------------------------------------------------
+    // HttpRequest
+    //------------------------------------------------------------------
+    private static final class StubRequest implements InvocationHandler {
+        private final HttpService service;
+        private final byte[] raw;
+        private final int messageId;
+        private final Annotations annotations = new StubAnnotations();
+        private final int bodyOffset;
+        private final String head;
+        private List<HttpHeader> headers;
+
+        StubRequest(HttpService service, byte[] raw, int messageId) {
+            this.service = service;
+            this.raw = raw;
+            this.messageId = messageId;
+            int end = indexOf(raw, "\r\n\r\n");
+            this.bodyOffset = end < 0 ? raw.length : end + 4;
+            this.head = new String(raw, 0, end < 0 ? raw.length : end, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "toByteArray": return new StubByteArray(raw);
+                case "toString": return new String(raw, StandardCharsets.ISO_8859_1);
+                case "httpService": return service;
+                case "messageId": return messageId;
+                case "annotations": return annotations;
+                case "isInScope": return true;
+                case "bodyOffset": return bodyOffset;
+                case "body": return new StubByteArray(body());
+                case "bodyToString": return new String(body(), StandardCharsets.ISO_8859_1);
+                case "headers": return headers();
+                case "hasHeader":
+                    if (args.length == 1 && args[0] instanceof String name) {
+                        return headerValue(name) != null;
+                    }
+                    break;
+                case "headerValue": return headerValue((String) args[0]);
+                case "httpVersion": return requestLine()[2];
+                case "method": return requestLine()[0];
+                case "path": return requestLine()[1];
+                case "url": return "https://" + (service == null ? "localhost" : service.host()) + requestLine()[1];
+                case "withUpdatedHeader":
+                    if (args.length == 2) {
+                        return withHeaders(replaceHeader(headers(), (String) args[0], (String) args[1]), body());
+                    }
+                    break;
+                case "withUpdatedHeaders":
+                    if (args[0] instanceof List<?> updates) {
+                        List<HttpHeader> result = headers();
+                        for (Object o : updates) {
+                            HttpHeader h = (HttpHeader) o;
+                            result = replaceHeader(result, h.name(), h.value());
+                        }
+                        return withHeaders(result, body());
+                    }
+                    break;
+                case "withRemovedHeader":
+                    if (args[0] instanceof String name) {
+                        List<HttpHeader> result = new ArrayList<>(headers());
+                        result.removeIf(h -> h.name().equalsIgnoreCase(name));
+                        return withHeaders(result, body());
+                    }
+                    break;
+                case "withBody":
+                    byte[] body = args[0] instanceof String s
+                            ? s.getBytes(StandardCharsets.UTF_8)
+                            : ((ByteArray) args[0]).getBytes();
+                    return withHeaders(replaceHeader(headers(), "Content-Length", Integer.toString(body.length)), body);
+                case "hashCode": return System.identityHashCode(proxy);
+                case "equals": return proxy == args[0];
+                default:
+            }
+            throw new UnsupportedOperationException("stub request: " + method);
+        }
+
+        private byte[] body() {
+            byte[] body = new byte[raw.length - bodyOffset];
+            System.arraycopy(raw, bodyOffset, body, 0, body.length);
+            return body;
+        }
+
+        private String[] requestLine() {
+            int eol = head.indexOf("\r\n");
+            return (eol < 0 ? head : head.substring(0, eol)).split(" ", 3);
+        }
+
+        private List<HttpHeader> headers() {
+            if (headers == null) {
+                List<HttpHeader> parsed = new ArrayList<>();
+                String[] lines = head.split("\r\n");
+                for (int i = 1; i < lines.length; i++) {
+                    int colon = lines[i].indexOf(':');
+                    if (colon > 0) {
+                        parsed.add(header(lines[i].substring(0, colon), lines[i].substring(colon + 1).trim()));
+                    }
+                }
+                headers = parsed;
+            }
+            return headers;
+        }
+
+        private String headerValue(String name) {
+            for (HttpHeader h : headers()) {
+                if (h.name().equalsIgnoreCase(name)) {
+                    return h.value();
+                }
+            }
+            return null;
+        }
+
+        private static List<HttpHeader> replaceHeader(List<HttpHeader> headers, String name, String value) {
+            List<HttpHeader> result = new ArrayList<>(headers.size());
+            for (HttpHeader h : headers) {
+                result.add(h.name().equalsIgnoreCase(name) ? header(h.name(), value) : h);
+            }
+            return result;
+        }
+
+        private HttpRequest withHeaders(List<HttpHeader> newHeaders, byte[] body) {
+            int eol = head.indexOf("\r\n");
+            StringBuilder sb = new StringBuilder(eol < 0 ? head : head.substring(0, eol)).append("\r\n");
+            for (HttpHeader h : newHeaders) {
+                sb.append(h.name()).append(": ").append(h.value()).append("\r\n");
+            }
+            sb.append("\r\n");
+            byte[] top = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+            byte[] out = new byte[top.length + body.length];
+            System.arraycopy(top, 0, out, 0, top.length);
+            System.arraycopy(body, 0, out, top.length, body.length);
+            return request(service, out);
+        }
+
+        private static int indexOf(byte[] data, String needle) {
+            byte[] n = needle.getBytes(StandardCharsets.ISO_8859_1);
+            outer:
+            for (int i = 0; i <= data.length - n.length; i++) {
+                for (int j = 0; j < n.length; j++) {
+                    if (data[i + j] != n[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.proxy.http.InterceptedRequest;
+import burp.api.montoya.proxy.http.ProxyRequestReceivedAction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Replays synthetic traffic through {@link PasetoProxyHandler} and {@link HttpHandlerPaseto}
+ * from many threads at once, the way Burp calls them, on the stand-in runtime.
+ *
+ * The correctness test checks that every pending edit is applied exactly once, that
+ * every token-bearing request is annotated and every sighting reaches the inventory;
+ * it runs with every build.
+ *
+ * The load test (tag "load", {@code mvn -Pload}) measures throughput and p99 latency
+ * of the proxy + HTTP handler pair and fails when either regresses beyond the
+ * tolerance in {@code handler-load-baseline.properties}. Both numbers are normalised
+ * by a calibration loop timed on the same machine around the run, so a baseline
+ * survives moving to a slower or busier runner. Run with
+ * {@code -Dpaseto.load.record=true} to write the measured numbers back as the new
+ * baseline.
+ */
+class HandlerLoadTest {
+
+    static final int THREADS = 8;
+    static final String BASELINE = "handler-load-baseline.properties";
+
+    private final HttpService service = StubRuntime.service("api.example.test");
+    private final MontoyaApi api = StubRuntime.api();
+    private AnalysisPipeline pipeline;
+    private ExtensionConfig config;
+    private ScanCache scanCache;
+    private ExtensionMetrics metrics;
+    private PasetoProxyHandler proxyHandler;
+    private HttpHandlerPaseto httpHandler;
+    private TokenInventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        StubRuntime.install();
+        pipeline = new AnalysisPipeline(1 << 20, 2);
+        inventory = new TokenInventory(Long.MAX_VALUE);
+        pipeline.addStage(batch -> inventory.recordAll(batch, s -> { }));
+        config = new ExtensionConfig(StubRuntime.settings(Map.of(
+                "markRequests", true,
+                "scanResponses", false,
+                "responseScanLimitKb", 1024,
+                "webSocketScanLimitKb", 16,
+                "logMetrics", false,
+                "replayConcurrency", 8,
+                "replayRatePerHost", 10,
+                "verificationKeys", "",
+                "detectionRules", DetectionRule.DEFAULT_RULES,
+                "mutationClaims", PasetoMutator.ClaimEdits.DEFAULT_SPEC)), message -> { });
+        scanCache = new ScanCache(ScanCache.DEFAULT_MAX_ENTRIES);
+        metrics = new ExtensionMetrics(scanCache, pipeline);
+        PasetoVerifier verifier = new PasetoVerifier(() -> "", message -> { });
+        proxyHandler = new PasetoProxyHandler(config, api, scanCache, pipeline, metrics, verifier);
+        httpHandler = new HttpHandlerPaseto(config, api, scanCache, pipeline, metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    //------------------------------------------------------------------
+    // Correctness under contention
+    //------------------------------------------------------------------
+
+    @Test
+    void pendingEditsAppliedExactlyOnceAndNothingLost() throws Exception {
+        int upfront = 128;          // edits registered before the traffic starts
+        int late = 96;              // edits registered by the workers while traffic flows
+        int copies = 6;             // every edited token is sent this often, from any thread
+        int plain = 4000;           // token-bearing requests without an edit
+        int noToken = 4000;
+        Random random = new Random(19);
+
+        List<Send> sends = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < upfront + late; i++) {
+            String token = Corpus.token(random, "v4", "public", 96);
+            tokens.add(token);
+            for (int c = 0; c < copies; c++) {
+                sends.add(new Send(i, token, bearer(token, "{\"n\":" + i + "}"), i >= upfront && c == 0));
+            }
+        }
+        for (int i = 0; i < plain; i++) {
+            String token = Corpus.token(random, i % 2 == 0 ? "v2" : "v4", i % 3 == 0 ? "local" : "public", 80);
+            sends.add(new Send(-1, token, bearer(token, "{\"i\":" + i + "}"), false));
+        }
+        for (int i = 0; i < noToken; i++) {
+            sends.add(new Send(-1, null, bearer(Corpus.b64(random, 40), "{\"q\":" + i + "}"), false));
+        }
+        Collections.shuffle(sends, random);
+
+        for (int i = 0; i < upfront; i++) {
+            httpHandler.addPendingEdit(tokens.get(i), edited(tokens.get(i), i));
+        }
+
+        AtomicIntegerArray applied = new AtomicIntegerArray(upfront + late);
+        ConcurrentLinkedQueue<String> problems = new ConcurrentLinkedQueue<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger messageIds = new AtomicInteger();
+        runConcurrently(() -> {
+            int n;
+            while ((n = next.getAndIncrement()) < sends.size()) {
+                Send send = sends.get(n);
+                if (send.registersEdit) {
+                    httpHandler.addPendingEdit(send.token, edited(send.token, send.edit));
+                }
+                int id = messageIds.incrementAndGet();
+                ProxyRequestReceivedAction proxied =
+                        proxyHandler.handleRequestReceived(StubRuntime.intercepted(send.request, id));
+                checkProxyAnnotations(send, proxied.annotations(), problems);
+                RequestToBeSentAction sent =
+                        httpHandler.handleHttpRequestToBeSent(StubRuntime.toBeSent(proxied.request(), id));
+                String marker = sent.request().headerValue("X-Edited");
+                if (sent.request().headerValue("X-Paseto-Edit-Id") != null) {
+                    problems.add("edit id header left in request for " + send.token);
+                }
+                if (marker != null) {
+                    int edit = Integer.parseInt(marker);
+                    if (edit != send.edit) {
+                        problems.add("edit " + edit + " applied to a request carrying edit " + send.edit + "'s token");
+                    } else {
+                        applied.incrementAndGet(edit);
+                    }
+                    if (sent.annotations() == null || sent.annotations().highlightColor() != HighlightColor.GREEN) {
+                        problems.add("edited request not highlighted: " + sent.annotations());
+                    }
+                }
+            }
+        });
+
+        assertTrue(problems.isEmpty(), () -> problems.size() + " problems, e.g. " + problems.peek());
+        for (int i = 0; i < upfront + late; i++) {
+            assertEquals(1, applied.get(i), "edit " + i + " applied");
+        }
+        assertTrue(httpHandler.pendingEdits().isEmpty(), "pending edits left over");
+        assertEquals(upfront + late, metrics.pendingEditHits.sum());
+
+        // Every sighting reaches the inventory: one hit per token-bearing request
+        long expectedSightings = sends.stream().filter(s -> s.token != null).count();
+        assertEquals(sends.size(), metrics.proxyRequests.sum());
+        assertEquals(expectedSightings, metrics.tokensFound.sum());
+        awaitPipeline(expectedSightings);
+        assertEquals(0, pipeline.dropped() + pipeline.sampledOut(), "pipeline shed load");
+        assertEquals(expectedSightings, inventoryHits(), "inventory hits");
+        for (int i = 0; i < upfront + late; i++) {
+            TokenInventory.TokenRecord record = inventory.get(tokens.get(i));
+            assertNotNull(record, "token " + i + " missing from inventory");
+            assertEquals(copies, record.hits(), "hits of token " + i);
+        }
+    }
+
+    private static void checkProxyAnnotations(Send send, Annotations annotations, ConcurrentLinkedQueue<String> problems) {
+        if (send.token == null) {
+            if (annotations != null) {
+                problems.add("request without token annotated: " + annotations);
+            }
+            return;
+        }
+        String header = send.token.substring(0, send.token.indexOf('.', 3));
+        if (annotations == null || !annotations.hasNotes() || !annotations.notes().startsWith("PASETO " + header)) {
+            problems.add("missing or wrong note for " + header + ": " + annotations);
+        } else if (annotations.highlightColor() != HighlightColor.GREEN) {
+            problems.add("not highlighted: " + annotations);
+        }
+    }
+
+    //------------------------------------------------------------------
+    // Throughput / latency against the stored baseline
+    //------------------------------------------------------------------
+
+    @Test
+    @Tag("load")
+    void throughputAndP99WithinBaseline() throws Exception {
+        List<HttpRequest> pool = trafficPool(16 * 1024, new Random(20));
+        LatencyHistogram warmup = new LatencyHistogram();
+        drive(pool, 100_000, warmup);
+        double calibrationBefore = calibrate();
+        LatencyHistogram latency = new LatencyHistogram();
+        int ops = 300_000;
+        long started = System.nanoTime();
+        drive(pool, ops, latency);
+        long elapsed = System.nanoTime() - started;
+        double calibration = (calibrationBefore + calibrate()) / 2;
+
+        double throughput = ops / (elapsed / 1e9);
+        double p99Micros = latency.percentileNanos(99) / 1000.0;
+        // Throughput per calibration MB/s and p99 in units of calibration work: machine-independent
+        double relativeThroughput = throughput / calibration;
+        double relativeP99 = p99Micros * calibration;
+        System.out.printf(Locale.ROOT, "[load] %d threads: %,.0f ops/s, p50 %.1f us, p99 %.1f us, p99.9 %.1f us;"
+                        + " calibration %.0f MB/s, relative throughput %.2f, relative p99 %.0f%n",
+                THREADS, throughput, latency.percentileNanos(50) / 1000.0, p99Micros,
+                latency.percentileNanos(99.9) / 1000.0, calibration, relativeThroughput, relativeP99);
+
+        Properties baseline = loadBaseline();
+        if (Boolean.getBoolean("paseto.load.record")) {
+            recordBaseline(baseline, throughput, p99Micros, calibration);
+            return;
+        }
+        double baselineThroughput = setting(baseline, "relativeThroughput");
+        double baselineP99 = setting(baseline, "relativeP99");
+        double minThroughputRatio = setting(baseline, "minThroughputRatio");
+        double maxP99Ratio = setting(baseline, "maxP99Ratio");
+        assertTrue(relativeThroughput >= baselineThroughput * minThroughputRatio, String.format(Locale.ROOT,
+                "throughput regressed: %.2f ops/s per calibration MB/s, baseline %.2f (allowed down to x%.2f)",
+                relativeThroughput, baselineThroughput, minThroughputRatio));
+        assertTrue(relativeP99 <= baselineP99 * maxP99Ratio, String.format(Locale.ROOT,
+                "p99 latency regressed: %.0f calibration units, baseline %.0f (allowed up to x%.2f)",
+                relativeP99, baselineP99, maxP99Ratio));
+    }
+
+    /**
+     * Speed of this machine right now, in MB/s of FNV-1a hashing over 1 MiB: the same
+     * kind of byte-at-a-time work the handlers do, but none of their code. Best of
+     * the rounds after a warm-up that gets {@link #fnv} fully compiled.
+     */
+    static double calibrate() {
+        byte[] data = new byte[1 << 20];
+        new Random(1).nextBytes(data);
+        long sink = 0;
+        for (int i = 0; i < 200; i++) {
+            sink += fnv(data);
+        }
+        double best = 0;
+        for (int round = 0; round < 10; round++) {
+            long started = System.nanoTime();
+            for (int rep = 0; rep < 16; rep++) {
+                sink += fnv(data);
+            }
+            best = Math.max(best, 16.0 * data.length / 1e6 / ((System.nanoTime() - started) / 1e9));
+        }
+        if (sink == 42) {
+            System.out.println(); // keeps the loop from being optimised away
+        }
+        return best;
+    }
+
+    private static long fnv(byte[] data) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** Proxy handler then HTTP handler for {@code ops} messages, recording the pair's latency. */
+    private void drive(List<HttpRequest> pool, int ops, LatencyHistogram latency) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        runConcurrently(() -> {
+            int n;
+            while ((n = next.getAndIncrement()) < ops) {
+                HttpRequest request = pool.get(n % pool.size());
+                InterceptedRequest intercepted = StubRuntime.intercepted(request, n);
+                long t0 = System.nanoTime();
+                ProxyRequestReceivedAction proxied = proxyHandler.handleRequestReceived(intercepted);
+                HttpRequestToBeSent toBeSent = StubRuntime.toBeSent(proxied.request(), n);
+                long t1 = System.nanoTime();
+                httpHandler.handleHttpRequestToBeSent(toBeSent);
+                long t2 = System.nanoTime();
+                latency.record((t1 - t0) + (t2 - t1));
+                if (n % 512 == 0) {
+                    // Keep a few edits pending so the HTTP handler does its lookup, as after a batch edit
+                    String token = HttpTokens.firstToken(request);
+                    if (token != null) {
+                        httpHandler.addPendingEdit(token, request);
+                    }
+                }
+            }
+        });
+    }
+
+    /** Mostly small API calls, a share without tokens, some larger JSON bodies; all distinct. */
+    private List<HttpRequest> trafficPool(int size, Random random) {
+        List<HttpRequest> pool = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String token = Corpus.token(random, "v" + (1 + random.nextInt(4)), random.nextBoolean() ? "local" : "public",
+                    64 + random.nextInt(128));
+            int shape = random.nextInt(10);
+            if (shape < 5) {
+                pool.add(bearer(token, "{\"item\":" + i + ",\"quantity\":" + random.nextInt(9) + "}"));
+            } else if (shape < 8) {
+                pool.add(bearer(Corpus.b64(random, 40), "{\"query\":\"" + Corpus.b64(random, 400) + "\"}"));
+            } else {
+                pool.add(request("Cookie: session=" + Corpus.b64(random, 32) + "\r\n",
+                        "{\"records\":\"" + Corpus.b64(random, 4000 + random.nextInt(4000))
+                                + "\",\"session\":\"" + token + "\"}"));
+            }
+        }
+        return pool;
+    }
+
+    //------------------------------------------------------------------
+    // Helpers
+    //------------------------------------------------------------------
+
+    private record Send(int edit, String token, HttpRequest request, boolean registersEdit) {
+    }
+
+    private HttpRequest bearer(String token, String body) {
+        return request("Authorization: Bearer " + token + "\r\n", body);
+    }
+
+    private HttpRequest edited(String token, int edit) {
+        return request("Authorization: Bearer " + token + "\r\nX-Edited: " + edit + "\r\nX-Paseto-Edit-Id: " + edit
+                + "\r\n", "{\"edited\":" + edit + "}");
+    }
+
+    private HttpRequest request(String extraHeaders, String body) {
+        return StubRuntime.request(service, "POST /api/v1/orders HTTP/1.1\r\n"
+                + "Host: " + service.host() + "\r\n"
+                + "User-Agent: Mozilla/5.0 (load)\r\n"
+                + extraHeaders
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length() + "\r\n"
+                + "\r\n"
+                + body);
+    }
+
+    /** Runs {@code task} on {@link #THREADS} threads released together; rethrows the first failure. */
+    private static void runConcurrently(Runnable task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "load-" + i);
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join(TimeUnit.MINUTES.toMillis(5));
+            assertFalse(t.isAlive(), t.getName() + " still running");
+        }
+        if (failure.get() != null) {
+            fail("worker failed", failure.get());
+        }
+    }
+
+    private void awaitPipeline(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (pipeline.accepted() < expected || pipeline.queued() > 0 || inventoryHits() < expected) {
+            if (System.nanoTime() > deadline) {
+                fail("pipeline did not drain: " + pipeline);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private long inventoryHits() {
+        long hits = 0;
+        for (TokenInventory.TokenRecord record : inventory.snapshot()) {
+            hits += record.hits();
+        }
+        return hits;
+    }
+
+    private static Properties loadBaseline() throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = HandlerLoadTest.class.getResourceAsStream("/" + BASELINE)) {
+            assertNotNull(in, BASELINE + " missing; run with -Dpaseto.load.record=true to create it");
+            baseline.load(in);
+        }
+        return baseline;
+    }
+
+    /** Tolerances come from the baseline file; a system property of the same name overrides them (noisy CI). */
+    private static double setting(Properties baseline, String name) {
+        String value = System.getProperty("paseto.load." + name, baseline.getProperty(name));
+        assertNotNull(value, name + " missing from " + BASELINE);
+        return Double.parseDouble(value);
+    }
+
+    private static void recordBaseline(Properties baseline, double throughput, double p99Micros, double calibration)
+            throws IOException {
+        Path file = Paths.get(System.getProperty("basedir", "."), "src", "test", "resources", BASELINE);
+        baseline.remove("throughputOpsPerSec");
+        baseline.remove("p99Micros");
+        baseline.setProperty("relativeThroughput", String.format(Locale.ROOT, "%.2f", throughput / calibration));
+        baseline.setProperty("relativeP99", String.format(Locale.ROOT, "%.0f", p99Micros * calibration));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            baseline.store(out, String.format(Locale.ROOT, "HandlerLoadTest baseline (%d threads, %d cpus, %s):"
+                            + " %.0f ops/s, p99 %.1f us at calibration %.0f MB/s",
+                    THREADS, Runtime.getRuntime().availableProcessors(), System.getProperty("java.version"),
+                    throughput, p99Micros, calibration));
+        }
+        System.out.println("[load] baseline written to " + file);
+    }
+}
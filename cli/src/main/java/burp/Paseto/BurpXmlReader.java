@@ -0,0 +1,162 @@
+package burp.Paseto;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Reader for Burp's "Save items" XML export ({@code <items><item>...}) on StAX.
+ *
+ * Each {@code <item>} is assembled from its child elements and handed on before
+ * the next one is read. Request and response text is accumulated chunk by chunk
+ * up to the scan limit and the rest of the element is skipped, so a large
+ * response never becomes one String. External entities and DTD loading are off.
+ */
+public class BurpXmlReader implements CaptureReader {
+
+    private static final DateTimeFormatter BURP_TIME = DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+
+    private final int maxBodyBytes;
+    private long truncated;
+
+    public BurpXmlReader(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /** Requests and responses cut short at the scan limit, over all files read. */
+    @Override
+    public long truncated() {
+        return truncated;
+    }
+
+    @Override
+    public long read(Path file, Consumer<CapturedExchange> sink) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        long count = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && "item".equals(xml.getLocalName())) {
+                        sink.accept(readItem(xml));
+                        count++;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("invalid Burp XML export " + file + ": " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    private CapturedExchange readItem(XMLStreamReader xml) throws XMLStreamException {
+        String url = "";
+        String host = "";
+        long time = 0;
+        byte[] request = new byte[0];
+        byte[] response = null;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "item".equals(xml.getLocalName())) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (xml.getLocalName()) {
+                case "url":
+                    url = xml.getElementText();
+                    break;
+                case "host":
+                    host = xml.getElementText();
+                    break;
+                case "time":
+                    time = parseTime(xml.getElementText());
+                    break;
+                case "request":
+                    request = readMessage(xml);
+                    break;
+                case "response":
+                    byte[] r = readMessage(xml);
+                    response = r.length == 0 ? null : r;
+                    break;
+                default:
+                    skipElement(xml);
+            }
+        }
+        return new CapturedExchange(url, host, time, request, -1, response, -1);
+    }
+
+    /** Reads a request/response element, decoding base64 and cutting the body to the limit. */
+    private byte[] readMessage(XMLStreamReader xml) throws XMLStreamException {
+        boolean base64 = "true".equals(xml.getAttributeValue(null, "base64"));
+        // Headers are not known yet; allow a generous head on top of the body limit
+        long maxBytes = (long) maxBodyBytes + 64 * 1024;
+        int maxChars = (int) Math.min(Integer.MAX_VALUE - 8, base64 ? maxBytes / 3 * 4 + 4 : maxBytes);
+        StringBuilder text = new StringBuilder();
+        boolean cut = false;
+        while (true) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                int n = Math.min(xml.getTextLength(), maxChars - text.length());
+                if (n > 0) {
+                    text.append(xml.getTextCharacters(), xml.getTextStart(), n);
+                }
+                cut |= n < xml.getTextLength();
+            }
+        }
+        if (cut) {
+            truncated++;
+        }
+        if (!base64) {
+            return text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        // Burp writes base64 without line breaks; tolerate them anyway
+        String b64 = text.toString().replaceAll("\\s", "");
+        try {
+            return Base64.getDecoder().decode(b64.substring(0, b64.length() & ~3));
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+    }
+
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    static long parseTime(String text) {
+        try {
+            return ZonedDateTime.parse(text.trim(), BURP_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
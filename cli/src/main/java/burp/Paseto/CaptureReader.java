@@ -0,0 +1,47 @@
+package burp.Paseto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Streams the exchanges of one capture file to a consumer, in file order, without
+ * holding more than the current exchange in memory.
+ */
+public interface CaptureReader {
+
+    /** @return the number of exchanges read */
+    long read(Path file, Consumer<CapturedExchange> sink) throws IOException;
+
+    /** Messages or values cut short at the scan limit, over all files read by this reader. */
+    default long truncated() {
+        return 0;
+    }
+
+    /** HAR for {@code .har} / {@code .json}, Burp XML for {@code .xml}; otherwise sniffs the first byte. */
+    static CaptureReader forFile(Path file, int maxBodyBytes) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".har") || name.endsWith(".json")) {
+            return new HarReader(maxBodyBytes);
+        }
+        if (name.endsWith(".xml")) {
+            return new BurpXmlReader(maxBodyBytes);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            int b;
+            do {
+                b = in.read();
+            } while (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == 0xEF || b == 0xBB || b == 0xBF);
+            if (b == '{') {
+                return new HarReader(maxBodyBytes);
+            }
+            if (b == '<') {
+                return new BurpXmlReader(maxBodyBytes);
+            }
+        }
+        throw new IOException("not a HAR or Burp XML export: " + file);
+    }
+}
@@ -0,0 +1,15 @@
+package burp.Paseto;
+
+/**
+ * One request/response pair read from a capture file, as raw HTTP/1.x bytes so
+ * the core matcher (including header, cookie and JSON scopes) sees exactly what
+ * it would see in Burp. Bodies are already cut to the scan limit.
+ *
+ * @param requestBodyOffset  first body byte of {@code request}, or -1 if unknown
+ * @param response           raw response, or {@code null} if the capture has none
+ * @param responseBodyOffset first body byte of {@code response}, or -1 if unknown
+ */
+public record CapturedExchange(String url, String host, long time,
+                               byte[] request, int requestBodyOffset,
+                               byte[] response, int responseBodyOffset) {
+}
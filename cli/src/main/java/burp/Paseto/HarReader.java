@@ -0,0 +1,382 @@
+package burp.Paseto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Consumer;
+
+/**
+ * HAR 1.2 reader on Jackson's streaming parser.
+ *
+ * Walks {@code log.entries[]} token by token and skips every subtree it does not
+ * need (timings, cache, cookies arrays, ...). Jackson always materialises a whole
+ * string value, so string literals are cut short in the byte stream before Jackson
+ * sees them ({@link CappedStrings}): memory use is bounded by the scan limit, not
+ * by the largest body in the file, and Jackson's string length limit stays in
+ * place as a second guard. Bodies are cut to the scan limit before each entry is
+ * turned into raw HTTP/1.1 request and response bytes.
+ */
+public class HarReader implements CaptureReader {
+
+    private final int maxBodyBytes;
+    private final int maxStringBytes;
+    private final JsonFactory json;
+    private long truncated;
+
+    public HarReader(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+        // Enough raw bytes for the base64 form of the limit even if every character is a six-byte unicode escape
+        this.maxStringBytes = (int) Math.min(Integer.MAX_VALUE / 2, 6L * textLimit(maxBodyBytes) + 16);
+        this.json = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(maxStringBytes).build())
+                .build();
+    }
+
+    /** String values cut short because they were longer than the scan limit, over all files read. */
+    @Override
+    public long truncated() {
+        return truncated;
+    }
+
+    @Override
+    public long read(Path file, Consumer<CapturedExchange> sink) throws IOException {
+        long count = 0;
+        CappedStrings in = new CappedStrings(new BufferedInputStream(Files.newInputStream(file), 64 * 1024),
+                maxStringBytes);
+        try (in; JsonParser p = json.createParser(in)) {
+            expect(p.nextToken(), JsonToken.START_OBJECT, p);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (!"log".equals(field)) {
+                    p.skipChildren();
+                    continue;
+                }
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String logField = p.currentName();
+                    if (p.nextToken() != JsonToken.START_ARRAY || !"entries".equals(logField)) {
+                        p.skipChildren();
+                        continue;
+                    }
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        sink.accept(readEntry(p));
+                        count++;
+                    }
+                }
+            }
+        } finally {
+            truncated += in.capped;
+        }
+        return count;
+    }
+
+    /** Characters of a body's text needed for {@code maxBodyBytes}: base64 needs 4 per 3 bytes. */
+    private static int textLimit(int maxBodyBytes) {
+        return maxBodyBytes / 3 * 4 + 4;
+    }
+
+    private CapturedExchange readEntry(JsonParser p) throws IOException {
+        Message request = null;
+        Message response = null;
+        long time = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "startedDateTime":
+                    time = parseTime(p.getText());
+                    break;
+                case "request":
+                    request = value == JsonToken.START_OBJECT ? readMessage(p, true) : null;
+                    break;
+                case "response":
+                    response = value == JsonToken.START_OBJECT ? readMessage(p, false) : null;
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        if (request == null) {
+            request = new Message();
+        }
+        String url = request.url == null ? "" : request.url;
+        byte[] rawRequest = request.toBytes();
+        byte[] rawResponse = response == null || response.status == 0 ? null : response.toBytes();
+        return new CapturedExchange(url, host(url), time, rawRequest, request.bodyOffset,
+                rawResponse, response == null ? -1 : response.bodyOffset);
+    }
+
+    private Message readMessage(JsonParser p, boolean isRequest) throws IOException {
+        Message m = new Message();
+        m.isRequest = isRequest;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "method": m.method = p.getText(); break;
+                case "url": m.url = p.getText(); break;
+                case "httpVersion": m.version = p.getText(); break;
+                case "status": m.status = value == JsonToken.VALUE_NUMBER_INT ? p.getIntValue() : 0; break;
+                case "statusText": m.statusText = p.getText(); break;
+                case "headers":
+                    if (value == JsonToken.START_ARRAY) {
+                        readHeaders(p, m);
+                    }
+                    break;
+                case "postData":
+                case "content":
+                    if (value == JsonToken.START_OBJECT) {
+                        readBody(p, m);
+                    }
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        return m;
+    }
+
+    private static void readHeaders(JsonParser p, Message m) throws IOException {
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            String value = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if ("name".equals(field)) {
+                    name = p.getText();
+                } else if ("value".equals(field)) {
+                    value = p.getText();
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (name != null && !name.startsWith(":")) { // HTTP/2 pseudo-headers are already in the request line
+                m.headers.append(name).append(": ").append(value == null ? "" : value).append("\r\n");
+            }
+        }
+    }
+
+    private void readBody(JsonParser p, Message m) throws IOException {
+        boolean base64 = false;
+        BoundedWriter text = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                text = new BoundedWriter(textLimit(maxBodyBytes));
+                p.getText(text);
+            } else if ("encoding".equals(field)) {
+                base64 = "base64".equalsIgnoreCase(p.getText());
+            } else {
+                p.skipChildren();
+            }
+        }
+        if (text == null) {
+            return;
+        }
+        byte[] body;
+        if (base64) {
+            String b64 = text.toString();
+            try {
+                body = Base64.getMimeDecoder().decode(b64.substring(0, b64.length() & ~3));
+            } catch (IllegalArgumentException e) {
+                body = new byte[0];
+            }
+        } else {
+            body = text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        m.body = body.length > maxBodyBytes ? Arrays.copyOf(body, maxBodyBytes) : body;
+    }
+
+    static long parseTime(String text) {
+        try {
+            return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+        } catch (DateTimeParseException | NullPointerException e) {
+            return 0;
+        }
+    }
+
+    static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser p) throws IOException {
+        if (actual != expected) {
+            throw new IOException("not a HAR file: expected " + expected + " at " + p.currentLocation());
+        }
+    }
+
+    /** One side of an entry, rebuilt as an HTTP/1.1 message. */
+    private static final class Message {
+        boolean isRequest;
+        String method = "GET";
+        String url;
+        String version;
+        int status;
+        String statusText = "";
+        final StringBuilder headers = new StringBuilder();
+        byte[] body = new byte[0];
+        int bodyOffset = -1;
+
+        byte[] toBytes() {
+            StringBuilder head = new StringBuilder(headers.length() + 128);
+            String httpVersion = version == null || version.isEmpty() || version.startsWith("h") ? "HTTP/1.1" : version;
+            if (isRequest) {
+                head.append(method).append(' ').append(url == null ? "/" : url).append(' ').append(httpVersion);
+            } else {
+                head.append(httpVersion).append(' ').append(status).append(' ').append(statusText);
+            }
+            head.append("\r\n").append(headers).append("\r\n");
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(headBytes.length + body.length);
+            out.writeBytes(headBytes);
+            out.writeBytes(body);
+            bodyOffset = headBytes.length;
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Passes JSON through unchanged except that every string literal is cut after
+     * {@code maxBytes} raw bytes (never inside an escape sequence or a UTF-8
+     * character); the rest of the literal is dropped up to its closing quote. Keys
+     * and short values are untouched, so the document stays valid JSON.
+     */
+    static final class CappedStrings extends FilterInputStream {
+        private final int maxBytes;
+        private boolean inString;
+        private boolean dropping;
+        private int escape;          // 0 none, -1 after the backslash, n hex digits of a unicode escape left
+        private long length;         // raw bytes kept of the current literal
+        long capped;                 // literals cut short so far
+
+        CappedStrings(InputStream in, int maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int n = in.read(buf, off, len);
+                if (n < 0) {
+                    return -1;
+                }
+                int kept = filter(buf, off, n);
+                if (kept > 0) {
+                    return kept;
+                }
+            }
+        }
+
+        /** Compacts {@code buf[off, off + n)} in place; returns the number of bytes kept. */
+        private int filter(byte[] buf, int off, int n) {
+            int out = off;
+            for (int i = off; i < off + n; i++) {
+                byte b = buf[i];
+                if (!inString) {
+                    if (b == '"') {
+                        inString = true;
+                        dropping = false;
+                        length = 0;
+                    }
+                    buf[out++] = b;
+                    continue;
+                }
+                if (escape != 0) {
+                    escape = escape == -1 ? (b == 'u' ? 4 : 0) : escape - 1;
+                } else if (b == '"') {
+                    inString = false;
+                    buf[out++] = b;
+                    continue;
+                } else {
+                    if (!dropping && length >= maxBytes && (b & 0xC0) != 0x80) {
+                        dropping = true;
+                        capped++;
+                    }
+                    if (b == '\\') {
+                        escape = -1;
+                    }
+                }
+                if (!dropping) {
+                    buf[out++] = b;
+                    length++;
+                }
+            }
+            return out - off;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            throw new IOException("skip not supported");
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /** Keeps the first {@code limit} characters written and drops the rest. */
+    static final class BoundedWriter extends Writer {
+        private final StringBuilder sb = new StringBuilder();
+        private final int limit;
+
+        BoundedWriter(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            int n = Math.min(len, limit - sb.length());
+            if (n > 0) {
+                sb.append(buf, off, n);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package burp.Paseto;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Headless scan of HAR / Burp XML exports with the same detection rules,
+ * decoder and verifier as the extension.
+ *
+ * One thread parses the capture (streaming, in file order) and feeds a bounded
+ * queue; worker threads run the rule matcher over requests and responses and
+ * record sightings in a {@link TokenInventory} in batches. The report is built
+ * once at the end, verifying each distinct token at most once.
+ */
+public final class OfflineScanner {
+
+    static final String USAGE = String.join("\n",
+            "usage: java -jar paseto-scan.jar [options] <capture.har|capture.xml>...",
+            "  --format json|csv      report format (default: from --out extension, else json)",
+            "  --out <file>           write the report to a file instead of stdout",
+            "  --rules <spec>         detection rules, same syntax as the extension setting",
+            "  --keys <spec>          verification keys, same syntax as the extension setting",
+            "  --threads <n>          scanner threads (default: available processors)",
+            "  --max-body-kb <n>      body bytes scanned per message (default: 1024)",
+            "  --requests-only        do not scan responses",
+            "  --fail-on-tokens       exit with status 3 if any token is found");
+
+    static final int BATCH = 256;
+
+    private static final CapturedExchange END = new CapturedExchange("", "", 0, new byte[0], -1, null, -1);
+
+    private final RuleMatcher rules;
+    private final boolean scanResponses;
+    private final TokenInventory inventory = new TokenInventory(Long.MAX_VALUE);
+    private final ConcurrentHashMap<String, String> firstUrl = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> sources = new ConcurrentHashMap<>();
+    private final LongAdder exchanges = new LongAdder();
+    private final LongAdder bytesScanned = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    public OfflineScanner(RuleMatcher rules, boolean scanResponses) {
+        this.rules = rules;
+        this.scanResponses = scanResponses;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return 2;
+        }
+
+        List<String> errors = new ArrayList<>();
+        RuleMatcher rules = RuleMatcher.compile(options.rules, errors);
+        errors.forEach(error -> stderr.println("[!] Detection rules: " + error));
+        OfflineScanner scanner = new OfflineScanner(rules, options.scanResponses);
+        long started = System.nanoTime();
+        long truncated = 0;
+        try {
+            for (Path input : options.inputs) {
+                CaptureReader reader = CaptureReader.forFile(input, options.maxBodyKb * 1024);
+                scanner.scan(reader, input, options.threads);
+                truncated += reader.truncated();
+            }
+        } catch (IOException e) {
+            stderr.println("[!] " + e.getMessage());
+            return 1;
+        }
+        if (scanner.firstFailure.get() != null) {
+            stderr.println("[!] First scan failure: " + scanner.firstFailure.get());
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        PasetoVerifier verifier = new PasetoVerifier(() -> options.keys, message -> stderr.println("[!] " + message));
+        List<TokenReport.Row> rows = scanner.rows(verifier);
+        TokenReport.Summary summary = new TokenReport.Summary(
+                options.inputs.stream().map(Path::toString).collect(Collectors.toList()),
+                scanner.exchanges.sum(), scanner.bytesScanned.sum(), millis, rows.size(),
+                scanner.inventory.evictions(), scanner.failures.sum(), truncated);
+        try (OutputStream out = options.out == null
+                ? new BufferedOutputStream(stdout) : new BufferedOutputStream(Files.newOutputStream(options.out))) {
+            TokenReport.write(options.format, summary, rows, out);
+        } catch (IOException e) {
+            stderr.println("[!] Writing the report failed: " + e.getMessage());
+            return 1;
+        }
+        stderr.printf(Locale.ROOT, "[*] %,d exchanges, %,d bytes in %,d ms (%.1f MB/s), %d distinct tokens%s%s%n",
+                summary.exchanges(), summary.bytesScanned(), millis,
+                summary.bytesScanned() / 1e6 / Math.max(0.001, millis / 1000.0), rows.size(),
+                summary.failures() > 0 ? ", " + summary.failures() + " exchanges failed" : "",
+                summary.truncated() > 0 ? ", " + summary.truncated() + " values cut at the scan limit" : "");
+        return options.failOnTokens && !rows.isEmpty() ? 3 : 0;
+    }
+
+    /** Reads one capture on the calling thread and scans it on {@code threads} workers. */
+    public void scan(CaptureReader reader, Path input, int threads) throws IOException {
+        BlockingQueue<CapturedExchange> queue = new ArrayBlockingQueue<>(Math.max(16, threads * 64));
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> work(queue), "paseto-scan-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+        try {
+            // put() blocks while the workers are behind, so the parser never runs far ahead
+            exchanges.add(reader.read(input, exchange -> put(queue, exchange)));
+        } finally {
+            for (int i = 0; i < threads; i++) {
+                put(queue, END);
+            }
+            for (Thread t : workers) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void work(BlockingQueue<CapturedExchange> queue) {
+        List<TokenSighting> batch = new ArrayList<>(BATCH);
+        try {
+            while (true) {
+                CapturedExchange exchange = queue.take();
+                if (exchange == END) {
+                    break;
+                }
+                try {
+                    scan(exchange, batch);
+                } catch (RuntimeException e) {
+                    failures.increment();
+                    firstFailure.compareAndSet(null, e);
+                }
+                if (batch.size() >= BATCH) {
+                    flush(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flush(batch);
+        }
+    }
+
+    private void scan(CapturedExchange exchange, List<TokenSighting> batch) {
+        byte[] request = exchange.request();
+        bytesScanned.add(request.length);
+        collect(exchange, request, exchange.requestBodyOffset(), TokenSighting.Source.REQUEST, batch);
+        byte[] response = exchange.response();
+        if (scanResponses && response != null) {
+            bytesScanned.add(response.length);
+            collect(exchange, response, exchange.responseBodyOffset(), TokenSighting.Source.RESPONSE, batch);
+        }
+    }
+
+    private void collect(CapturedExchange exchange, byte[] message, int bodyOffset, TokenSighting.Source source,
+                         List<TokenSighting> batch) {
+        TokenSpans spans = rules.findAll(message, 0, message.length, bodyOffset);
+        for (int i = 0; i < spans.size(); i++) {
+            String token = PasetoScanner.tokenAt(message, spans.start(i), spans.end(i));
+            batch.add(new TokenSighting(token, exchange.host(), exchange.time(), source));
+            firstUrl.putIfAbsent(token, exchange.url());
+            sources.merge(token, 1 << source.ordinal(), (a, b) -> a | b);
+        }
+    }
+
+    private void flush(List<TokenSighting> batch) {
+        if (!batch.isEmpty()) {
+            inventory.recordAll(batch, s -> { });
+            batch.clear();
+        }
+    }
+
+    private static void put(BlockingQueue<CapturedExchange> queue, CapturedExchange exchange) {
+        try {
+            queue.put(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+
+    /** Report rows in order of first sighting; decoding and verification run in parallel. */
+    List<TokenReport.Row> rows(PasetoVerifier verifier) {
+        List<TokenInventory.TokenRecord> records = List.of(inventory.snapshot());
+        return records.parallelStream()
+                .map(r -> row(r, verifier))
+                .sorted(Comparator.comparingLong(TokenReport.Row::firstSeen).thenComparing(TokenReport.Row::token))
+                .collect(Collectors.toList());
+    }
+
+    private TokenReport.Row row(TokenInventory.TokenRecord r, PasetoVerifier verifier) {
+        DecodedPaseto decoded = PasetoDecoder.decode(r.token());
+        PasetoVerifier.Verification verification = verifier.hasKeys() ? verifier.verify(r.token()) : null;
+        PasetoClaims claims = verification != null && verification.claims() != null
+                ? verification.claims() : decoded.claims();
+        String status = verification != null ? verification.status().label()
+                : decoded.isMalformed() ? "malformed" : "not verified";
+        int mask = sources.getOrDefault(r.token(), 0);
+        List<String> seenIn = new ArrayList<>(2);
+        for (TokenSighting.Source source : TokenSighting.Source.values()) {
+            if ((mask & (1 << source.ordinal())) != 0) {
+                seenIn.add(source.name().toLowerCase(Locale.ROOT));
+            }
+        }
+        return new TokenReport.Row(r.token(), decoded.header(), decoded.purpose(), decoded.kid(),
+                claims == null ? null : claims.subject(),
+                claims == null ? null : claims.issuer(),
+                claims == null ? null : claims.expiration(),
+                status, r.hits(), r.hosts(), r.firstSeen(), r.lastSeen(),
+                firstUrl.getOrDefault(r.token(), ""), String.join(" ", seenIn));
+    }
+
+    /** Command-line options; {@link #parse} throws IllegalArgumentException with a readable message. */
+    static final class Options {
+        final List<Path> inputs = new ArrayList<>();
+        Path out;
+        TokenReport.Format format;
+        String rules = DetectionRule.DEFAULT_RULES;
+        String keys = "";
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxBodyKb = 1024;
+        boolean scanResponses = true;
+        boolean failOnTokens;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--format":
+                        o.format = TokenReport.Format.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT));
+                        break;
+                    case "--out": o.out = Paths.get(value(args, ++i, arg)); break;
+                    case "--rules": o.rules = value(args, ++i, arg); break;
+                    case "--keys": o.keys = value(args, ++i, arg); break;
+                    case "--threads": o.threads = positive(value(args, ++i, arg), arg); break;
+                    case "--max-body-kb": o.maxBodyKb = positive(value(args, ++i, arg), arg); break;
+                    case "--requests-only": o.scanResponses = false; break;
+                    case "--fail-on-tokens": o.failOnTokens = true; break;
+                    case "-h":
+                    case "--help":
+                        throw new IllegalArgumentException("PASETO offline scanner");
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("unknown option " + arg);
+                        }
+                        o.inputs.add(Paths.get(arg));
+                }
+            }
+            if (o.inputs.isEmpty()) {
+                throw new IllegalArgumentException("no capture files given");
+            }
+            if (o.format == null) {
+                boolean csv = o.out != null && o.out.toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+                o.format = csv ? TokenReport.Format.CSV : TokenReport.Format.JSON;
+            }
+            o.maxBodyKb = Math.min(o.maxBodyKb, Integer.MAX_VALUE / 2048);
+            return o;
+        }
+
+        private static String value(String[] args, int i, String option) {
+            if (i >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            return args[i];
+        }
+
+        private static int positive(String value, String option) {
+            try {
+                int n = Integer.parseInt(value);
+                if (n > 0) {
+                    return n;
+                }
+            } catch (NumberFormatException ignored) {
+                // reported below
+            }
+            throw new IllegalArgumentException(option + " must be a positive number");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package burp.Paseto;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+/** Writes the offline scan result as JSON (summary + tokens) or CSV (one row per token). */
+public final class TokenReport {
+
+    public enum Format { JSON, CSV }
+
+    /** One distinct token with what the core could tell about it. */
+    public record Row(String token, String header, String purpose, String kid, String subject, String issuer,
+                      Instant expires, String status, long hits, String hosts, long firstSeen, long lastSeen,
+                      String firstUrl, String sources) {
+    }
+
+    public record Summary(List<String> inputs, long exchanges, long bytesScanned, long millis, int tokens,
+                          long evictions, long failures, long truncated) {
+    }
+
+    private static final String[] COLUMNS = {
+            "token", "header", "purpose", "kid", "subject", "issuer", "expires", "status",
+            "hits", "hosts", "firstSeen", "lastSeen", "firstUrl", "sources"
+    };
+
+    private TokenReport() {
+    }
+
+    public static void write(Format format, Summary summary, List<Row> rows, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            writeCsv(rows, out);
+        } else {
+            writeJson(summary, rows, out);
+        }
+    }
+
+    private static void writeJson(Summary summary, List<Row> rows, OutputStream out) throws IOException {
+        try (JsonGenerator g = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            g.useDefaultPrettyPrinter();
+            g.writeStartObject();
+            g.writeObjectFieldStart("summary");
+            g.writeArrayFieldStart("inputs");
+            for (String input : summary.inputs()) {
+                g.writeString(input);
+            }
+            g.writeEndArray();
+            g.writeNumberField("exchanges", summary.exchanges());
+            g.writeNumberField("bytesScanned", summary.bytesScanned());
+            g.writeNumberField("millis", summary.millis());
+            g.writeNumberField("tokens", summary.tokens());
+            g.writeNumberField("evictions", summary.evictions());
+            g.writeNumberField("failures", summary.failures());
+            g.writeNumberField("truncated", summary.truncated());
+            g.writeEndObject();
+            g.writeArrayFieldStart("tokens");
+            for (Row r : rows) {
+                g.writeStartObject();
+                g.writeStringField("token", r.token());
+                g.writeStringField("header", r.header());
+                g.writeStringField("purpose", r.purpose());
+                writeOptional(g, "kid", r.kid());
+                writeOptional(g, "subject", r.subject());
+                writeOptional(g, "issuer", r.issuer());
+                writeOptional(g, "expires", r.expires() == null ? null : r.expires().toString());
+                g.writeStringField("status", r.status());
+                g.writeNumberField("hits", r.hits());
+                g.writeStringField("hosts", r.hosts());
+                g.writeStringField("firstSeen", Instant.ofEpochMilli(r.firstSeen()).toString());
+                g.writeStringField("lastSeen", Instant.ofEpochMilli(r.lastSeen()).toString());
+                g.writeStringField("firstUrl", r.firstUrl());
+                g.writeStringField("sources", r.sources());
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        out.write('\n');
+        out.flush();
+    }
+
+    private static void writeOptional(JsonGenerator g, String name, String value) throws IOException {
+        if (value != null) {
+            g.writeStringField(name, value);
+        }
+    }
+
+    private static void writeCsv(List<Row> rows, OutputStream out) throws IOException {
+        Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        w.write(String.join(",", COLUMNS));
+        w.write("\r\n");
+        for (Row r : rows) {
+            String[] fields = {
+                    r.token(), r.header(), r.purpose(), r.kid(), r.subject(), r.issuer(),
+                    r.expires() == null ? null : r.expires().toString(), r.status(),
+                    Long.toString(r.hits()), r.hosts(),
+                    Instant.ofEpochMilli(r.firstSeen()).toString(), Instant.ofEpochMilli(r.lastSeen()).toString(),
+                    r.firstUrl(), r.sources()
+            };
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    w.write(',');
+                }
+                w.write(csv(fields[i]));
+            }
+            w.write("\r\n");
+        }
+        w.flush();
+    }
+
+    /** RFC 4180 quoting; a leading formula character is neutralised for spreadsheet imports. */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        String v = !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0) {
+            return v;
+        }
+        return '"' + v.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,64 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BurpXmlReaderTest {
+
+    static final String TOKEN = "v4.public.eyJzdWIiOiJhbGljZSJ9c2lnbmF0dXJlX2J5dGVzX2dvX2hlcmU";
+
+    static Path fixture(String name) throws URISyntaxException {
+        return Paths.get(BurpXmlReaderTest.class.getResource("/" + name).toURI());
+    }
+
+    private static List<CapturedExchange> read(BurpXmlReader reader) throws Exception {
+        List<CapturedExchange> exchanges = new ArrayList<>();
+        assertEquals(2, reader.read(fixture("export.xml"), exchanges::add));
+        return exchanges;
+    }
+
+    @Test
+    void readsItemsInFileOrder() throws Exception {
+        List<CapturedExchange> exchanges = read(new BurpXmlReader(1024 * 1024));
+
+        CapturedExchange first = exchanges.get(0);
+        assertEquals("https://api.example.test/me", first.url());
+        assertEquals("api.example.test", first.host());
+        assertEquals(1714557600000L, first.time());
+        assertEquals("GET /me HTTP/1.1\r\nHost: api.example.test\r\nAuthorization: Bearer " + TOKEN + "\r\n\r\n",
+                new String(first.request(), StandardCharsets.UTF_8));
+
+        CapturedExchange second = exchanges.get(1);
+        assertEquals("static.example.test", second.host());
+        assertNull(second.response(), "empty response element");
+    }
+
+    @Test
+    void plainTextMessagesKeepNonLatinCharacters() throws Exception {
+        String response = new String(read(new BurpXmlReader(1024 * 1024)).get(0).response(), StandardCharsets.UTF_8);
+        assertTrue(response.contains("\"greeting\":\"Привет, 世界\""), response);
+    }
+
+    @Test
+    void timeFormat() {
+        assertEquals(1714557600000L, BurpXmlReader.parseTime(" Wed May 01 10:00:00 UTC 2024 "));
+        assertEquals(0, BurpXmlReader.parseTime("yesterday"));
+    }
+
+    @Test
+    void harFileIsRejected() {
+        assertThrows(IOException.class, () -> new BurpXmlReader(1024).read(fixture("capture.har"), e -> { }));
+    }
+}
@@ -0,0 +1,129 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HarReaderTest {
+
+    static final String TOKEN = "v4.public.eyJzdWIiOiJhbGljZSJ9c2lnbmF0dXJlX2J5dGVzX2dvX2hlcmU";
+
+    @TempDir
+    Path dir;
+
+    private static String entry(String url, String requestHeaders, String responseText) {
+        return "{\"startedDateTime\":\"2024-05-01T10:00:00.000Z\",\"time\":12,"
+                + "\"request\":{\"method\":\"GET\",\"url\":\"" + url + "\",\"httpVersion\":\"HTTP/1.1\","
+                + "\"headers\":[" + requestHeaders + "],\"cookies\":[]},"
+                + "\"response\":{\"status\":200,\"statusText\":\"OK\",\"httpVersion\":\"HTTP/1.1\","
+                + "\"headers\":[{\"name\":\"Content-Type\",\"value\":\"application/json\"}],"
+                + "\"content\":{\"size\":0,\"mimeType\":\"application/json\",\"text\":\"" + responseText + "\"}},"
+                + "\"timings\":{\"send\":1,\"wait\":10,\"receive\":1}}";
+    }
+
+    private List<CapturedExchange> read(HarReader reader, String... entries) throws IOException {
+        Path file = dir.resolve("capture.har");
+        Files.writeString(file, "{\"log\":{\"version\":\"1.2\",\"entries\":[" + String.join(",", entries) + "]}}");
+        List<CapturedExchange> exchanges = new ArrayList<>();
+        assertEquals(entries.length, reader.read(file, exchanges::add));
+        return exchanges;
+    }
+
+    private static String text(byte[] raw) {
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void rebuildsRawRequestAndResponse() throws IOException {
+        List<CapturedExchange> exchanges = read(new HarReader(1024),
+                entry("https://api.example.test/me", "{\"name\":\"Authorization\",\"value\":\"Bearer " + TOKEN + "\"},"
+                        + "{\"name\":\":authority\",\"value\":\"api.example.test\"}", "{\\\"ok\\\":\\\"caf\\u00e9\\\"}"));
+
+        CapturedExchange e = exchanges.get(0);
+        assertEquals("api.example.test", e.host());
+        assertEquals(1714557600000L, e.time());
+        assertEquals("GET https://api.example.test/me HTTP/1.1\r\nAuthorization: Bearer " + TOKEN + "\r\n\r\n",
+                text(e.request()));
+        String response = text(e.response());
+        assertTrue(response.startsWith("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n\r\n"), response);
+        assertEquals("{\"ok\":\"café\"}", response.substring(e.responseBodyOffset()));
+    }
+
+    @Test
+    void oversizedBodyIsCutWithoutBufferingItAndLaterEntriesStillParse() throws IOException {
+        // Far over the reader's string limit (~8 KB for a 1 KB scan limit): Jackson would
+        // refuse the value if it ever saw it whole
+        StringBuilder big = new StringBuilder(TOKEN);
+        while (big.length() < 2_000_000) {
+            big.append(" filler \\\"quoted\\\" caf\\u00e9 ü");
+        }
+        HarReader reader = new HarReader(1024);
+        List<CapturedExchange> exchanges = read(reader,
+                entry("https://a.example.test/big", "", big.toString()),
+                entry("https://b.example.test/next", "{\"name\":\"Cookie\",\"value\":\"s=" + TOKEN + "\"}", "small"));
+
+        assertEquals(2, exchanges.size());
+        CapturedExchange first = exchanges.get(0);
+        assertEquals(1024, first.response().length - first.responseBodyOffset());
+        assertTrue(text(first.response()).contains(TOKEN));
+        assertEquals("b.example.test", exchanges.get(1).host());
+        assertTrue(text(exchanges.get(1).request()).contains("Cookie: s=" + TOKEN));
+        assertTrue(text(exchanges.get(1).response()).endsWith("small"));
+        assertEquals(1, reader.truncated());
+    }
+
+    @Test
+    void base64BodiesAreDecoded() throws IOException {
+        String b64 = java.util.Base64.getEncoder().encodeToString(("token=" + TOKEN).getBytes(StandardCharsets.UTF_8));
+        String entry = entry("https://a.example.test/", "", b64).replace("\"text\":", "\"encoding\":\"base64\",\"text\":");
+        CapturedExchange e = read(new HarReader(1024), entry).get(0);
+        assertEquals("token=" + TOKEN, text(e.response()).substring(e.responseBodyOffset()));
+    }
+
+    @Test
+    void entryWithoutResponse() throws IOException {
+        String entry = "{\"request\":{\"method\":\"POST\",\"url\":\"http://h.test/x\",\"headers\":[],"
+                + "\"postData\":{\"mimeType\":\"text/plain\",\"text\":\"" + TOKEN + "\"}}}";
+        CapturedExchange e = read(new HarReader(1024), entry).get(0);
+        assertNull(e.response());
+        assertEquals(TOKEN, text(e.request()).substring(e.requestBodyOffset()));
+    }
+
+    @Test
+    void cappedStringsNeverSplitEscapesOrCharacters() throws IOException {
+        String json = "{\"k\":\"ab\\u00e9\\\"cdé\",\"short\":\"x\",\"n\":[1,\"\\\\\"]}";
+        for (int cap = "short".length(); cap < 20; cap++) { // keys stay whole; the reader's cap is never below 40
+            HarReader.CappedStrings in = new HarReader.CappedStrings(
+                    new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), cap);
+            String out = new String(readAll(in), StandardCharsets.UTF_8);
+            // Still valid JSON with the same structure, values only shortened
+            java.util.Map<String, Object> parsed = MiniJson.parseObject(out);
+            assertEquals(java.util.List.of("k", "short", "n"), new ArrayList<>(parsed.keySet()), out);
+            String k = (String) parsed.get("k");
+            assertTrue("abé\"cdé".startsWith(k), out);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        // Small reads exercise state carried across buffer boundaries
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        byte[] buf = new byte[3];
+        int n;
+        while ((n = in.read(buf, 0, buf.length)) >= 0) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,106 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** End-to-end runs of the command line over the fixture captures. */
+class OfflineScannerTest {
+
+    static final String TOKEN = "v4.public.eyJzdWIiOiJhbGljZSJ9c2lnbmF0dXJlX2J5dGVzX2dvX2hlcmU";
+    static final String REFRESH = "v2.local.QUJDREVGR0hJSktMTU5PUFFSU1RVVldYWVphYmNkZWZnaGlqa2xtbm9wcXJzdHV2d3h5ejAxMjM0NTY3ODk";
+
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return OfflineScanner.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String stdout() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String fixture(String name) throws Exception {
+        return BurpXmlReaderTest.fixture(name).toString();
+    }
+
+    @Test
+    void jsonReportOfHarCapture() throws Exception {
+        assertEquals(0, run("--threads", "2", fixture("capture.har")));
+        String json = stdout();
+        assertTrue(json.contains("\"exchanges\" : 2"), json);
+        assertTrue(json.contains("\"token\" : \"" + TOKEN + "\""), json);
+        assertTrue(json.contains("\"token\" : \"" + REFRESH + "\""), json);
+        assertTrue(json.contains("\"sources\" : \"response\""), json);
+        assertTrue(json.contains("\"firstUrl\" : \"https://api.example.test/me\""), json);
+    }
+
+    @Test
+    void requestsOnlySkipsResponses() throws Exception {
+        assertEquals(0, run("--requests-only", fixture("capture.har")));
+        assertTrue(stdout().contains(TOKEN));
+        assertFalse(stdout().contains(REFRESH));
+    }
+
+    @Test
+    void csvReportChosenByOutputSuffix() throws Exception {
+        Path csv = dir.resolve("tokens.csv");
+        assertEquals(0, run("--out", csv.toString(), fixture("export.xml")));
+        String[] lines = Files.readString(csv).split("\r\n");
+        assertEquals("token,header,purpose,kid,subject,issuer,expires,status,hits,hosts,firstSeen,lastSeen,firstUrl,sources",
+                lines[0]);
+        assertEquals(3, lines.length, String.join("\n", lines));
+        String access = lines[1].startsWith(TOKEN) ? lines[1] : lines[2];
+        assertTrue(access.startsWith(TOKEN + ",v4,public,"), access);
+        assertTrue(access.endsWith(",https://api.example.test/me,request"), access);
+        assertEquals("", stdout());
+    }
+
+    @Test
+    void failOnTokensExitsWithThree() throws Exception {
+        assertEquals(3, run("--fail-on-tokens", fixture("capture.har"), fixture("export.xml")));
+    }
+
+    @Test
+    void failOnTokensWithoutTokensExitsWithZero() throws Exception {
+        Path har = dir.resolve("empty.har");
+        Files.writeString(har, "{\"log\":{\"entries\":[]}}");
+        assertEquals(0, run("--fail-on-tokens", har.toString()));
+    }
+
+    @Test
+    void usageErrorsExitWithTwo() {
+        assertEquals(2, run());
+        assertEquals(2, run("--bogus", "x.har"));
+        assertEquals(2, run("--threads", "0", "x.har"));
+        assertEquals(2, run("--format", "xml", "x.har"));
+        assertEquals(2, run("capture.har", "--out"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("usage: java -jar paseto-scan.jar"));
+    }
+
+    @Test
+    void unreadableInputExitsWithOne() {
+        assertEquals(1, run(dir.resolve("missing.har").toString()));
+    }
+
+    @Test
+    void unknownFileTypeExitsWithOne() throws Exception {
+        Path txt = dir.resolve("notes.txt");
+        Files.writeString(txt, "hello");
+        assertEquals(1, run(txt.toString()));
+    }
+}
@@ -0,0 +1,28 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenReportTest {
+
+    @Test
+    void csvQuotingFollowsRfc4180() {
+        assertEquals("", TokenReport.csv(null));
+        assertEquals("", TokenReport.csv(""));
+        assertEquals("v4.public.abc", TokenReport.csv("v4.public.abc"));
+        assertEquals("\"a,b\"", TokenReport.csv("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", TokenReport.csv("say \"hi\""));
+        assertEquals("\"line\nbreak\"", TokenReport.csv("line\nbreak"));
+        assertEquals("\"cr\rhere\"", TokenReport.csv("cr\rhere"));
+    }
+
+    @Test
+    void csvNeutralisesFormulas() {
+        assertEquals("'=HYPERLINK(1)", TokenReport.csv("=HYPERLINK(1)"));
+        assertEquals("'+1", TokenReport.csv("+1"));
+        assertEquals("'-1", TokenReport.csv("-1"));
+        assertEquals("'@sum", TokenReport.csv("@sum"));
+        assertEquals("\"'=1,2\"", TokenReport.csv("=1,2"));
+    }
+}
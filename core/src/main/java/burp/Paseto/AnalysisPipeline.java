@@ -0,0 +1,135 @@
+package burp.Paseto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Moves everything beyond "is there a token" off Burp's proxy/HTTP threads.
+ *
+ * Handlers {@link #submit} sightings into a bounded queue and return immediately.
+ * A small worker pool drains the queue in batches and hands each batch to the
+ * registered stages (inventory updates, logging, ...). Under burst load the queue
+ * never blocks the caller: above the high-water mark only every
+ * {@value #SAMPLE_RATE}th sighting is accepted, and when the queue is full the
+ * sighting is dropped. Both cases are counted.
+ */
+public class AnalysisPipeline {
+
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+    static final int MAX_BATCH = 512;
+    static final int SAMPLE_RATE = 8;
+
+    private final BlockingQueue<TokenSighting> queue;
+    private final int highWaterMark;
+    private final List<Consumer<List<TokenSighting>>> stages = new CopyOnWriteArrayList<>();
+    private final ExecutorService workers;
+    private final AtomicInteger sampleCounter = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running = true;
+
+    public AnalysisPipeline() {
+        this(DEFAULT_CAPACITY, 1);
+    }
+
+    public AnalysisPipeline(int capacity, int threads) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.highWaterMark = capacity - capacity / 4;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "paseto-analysis-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::drainLoop);
+        }
+    }
+
+    /** Registers a stage that receives every accepted sighting, in batches, on a worker thread. */
+    public void addStage(Consumer<List<TokenSighting>> stage) {
+        stages.add(stage);
+    }
+
+    /** Non-blocking; returns false if the sighting was sampled out or dropped. */
+    public boolean submit(TokenSighting sighting) {
+        if (queue.size() >= highWaterMark && sampleCounter.incrementAndGet() % SAMPLE_RATE != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        if (!queue.offer(sighting)) {
+            dropped.increment();
+            return false;
+        }
+        accepted.increment();
+        return true;
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.shutdownNow();
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long sampledOut() {
+        return sampledOut.sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<TokenSighting> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                TokenSighting first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (Consumer<List<TokenSighting>> stage : stages) {
+                    try {
+                        stage.accept(batch);
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisPipeline[queued=" + queued() + " accepted=" + accepted() + " sampledOut=" + sampledOut()
+                + " dropped=" + dropped() + " failed=" + failed() + "]";
+    }
+}
@@ -0,0 +1,131 @@
+package burp.Paseto;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Thread-safe, approximately LRU cache with a fixed entry limit and hit/miss/eviction
+ * counters.
+ *
+ * Entries live in a {@link ConcurrentHashMap}, so lookups take no lock. Eviction is
+ * CLOCK (second chance): a lookup marks its entry as used, and when the cache is
+ * over its limit one thread at a time sweeps a hand over the entries, clearing the
+ * mark of used ones and evicting the first unused one. Entries looked up since the
+ * hand last passed them survive, which approximates LRU without reordering a list
+ * on every hit.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+    /** Held by the evicting thread; other writers do not wait for it. */
+    private final ReentrantLock evictLock = new ReentrantLock();
+    private Iterator<Map.Entry<K, Entry<V>>> hand;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /** Cached value or {@code null}; counts a hit or a miss. */
+    public V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.used) {
+            entry.used = true; // skipped when already set, so hot entries are not written on every hit
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        map.put(key, new Entry<>(value));
+        // Whoever holds the lock re-checks the size after its sweep, so no insert is left over
+        while (map.size() > maxEntries && evictLock.tryLock()) {
+            try {
+                evict();
+            } finally {
+                evictLock.unlock();
+            }
+        }
+    }
+
+    private void evict() {
+        while (map.size() > maxEntries) {
+            if (hand == null || !hand.hasNext()) {
+                hand = map.entrySet().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+            Map.Entry<K, Entry<V>> next = hand.next();
+            Entry<V> entry = next.getValue();
+            if (entry.used) {
+                entry.used = false;
+            } else if (map.remove(next.getKey(), entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value or computes and stores it. The loader runs outside
+     * the lock, so two threads may occasionally compute the same value.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + "/" + maxEntries + " hits=" + hits() + " misses=" + misses()
+                + " evictions=" + evictions();
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        volatile boolean used;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+}
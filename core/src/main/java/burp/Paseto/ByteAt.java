@@ -0,0 +1,15 @@
+package burp.Paseto;
+
+/**
+ * Random access to message bytes, so matching and scope checks run the same on
+ * plain arrays, Burp's byte arrays and anything else that can hand out a byte.
+ */
+@FunctionalInterface
+public interface ByteAt {
+
+    int at(int index);
+
+    static ByteAt of(byte[] data) {
+        return i -> data[i];
+    }
+}
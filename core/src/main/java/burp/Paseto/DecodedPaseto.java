@@ -0,0 +1,162 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structural view of one token produced by {@link PasetoDecoder}. Immutable; byte
+ * arrays are shared with the decoder's cache and must not be modified.
+ *
+ * For {@code public} tokens the payload is split into message and signature; for
+ * {@code local} tokens into nonce, ciphertext and tag (for v2 the tag is the last 16
+ * bytes of the AEAD ciphertext). {@link #problems()} lists everything that is wrong
+ * with the token; an empty list means it is well-formed.
+ */
+public final class DecodedPaseto {
+
+    final String token;
+    final String header;          // "v4"
+    final PasetoVersion version;  // null if unknown
+    final String purpose;         // "local" / "public" (as written)
+    final byte[] payload;         // null if not base64url
+    final byte[] message;         // public: signed message
+    final byte[] signature;       // public
+    final byte[] nonce;           // local
+    final byte[] ciphertext;      // local (without tag)
+    final byte[] tag;             // local
+    final String footerEncoded;
+    final byte[] footer;
+    final String kid;
+    final PasetoClaims claims;    // public tokens with a JSON message; null otherwise
+    final List<String> problems;
+
+    DecodedPaseto(String token, String header, PasetoVersion version, String purpose, byte[] payload,
+                  byte[] message, byte[] signature, byte[] nonce, byte[] ciphertext, byte[] tag,
+                  String footerEncoded, byte[] footer, String kid, PasetoClaims claims, List<String> problems) {
+        this.token = token;
+        this.header = header;
+        this.version = version;
+        this.purpose = purpose;
+        this.payload = payload;
+        this.message = message;
+        this.signature = signature;
+        this.nonce = nonce;
+        this.ciphertext = ciphertext;
+        this.tag = tag;
+        this.footerEncoded = footerEncoded;
+        this.footer = footer;
+        this.kid = kid;
+        this.claims = claims;
+        this.problems = Collections.unmodifiableList(problems);
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public String header() {
+        return header;
+    }
+
+    public PasetoVersion version() {
+        return version;
+    }
+
+    public String purpose() {
+        return purpose;
+    }
+
+    public boolean isPublic() {
+        return "public".equals(purpose);
+    }
+
+    public boolean isLocal() {
+        return "local".equals(purpose);
+    }
+
+    public byte[] message() {
+        return message;
+    }
+
+    public String messageText() {
+        return message == null ? null : new String(message, StandardCharsets.UTF_8);
+    }
+
+    public byte[] signature() {
+        return signature;
+    }
+
+    public byte[] nonce() {
+        return nonce;
+    }
+
+    public byte[] ciphertext() {
+        return ciphertext;
+    }
+
+    public byte[] tag() {
+        return tag;
+    }
+
+    /** Footer exactly as it appears in the token (base64url), "" if none. */
+    public String footerEncoded() {
+        return footerEncoded;
+    }
+
+    /** Decoded footer bytes; empty if none, null if the footer is not base64url. */
+    public byte[] footer() {
+        return footer;
+    }
+
+    public String footerText() {
+        return footer == null ? null : new String(footer, StandardCharsets.UTF_8);
+    }
+
+    /** {@code kid} from a JSON footer, or null. */
+    public String kid() {
+        return kid;
+    }
+
+    public PasetoClaims claims() {
+        return claims;
+    }
+
+    public List<String> problems() {
+        return problems;
+    }
+
+    public boolean isMalformed() {
+        return !problems.isEmpty();
+    }
+
+    /** Multi-line summary for the editor and dialogs. */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Version  : ").append(header).append(version == null ? " (unknown)" : "").append('\n');
+        sb.append("Purpose  : ").append(purpose).append('\n');
+        if (isPublic() && message != null) {
+            sb.append("Message  : ").append(message.length).append(" bytes, signature ")
+                    .append(signature == null ? 0 : signature.length).append(" bytes\n");
+        } else if (isLocal() && nonce != null) {
+            sb.append("Encrypted: nonce ").append(nonce.length).append(" / ciphertext ").append(ciphertext.length)
+                    .append(" / tag ").append(tag.length).append(" bytes\n");
+        }
+        if (!footerEncoded.isEmpty()) {
+            sb.append("Footer   : ").append(footer == null ? "(not base64url)" : footerText()).append('\n');
+        }
+        if (kid != null) {
+            sb.append("Key ID   : ").append(kid).append('\n');
+        }
+        if (claims != null) {
+            sb.append("Claims   : ").append(claims).append('\n');
+            if (claims.expiration() != null) {
+                sb.append("Expires  : ").append(claims.expiration()).append('\n');
+            }
+        }
+        for (String problem : problems) {
+            sb.append("Problem  : ").append(problem).append('\n');
+        }
+        return sb.toString();
+    }
+}
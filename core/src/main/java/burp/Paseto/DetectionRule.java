@@ -0,0 +1,342 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One user-defined detection rule from the "detectionRules" setting.
+ *
+ * A rule is a prefix pattern followed by one or more base64url segments joined by
+ * single dots, optionally restricted to where in the message the token may appear:
+ * <pre>
+ *   name = prefix-pattern [segments=N] [in=scope[,scope...]]
+ * </pre>
+ * The prefix pattern is literal text with {@code [a-z]} style character classes and
+ * {@code (x|y)} alternatives, expanded to plain literals for {@link RuleMatcher}.
+ * Scopes are {@code headers}, {@code body}, {@code header:Name}, {@code cookie:name}
+ * and {@code json:field}. Rules are separated by newlines or {@code ;}.
+ */
+public final class DetectionRule {
+
+    /** The built-in PASETO rule: {@code v[0-9].(local|public).} plus payload and optional footer. */
+    public static final String DEFAULT_RULES = "paseto = v[0-9].(local|public).";
+
+    static final int MAX_EXPANSIONS = 1024;
+
+    public enum ScopeKind { HEADERS, BODY, HEADER, COOKIE, JSON }
+
+    /** Where a token may appear; {@code name} is null for HEADERS / BODY. */
+    public record Scope(ScopeKind kind, String name) {
+
+        @Override
+        public String toString() {
+            return name == null ? kind.name().toLowerCase(Locale.ROOT) : kind.name().toLowerCase(Locale.ROOT) + ":" + name;
+        }
+    }
+
+    private final String name;
+    private final String pattern;
+    private final List<String> literals;
+    private final int segments;
+    private final List<Scope> scopes;
+
+    DetectionRule(String name, String pattern, List<String> literals, int segments, List<Scope> scopes) {
+        this.name = name;
+        this.pattern = pattern;
+        this.literals = Collections.unmodifiableList(literals);
+        this.segments = segments;
+        this.scopes = Collections.unmodifiableList(scopes);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    /** The prefix pattern expanded to plain strings. */
+    public List<String> literals() {
+        return literals;
+    }
+
+    /** Maximum number of dot-separated base64url segments after the prefix. */
+    public int segments() {
+        return segments;
+    }
+
+    public List<Scope> scopes() {
+        return scopes;
+    }
+
+    public boolean isScoped() {
+        return !scopes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return name + " = " + pattern + " segments=" + segments + (scopes.isEmpty() ? "" : " in=" + scopes);
+    }
+
+    //------------------------------------------------------------------
+    // Scope checks (only run on candidate matches)
+    //------------------------------------------------------------------
+
+    /**
+     * True if a token starting at {@code start} satisfies any of the rule's scopes.
+     *
+     * @param bodyOffset first body byte, or -1 if the message has no header/body split
+     */
+    public boolean allows(ByteAt data, int start, int bodyOffset) {
+        if (scopes.isEmpty()) {
+            return true;
+        }
+        boolean inHeaders = bodyOffset >= 0 && start < bodyOffset;
+        for (Scope scope : scopes) {
+            if (matches(scope, data, start, inHeaders)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(Scope scope, ByteAt data, int start, boolean inHeaders) {
+        switch (scope.kind()) {
+            case HEADERS:
+                return inHeaders;
+            case BODY:
+                return !inHeaders;
+            case HEADER:
+                return inHeaders && headerName(data, start, scope.name());
+            case COOKIE:
+                return inHeaders
+                        && (headerName(data, start, "Cookie") || headerName(data, start, "Set-Cookie"))
+                        && cookieName(data, start, scope.name());
+            case JSON:
+                return jsonField(data, start, scope.name());
+            default:
+                return false;
+        }
+    }
+
+    /** The header line containing {@code start} is {@code name: ...}. */
+    private static boolean headerName(ByteAt data, int start, String name) {
+        int i = start - 1;
+        while (i >= 0 && data.at(i) != '\n') {
+            i--;
+        }
+        if (i < 0) {
+            return false; // request/status line
+        }
+        int lineStart = i + 1;
+        if (lineStart + name.length() >= start || data.at(lineStart + name.length()) != ':') {
+            return false;
+        }
+        return equalsIgnoreCase(data, lineStart, name);
+    }
+
+    /** {@code name=} directly precedes the token and starts a cookie pair. */
+    private static boolean cookieName(ByteAt data, int start, String name) {
+        int nameStart = start - 1 - name.length();
+        if (nameStart < 1 || data.at(start - 1) != '=' || !equals(data, nameStart, name)) {
+            return false;
+        }
+        int before = data.at(nameStart - 1);
+        return before == ' ' || before == ';' || before == ':';
+    }
+
+    /** {@code "field" : "} directly precedes the token. */
+    private static boolean jsonField(ByteAt data, int start, String field) {
+        int i = start - 1;
+        if (i < 0 || data.at(i) != '"') {
+            return false;
+        }
+        i = skipWhitespaceBackwards(data, i - 1);
+        if (i < 0 || data.at(i) != ':') {
+            return false;
+        }
+        i = skipWhitespaceBackwards(data, i - 1);
+        int nameStart = i - field.length();
+        return nameStart >= 1 && data.at(i) == '"' && data.at(nameStart - 1) == '"' && equals(data, nameStart, field);
+    }
+
+    private static int skipWhitespaceBackwards(ByteAt data, int i) {
+        while (i >= 0) {
+            int b = data.at(i);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                break;
+            }
+            i--;
+        }
+        return i;
+    }
+
+    private static boolean equals(ByteAt data, int from, String s) {
+        for (int k = 0; k < s.length(); k++) {
+            if ((data.at(from + k) & 0xFF) != s.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCase(ByteAt data, int from, String s) {
+        for (int k = 0; k < s.length(); k++) {
+            if (Character.toLowerCase((char) (data.at(from + k) & 0xFF)) != Character.toLowerCase(s.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //------------------------------------------------------------------
+    // Parsing
+    //------------------------------------------------------------------
+
+    /** Parses a whole rule set; invalid rules are reported in {@code errors} and skipped. */
+    public static List<DetectionRule> parseAll(String text, List<String> errors) {
+        List<DetectionRule> rules = new ArrayList<>();
+        if (text == null) {
+            return rules;
+        }
+        int n = 0;
+        for (String line : text.split("[;\\n]")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            n++;
+            try {
+                rules.add(parse(trimmed));
+            } catch (IllegalArgumentException e) {
+                errors.add("rule " + n + " (" + trimmed + "): " + e.getMessage());
+            }
+        }
+        return rules;
+    }
+
+    static DetectionRule parse(String line) {
+        int eq = line.indexOf('=');
+        if (eq <= 0) {
+            throw new IllegalArgumentException("expected name = pattern");
+        }
+        String name = line.substring(0, eq).trim();
+        String[] parts = line.substring(eq + 1).trim().split("\\s+");
+        if (parts.length == 0 || parts[0].isEmpty()) {
+            throw new IllegalArgumentException("missing pattern");
+        }
+        String pattern = parts[0];
+        int segments = 2;
+        List<Scope> scopes = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            String option = parts[i];
+            if (option.startsWith("segments=")) {
+                try {
+                    segments = Integer.parseInt(option.substring("segments=".length()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("segments must be a number");
+                }
+                if (segments < 1 || segments > 16) {
+                    throw new IllegalArgumentException("segments must be between 1 and 16");
+                }
+            } else if (option.startsWith("in=")) {
+                for (String scope : option.substring(3).split(",")) {
+                    scopes.add(parseScope(scope));
+                }
+            } else {
+                throw new IllegalArgumentException("unknown option '" + option + "'");
+            }
+        }
+        List<String> literals = expand(pattern);
+        for (String literal : literals) {
+            if (literal.getBytes(StandardCharsets.UTF_8).length != literal.length()) {
+                throw new IllegalArgumentException("prefix must be ASCII");
+            }
+        }
+        return new DetectionRule(name, pattern, literals, segments, scopes);
+    }
+
+    private static Scope parseScope(String text) {
+        int colon = text.indexOf(':');
+        String kind = (colon < 0 ? text : text.substring(0, colon)).toLowerCase(Locale.ROOT);
+        String name = colon < 0 ? null : text.substring(colon + 1);
+        switch (kind) {
+            case "headers": return new Scope(ScopeKind.HEADERS, null);
+            case "body": return new Scope(ScopeKind.BODY, null);
+            case "header":
+            case "cookie":
+            case "json":
+                if (name == null || name.isEmpty()) {
+                    throw new IllegalArgumentException(kind + " scope needs a name, e.g. " + kind + ":token");
+                }
+                return new Scope(ScopeKind.valueOf(kind.toUpperCase(Locale.ROOT)), name);
+            default:
+                throw new IllegalArgumentException("unknown scope '" + text + "'");
+        }
+    }
+
+    /** Expands {@code [..]} classes and {@code (a|b)} groups into every literal they describe. */
+    static List<String> expand(String pattern) {
+        List<String> out = new ArrayList<>();
+        out.add("");
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            List<String> options = new ArrayList<>();
+            if (c == '\\' && i + 1 < pattern.length()) {
+                options.add(String.valueOf(pattern.charAt(i + 1)));
+                i += 2;
+            } else if (c == '[') {
+                int close = pattern.indexOf(']', i + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("unclosed [");
+                }
+                for (int k = i + 1; k < close; k++) {
+                    char from = pattern.charAt(k);
+                    if (k + 2 < close && pattern.charAt(k + 1) == '-') {
+                        for (char x = from; x <= pattern.charAt(k + 2); x++) {
+                            options.add(String.valueOf(x));
+                        }
+                        k += 2;
+                    } else {
+                        options.add(String.valueOf(from));
+                    }
+                }
+                i = close + 1;
+            } else if (c == '(') {
+                int close = pattern.indexOf(')', i + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("unclosed (");
+                }
+                for (String alternative : pattern.substring(i + 1, close).split("\\|", -1)) {
+                    options.add(alternative);
+                }
+                i = close + 1;
+            } else {
+                options.add(String.valueOf(c));
+                i++;
+            }
+            if (options.isEmpty()) {
+                throw new IllegalArgumentException("empty character class");
+            }
+            List<String> next = new ArrayList<>(out.size() * options.size());
+            for (String prefix : out) {
+                for (String option : options) {
+                    next.add(prefix + option);
+                }
+            }
+            if (next.size() > MAX_EXPANSIONS) {
+                throw new IllegalArgumentException("pattern expands to more than " + MAX_EXPANSIONS + " prefixes");
+            }
+            out = next;
+        }
+        if (out.contains("")) {
+            throw new IllegalArgumentException("pattern can match the empty string");
+        }
+        return out;
+    }
+}
@@ -0,0 +1,74 @@
+package burp.Paseto;
+
+/**
+ * HChaCha20 subkey derivation, the only piece of XChaCha20 the JDK lacks.
+ *
+ * {@code XChaCha20(key, nonce24)} is {@code ChaCha20(HChaCha20(key, nonce24[0:16]),
+ * 0x00000000 || nonce24[16:24])}, so with this the JDK's {@code ChaCha20} and
+ * {@code ChaCha20-Poly1305} ciphers cover v4.local and v2.local.
+ */
+final class HChaCha20 {
+
+    private HChaCha20() {
+    }
+
+    /** Derives a 32-byte subkey from {@code key} and {@code nonce[off, off + 16)}. */
+    static byte[] subkey(byte[] key, byte[] nonce, int off) {
+        int[] x = new int[16];
+        x[0] = 0x61707865;
+        x[1] = 0x3320646e;
+        x[2] = 0x79622d32;
+        x[3] = 0x6b206574;
+        for (int i = 0; i < 8; i++) {
+            x[4 + i] = littleEndian32(key, i << 2);
+        }
+        for (int i = 0; i < 4; i++) {
+            x[12 + i] = littleEndian32(nonce, off + (i << 2));
+        }
+        for (int i = 0; i < 10; i++) {
+            quarterRound(x, 0, 4, 8, 12);
+            quarterRound(x, 1, 5, 9, 13);
+            quarterRound(x, 2, 6, 10, 14);
+            quarterRound(x, 3, 7, 11, 15);
+            quarterRound(x, 0, 5, 10, 15);
+            quarterRound(x, 1, 6, 11, 12);
+            quarterRound(x, 2, 7, 8, 13);
+            quarterRound(x, 3, 4, 9, 14);
+        }
+        byte[] out = new byte[32];
+        for (int i = 0; i < 4; i++) {
+            putLittleEndian32(out, i << 2, x[i]);
+            putLittleEndian32(out, 16 + (i << 2), x[12 + i]);
+        }
+        return out;
+    }
+
+    /** The 12-byte IETF nonce that goes with the subkey: four zero bytes then {@code nonce[off + 16, off + 24)}. */
+    static byte[] ietfNonce(byte[] nonce, int off) {
+        byte[] out = new byte[12];
+        System.arraycopy(nonce, off + 16, out, 4, 8);
+        return out;
+    }
+
+    private static void quarterRound(int[] x, int a, int b, int c, int d) {
+        x[a] += x[b];
+        x[d] = Integer.rotateLeft(x[d] ^ x[a], 16);
+        x[c] += x[d];
+        x[b] = Integer.rotateLeft(x[b] ^ x[c], 12);
+        x[a] += x[b];
+        x[d] = Integer.rotateLeft(x[d] ^ x[a], 8);
+        x[c] += x[d];
+        x[b] = Integer.rotateLeft(x[b] ^ x[c], 7);
+    }
+
+    private static int littleEndian32(byte[] b, int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+    }
+
+    private static void putLittleEndian32(byte[] b, int off, int value) {
+        b[off] = (byte) value;
+        b[off + 1] = (byte) (value >>> 8);
+        b[off + 2] = (byte) (value >>> 16);
+        b[off + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,82 @@
+package burp.Paseto;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * HMAC-SHA384 on top of a plain {@link MessageDigest}.
+ *
+ * {@code javax.crypto.Mac} needs a new {@code SecretKeySpec} (and a key copy) per
+ * key; brute-force loops re-key for every candidate, so this keeps its pads and
+ * digest buffers and writes results into caller-supplied arrays. One instance
+ * per thread.
+ */
+final class HmacSha384 {
+
+    static final int LENGTH = 48;
+    private static final int BLOCK = 128;
+
+    private final MessageDigest digest;
+    private final byte[] innerPad = new byte[BLOCK];
+    private final byte[] outerPad = new byte[BLOCK];
+    private final byte[] innerHash = new byte[LENGTH];
+
+    HmacSha384() {
+        try {
+            digest = MessageDigest.getInstance("SHA-384");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-384 is not available in this JRE", e);
+        }
+    }
+
+    /** Starts a MAC under {@code key[off, off + len)}. */
+    HmacSha384 init(byte[] key, int off, int len) {
+        digest.reset();
+        if (len > BLOCK) {
+            digest.update(key, off, len);
+            digestInto(innerHash);
+            key = innerHash;
+            off = 0;
+            len = LENGTH;
+        }
+        for (int i = 0; i < BLOCK; i++) {
+            byte k = i < len ? key[off + i] : 0;
+            innerPad[i] = (byte) (k ^ 0x36);
+            outerPad[i] = (byte) (k ^ 0x5c);
+        }
+        digest.update(innerPad);
+        return this;
+    }
+
+    HmacSha384 update(byte[] data, int off, int len) {
+        digest.update(data, off, len);
+        return this;
+    }
+
+    HmacSha384 update(byte[] data) {
+        digest.update(data);
+        return this;
+    }
+
+    HmacSha384 update(byte b) {
+        digest.update(b);
+        return this;
+    }
+
+    /** Writes the 48-byte MAC to {@code out[0, 48)}. */
+    void doFinal(byte[] out) {
+        digestInto(innerHash);
+        digest.update(outerPad);
+        digest.update(innerHash);
+        digestInto(out);
+    }
+
+    private void digestInto(byte[] out) {
+        try {
+            digest.digest(out, 0, LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package burp.Paseto;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Registered PASETO claims (iss, sub, aud, exp, nbf, iat, jti) pulled out of the
+ * decoded JSON message, plus the full claim map. Time claims are parsed from their
+ * ISO-8601 form; {@code null} when absent or malformed.
+ */
+public final class PasetoClaims {
+
+    private final Map<String, Object> all;
+    private final Instant expiration;
+    private final Instant notBefore;
+    private final Instant issuedAt;
+
+    PasetoClaims(Map<String, Object> all) {
+        this.all = Collections.unmodifiableMap(all);
+        this.expiration = time("exp");
+        this.notBefore = time("nbf");
+        this.issuedAt = time("iat");
+    }
+
+    public Map<String, Object> all() {
+        return all;
+    }
+
+    public String issuer() {
+        return string("iss");
+    }
+
+    public String subject() {
+        return string("sub");
+    }
+
+    public String audience() {
+        return string("aud");
+    }
+
+    public String tokenId() {
+        return string("jti");
+    }
+
+    public Instant expiration() {
+        return expiration;
+    }
+
+    public Instant notBefore() {
+        return notBefore;
+    }
+
+    public Instant issuedAt() {
+        return issuedAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiration != null && now.isAfter(expiration);
+    }
+
+    /** True if a time claim is present but not a valid ISO-8601 timestamp. */
+    boolean hasMalformedTime() {
+        return (all.containsKey("exp") && expiration == null)
+                || (all.containsKey("nbf") && notBefore == null)
+                || (all.containsKey("iat") && issuedAt == null);
+    }
+
+    private String string(String name) {
+        Object value = all.get(name);
+        return value instanceof String s ? s : null;
+    }
+
+    private Instant time(String name) {
+        String value = string(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MiniJson.write(all);
+    }
+}
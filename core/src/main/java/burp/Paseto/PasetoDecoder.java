@@ -0,0 +1,137 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural decoder for PASETO v1–v4 tokens.
+ *
+ * Splits {@code public} payloads into message and signature and {@code local}
+ * payloads into nonce / ciphertext / tag using the sizes from {@link PasetoVersion},
+ * decodes the footer (including a JSON {@code kid}), parses the claims of public
+ * tokens into {@link PasetoClaims} and records every problem it finds instead of
+ * throwing. Results are memoised in a bounded cache keyed by token, so repeated
+ * tokens cost one hash lookup.
+ */
+public final class PasetoDecoder {
+
+    public static final int DEFAULT_CACHE_ENTRIES = 4096;
+
+    private static final BoundedCache<String, DecodedPaseto> CACHE = new BoundedCache<>(DEFAULT_CACHE_ENTRIES);
+    private static final Base64.Decoder URL_DECODER = Base64.getUrlDecoder();
+
+    private PasetoDecoder() {
+    }
+
+    /** Cached decode; never returns null. */
+    public static DecodedPaseto decode(String token) {
+        return CACHE.computeIfAbsent(token, PasetoDecoder::decodeUncached);
+    }
+
+    static BoundedCache<String, DecodedPaseto> cache() {
+        return CACHE;
+    }
+
+    static DecodedPaseto decodeUncached(String token) {
+        List<String> problems = new ArrayList<>();
+        String[] parts = token.split("\\.", -1);
+        if (parts.length < 3 || parts.length > 4) {
+            problems.add("expected 3 or 4 dot-separated parts, found " + parts.length);
+        }
+        String header = parts.length > 0 ? parts[0] : "";
+        String purpose = parts.length > 1 ? parts[1] : "";
+        String payloadText = parts.length > 2 ? parts[2] : "";
+        String footerText = parts.length > 3 ? parts[3] : "";
+
+        PasetoVersion version = PasetoVersion.of(header);
+        if (version == null) {
+            problems.add("unknown version '" + header + "'");
+        }
+        boolean isPublic = "public".equals(purpose);
+        boolean isLocal = "local".equals(purpose);
+        if (!isPublic && !isLocal) {
+            problems.add("unknown purpose '" + purpose + "'");
+        }
+
+        byte[] payload = base64Url(payloadText);
+        if (payload == null) {
+            problems.add("payload is not unpadded base64url");
+        }
+
+        byte[] message = null, signature = null, nonce = null, ciphertext = null, tag = null;
+        PasetoClaims claims = null;
+        if (payload != null && version != null && isPublic) {
+            int sigLength = version.signatureLength();
+            if (payload.length < sigLength) {
+                problems.add("payload shorter than the " + sigLength + "-byte " + header + " signature");
+            } else {
+                message = Arrays.copyOf(payload, payload.length - sigLength);
+                signature = Arrays.copyOfRange(payload, payload.length - sigLength, payload.length);
+                claims = parseClaims(message, problems);
+            }
+        } else if (payload != null && version != null && isLocal) {
+            int overhead = version.nonceLength() + version.tagLength();
+            if (payload.length < overhead) {
+                problems.add("payload shorter than " + header + " nonce + tag (" + overhead + " bytes)");
+            } else {
+                int nonceEnd = version.nonceLength();
+                int tagStart = payload.length - version.tagLength();
+                nonce = Arrays.copyOf(payload, nonceEnd);
+                ciphertext = Arrays.copyOfRange(payload, nonceEnd, tagStart);
+                tag = Arrays.copyOfRange(payload, tagStart, payload.length);
+            }
+        }
+
+        byte[] footer = footerText.isEmpty() ? new byte[0] : base64Url(footerText);
+        String kid = null;
+        if (footer == null) {
+            problems.add("footer is not unpadded base64url");
+        } else if (footer.length > 0 && footer[0] == '{') {
+            try {
+                Object value = MiniJson.parseObject(new String(footer, StandardCharsets.UTF_8)).get("kid");
+                kid = value instanceof String s ? s : null;
+            } catch (IllegalArgumentException e) {
+                problems.add("footer looks like JSON but does not parse: " + e.getMessage());
+            }
+        }
+
+        return new DecodedPaseto(token, header, version, purpose, payload, message, signature, nonce, ciphertext,
+                tag, footerText, footer, kid, claims, problems);
+    }
+
+    /** Parses a decrypted or signed message as claims; adds to {@code problems} on failure. */
+    static PasetoClaims parseClaims(byte[] message, List<String> problems) {
+        try {
+            Map<String, Object> map = MiniJson.parseObject(new String(message, StandardCharsets.UTF_8));
+            PasetoClaims claims = new PasetoClaims(map);
+            if (claims.hasMalformedTime()) {
+                problems.add("exp/nbf/iat is not an ISO-8601 timestamp");
+            }
+            return claims;
+        } catch (IllegalArgumentException e) {
+            problems.add("message is not a JSON object: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Strict unpadded base64url as required by the spec; null if invalid. */
+    static byte[] base64Url(String text) {
+        if (text.indexOf('=') >= 0) {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!PasetoScanner.isBase64Url(text.charAt(i))) {
+                return null;
+            }
+        }
+        try {
+            return URL_DECODER.decode(text);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package burp.Paseto;
+
+/** Simple record-like holder for the dot-separated token parts. */
+public final class PasetoInfo {
+    public final String version;
+    public final String purpose;
+    public final String payload;
+    public final String footer;
+
+    public PasetoInfo(String version, String purpose, String payload, String footer) {
+        this.version = version;
+        this.purpose = purpose;
+        this.payload = payload;
+        this.footer  = footer;
+    }
+
+    /** Splits a token into its parts; missing parts are empty strings. */
+    public static PasetoInfo parse(String token) {
+        String[] parts = token.split("\\.");
+        String version  = parts.length > 0 ? parts[0] : "";
+        String purpose  = parts.length > 1 ? parts[1] : "";
+        String payload  = parts.length > 2 ? parts[2] : "";
+        String footer   = parts.length > 3 ? parts[3] : "";
+        return new PasetoInfo(version, purpose, payload, footer);
+    }
+}
@@ -0,0 +1,193 @@
+package burp.Paseto;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Immutable set of pre-parsed verification and decryption keys, built from the
+ * "verificationKeys" setting.
+ *
+ * The setting holds entries separated by whitespace, {@code ,} or {@code ;}, each
+ * {@code <version>.<purpose>[#kid]:<key>} where the key is hex or base64url:
+ * <ul>
+ *   <li>{@code v2.public} / {@code v4.public}: 32-byte raw Ed25519 key or X.509 DER</li>
+ *   <li>{@code v3.public}: 49-byte compressed or 97-byte uncompressed P-384 point, or X.509 DER</li>
+ *   <li>{@code v2.local} / {@code v4.local}: 32-byte symmetric key</li>
+ * </ul>
+ * Bad entries are reported in {@link #errors()} and skipped.
+ */
+final class PasetoKeyRing {
+
+    static final PasetoKeyRing EMPTY = parse("");
+
+    /** Public key plus, for v3, the compressed point that goes into the signed PAE. */
+    record VerificationKey(String label, String kid, PasetoVersion version, PublicKey key, byte[] compressed) {
+    }
+
+    record SymmetricKey(String label, String kid, PasetoVersion version, byte[] key) {
+    }
+
+    private static final byte[] ED25519_X509_PREFIX = HexFormat.of().parseHex("302a300506032b6570032100");
+
+    private final String spec;
+    private final List<VerificationKey> verificationKeys;
+    private final List<SymmetricKey> symmetricKeys;
+    private final List<String> errors;
+
+    private PasetoKeyRing(String spec, List<VerificationKey> verificationKeys, List<SymmetricKey> symmetricKeys,
+                          List<String> errors) {
+        this.spec = spec;
+        this.verificationKeys = Collections.unmodifiableList(verificationKeys);
+        this.symmetricKeys = Collections.unmodifiableList(symmetricKeys);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    static PasetoKeyRing parse(String spec) {
+        String text = spec == null ? "" : spec.trim();
+        List<VerificationKey> verificationKeys = new ArrayList<>();
+        List<SymmetricKey> symmetricKeys = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int n = 0;
+        for (String entry : text.split("[\\s,;]+")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            n++;
+            int colon = entry.indexOf(':');
+            if (colon < 0) {
+                errors.add("entry " + n + ": expected <version>.<purpose>[#kid]:<key>");
+                continue;
+            }
+            String header = entry.substring(0, colon);
+            String kid = null;
+            int hash = header.indexOf('#');
+            if (hash >= 0) {
+                kid = header.substring(hash + 1);
+                header = header.substring(0, hash);
+            }
+            String label = header + (kid != null ? "#" + kid : " #" + n);
+            String[] parts = header.split("\\.");
+            PasetoVersion version = parts.length == 2 ? PasetoVersion.of(parts[0]) : null;
+            byte[] material = bytes(entry.substring(colon + 1));
+            if (version == null || material == null) {
+                errors.add(label + ": unknown header or key is neither hex nor base64url");
+                continue;
+            }
+            try {
+                switch (header) {
+                    case "v2.public", "v4.public" ->
+                            verificationKeys.add(new VerificationKey(label, kid, version, ed25519(material), null));
+                    case "v3.public" -> {
+                        ECPublicKey key = p384(material);
+                        verificationKeys.add(new VerificationKey(label, kid, version, key, compress(key)));
+                    }
+                    case "v2.local", "v4.local" -> {
+                        if (material.length != 32) {
+                            throw new IllegalArgumentException("expected a 32-byte key, got " + material.length);
+                        }
+                        symmetricKeys.add(new SymmetricKey(label, kid, version, material));
+                    }
+                    default -> throw new IllegalArgumentException("unsupported key type");
+                }
+            } catch (Exception e) {
+                errors.add(label + ": " + e.getMessage());
+            }
+        }
+        return new PasetoKeyRing(text, verificationKeys, symmetricKeys, errors);
+    }
+
+    String spec() {
+        return spec;
+    }
+
+    boolean isEmpty() {
+        return verificationKeys.isEmpty() && symmetricKeys.isEmpty();
+    }
+
+    List<VerificationKey> verificationKeys() {
+        return verificationKeys;
+    }
+
+    List<SymmetricKey> symmetricKeys() {
+        return symmetricKeys;
+    }
+
+    List<String> errors() {
+        return errors;
+    }
+
+    //------------------------------------------------------------------
+    // Key parsing
+    //------------------------------------------------------------------
+
+    private static byte[] bytes(String text) {
+        if (text.length() % 2 == 0 && text.matches("[0-9a-fA-F]+")) {
+            return HexFormat.of().parseHex(text);
+        }
+        return PasetoDecoder.base64Url(text);
+    }
+
+    private static PublicKey ed25519(byte[] material) throws Exception {
+        byte[] der = material;
+        if (material.length == 32) {
+            der = new byte[ED25519_X509_PREFIX.length + 32];
+            System.arraycopy(ED25519_X509_PREFIX, 0, der, 0, ED25519_X509_PREFIX.length);
+            System.arraycopy(material, 0, der, ED25519_X509_PREFIX.length, 32);
+        }
+        return KeyFactory.getInstance("Ed25519").generatePublic(new X509EncodedKeySpec(der));
+    }
+
+    private static ECPublicKey p384(byte[] material) throws Exception {
+        KeyFactory factory = KeyFactory.getInstance("EC");
+        if (material.length != 49 && material.length != 97) {
+            return (ECPublicKey) factory.generatePublic(new X509EncodedKeySpec(material));
+        }
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp384r1"));
+        ECParameterSpec curve = parameters.getParameterSpec(ECParameterSpec.class);
+        BigInteger x = new BigInteger(1, Arrays.copyOfRange(material, 1, 49));
+        BigInteger y;
+        if (material[0] == 0x04 && material.length == 97) {
+            y = new BigInteger(1, Arrays.copyOfRange(material, 49, 97));
+        } else if ((material[0] == 0x02 || material[0] == 0x03) && material.length == 49) {
+            // y^2 = x^3 + ax + b; P-384's p is 3 mod 4, so sqrt(v) = v^((p+1)/4)
+            BigInteger p = ((ECFieldFp) curve.getCurve().getField()).getP();
+            BigInteger rhs = x.pow(3).add(curve.getCurve().getA().multiply(x)).add(curve.getCurve().getB()).mod(p);
+            y = rhs.modPow(p.add(BigInteger.ONE).shiftRight(2), p);
+            if (!y.multiply(y).mod(p).equals(rhs)) {
+                throw new IllegalArgumentException("point is not on P-384");
+            }
+            if (y.testBit(0) != (material[0] == 0x03)) {
+                y = p.subtract(y);
+            }
+        } else {
+            throw new IllegalArgumentException("unrecognised P-384 point encoding");
+        }
+        return (ECPublicKey) factory.generatePublic(new ECPublicKeySpec(new ECPoint(x, y), curve));
+    }
+
+    /** SEC1 compressed encoding, which v3.public binds into the signature. */
+    private static byte[] compress(ECPublicKey key) {
+        byte[] out = new byte[49];
+        ECPoint w = key.getW();
+        out[0] = (byte) (w.getAffineY().testBit(0) ? 0x03 : 0x02);
+        byte[] x = w.getAffineX().toByteArray();
+        int copy = Math.min(x.length, 48);
+        System.arraycopy(x, x.length - copy, out, 49 - copy, copy);
+        return out;
+    }
+}
@@ -0,0 +1,341 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Generates variants of a captured token for authorisation testing: version
+ * downgrade, local/public swap, footer removal/tampering, truncated signatures,
+ * claim edits and base64 encoding quirks.
+ *
+ * Claim edits come from a {@link ClaimEdits} set: every single edit first, then
+ * combinations of edits on different claims up to the caller's limit, so one token
+ * can yield thousands of variants. Variants are de-duplicated by token text (the
+ * original is never included), so the same bytes are only ever sent once per endpoint.
+ */
+public final class PasetoMutator {
+
+    public enum Category {
+        VERSION,
+        PURPOSE,
+        FOOTER,
+        SIGNATURE,
+        CLAIMS,
+        ENCODING
+    }
+
+    public record Mutation(Category category, String description, String token) {
+    }
+
+    /**
+     * Claim edits to try on public tokens: values to set per claim (in order) and
+     * claims to remove. Values are JSON values as returned by {@link MiniJson}
+     * (String, Long, Double, Boolean, null, List, Map).
+     */
+    public record ClaimEdits(Map<String, List<Object>> values, List<String> removals) {
+
+        /** The "mutationClaims" setting's default. */
+        public static final String DEFAULT_SPEC = "exp=" + FAR_FUTURE + "; sub=admin,1; role=admin; -exp";
+
+        public static final ClaimEdits DEFAULT = parse(DEFAULT_SPEC, new ArrayList<>());
+
+        public ClaimEdits {
+            values = copyValues(values);
+            removals = List.copyOf(removals);
+        }
+
+        /**
+         * Parses entries like {@code sub=admin,1; role=admin; -exp}, separated by ';'
+         * or newlines. A value that is a JSON literal (number, true/false/null or a
+         * quoted string) is used as such, anything else as a string. Invalid entries
+         * are reported in {@code errors} and skipped.
+         */
+        public static ClaimEdits parse(String text, List<String> errors) {
+            Map<String, List<Object>> values = new LinkedHashMap<>();
+            Set<String> removals = new LinkedHashSet<>();
+            if (text == null) {
+                return new ClaimEdits(values, List.of());
+            }
+            for (String line : text.split("[;\\n]")) {
+                String entry = line.trim();
+                if (entry.isEmpty() || entry.startsWith("#")) {
+                    continue;
+                }
+                if (entry.startsWith("-")) {
+                    String name = entry.substring(1).trim();
+                    if (name.isEmpty()) {
+                        errors.add("claim edit '" + entry + "': missing claim name");
+                    } else {
+                        removals.add(name);
+                    }
+                    continue;
+                }
+                int eq = entry.indexOf('=');
+                if (eq <= 0) {
+                    errors.add("claim edit '" + entry + "': expected claim=value[,value...] or -claim");
+                    continue;
+                }
+                List<Object> list = values.computeIfAbsent(entry.substring(0, eq).trim(), k -> new ArrayList<>());
+                for (String value : entry.substring(eq + 1).split(",")) {
+                    Object parsed = literal(value.trim());
+                    if (!list.contains(parsed)) {
+                        list.add(parsed);
+                    }
+                }
+            }
+            return new ClaimEdits(values, new ArrayList<>(removals));
+        }
+
+        private static Object literal(String text) {
+            try {
+                return MiniJson.parseObject("{\"v\":" + text + "}").get("v");
+            } catch (IllegalArgumentException e) {
+                return text;
+            }
+        }
+
+        private static Map<String, List<Object>> copyValues(Map<String, List<Object>> values) {
+            Map<String, List<Object>> copy = new LinkedHashMap<>();
+            // List.copyOf rejects null, which is a valid claim value
+            values.forEach((name, list) -> copy.put(name, Collections.unmodifiableList(new ArrayList<>(list))));
+            return Collections.unmodifiableMap(copy);
+        }
+    }
+
+    /** Default cap on the number of variants per token. */
+    public static final int DEFAULT_LIMIT = 5000;
+
+    private static final Base64.Decoder URL_DECODER = Base64.getUrlDecoder();
+    private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final String FAR_FUTURE = "2099-01-01T00:00:00+00:00";
+    /** Marks "remove this claim" among a claim's options in {@link #claimVariants}. */
+    private static final Object REMOVE = new Object();
+
+    private PasetoMutator() {
+    }
+
+    public static List<Mutation> mutate(String token) {
+        return mutate(token, ClaimEdits.DEFAULT, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Variants of {@code token}, at most {@code limit} of them. Structural variants
+     * come first, then single claim edits, then combinations of claim edits, so a
+     * low limit drops combinations first.
+     */
+    public static List<Mutation> mutate(String token, ClaimEdits claimEdits, int limit) {
+        PasetoInfo info = PasetoInfo.parse(token);
+        Map<String, Mutation> variants = new LinkedHashMap<>();
+        Sink sink = (category, description, variant) -> {
+            if (variants.size() < limit && !variant.equals(token)) {
+                variants.putIfAbsent(variant, new Mutation(category, description, variant));
+            }
+        };
+
+        // Version downgrade / cross-version confusion
+        for (PasetoVersion v : PasetoVersion.values()) {
+            if (!v.prefix().equals(info.version)) {
+                sink.add(Category.VERSION, info.version + " -> " + v.prefix(), join(v.prefix(), info.purpose, info.payload, info.footer));
+            }
+        }
+
+        // local <-> public
+        String swapped = "local".equals(info.purpose) ? "public" : "local";
+        sink.add(Category.PURPOSE, info.purpose + " -> " + swapped, join(info.version, swapped, info.payload, info.footer));
+
+        // Footer
+        if (!info.footer.isEmpty()) {
+            sink.add(Category.FOOTER, "footer removed", join(info.version, info.purpose, info.payload, ""));
+            sink.add(Category.FOOTER, "footer tampered", join(info.version, info.purpose, info.payload, flipLastChar(info.footer)));
+            sink.add(Category.FOOTER, "footer kid path traversal", join(info.version, info.purpose, info.payload,
+                    encode("{\"kid\":\"../../../../dev/null\"}")));
+        } else {
+            sink.add(Category.FOOTER, "empty JSON footer added", join(info.version, info.purpose, info.payload, encode("{}")));
+        }
+
+        DecodedPaseto decoded = PasetoDecoder.decode(token);
+        byte[] payload = decode(info.payload);
+        Map<String, Object> claims = null;
+        if (decoded.isPublic() && decoded.message() != null) {
+            byte[] message = decoded.message();
+            byte[] signature = decoded.signature();
+            int messageLength = message.length;
+
+            // Signature truncation / corruption
+            sink.add(Category.SIGNATURE, "signature removed", join(info.version, info.purpose, URL_ENCODER.encodeToString(message), info.footer));
+            sink.add(Category.SIGNATURE, "signature truncated by 1 byte",
+                    join(info.version, info.purpose, URL_ENCODER.encodeToString(Arrays.copyOf(payload, payload.length - 1)), info.footer));
+            sink.add(Category.SIGNATURE, "signature halved",
+                    join(info.version, info.purpose, URL_ENCODER.encodeToString(Arrays.copyOf(payload, messageLength + signature.length / 2)), info.footer));
+            sink.add(Category.SIGNATURE, "signature zeroed",
+                    join(info.version, info.purpose, URL_ENCODER.encodeToString(concat(message, new byte[signature.length])), info.footer));
+            try {
+                claims = MiniJson.parseObject(decoded.messageText());
+            } catch (IllegalArgumentException e) {
+                // Not a JSON message: no claim edits
+            }
+        }
+
+        // Encoding quirks
+        if (payload != null) {
+            String padded = Base64.getUrlEncoder().encodeToString(payload);
+            sink.add(Category.ENCODING, "payload with base64 padding", join(info.version, info.purpose, padded, info.footer));
+            sink.add(Category.ENCODING, "payload in standard base64 alphabet",
+                    join(info.version, info.purpose, Base64.getEncoder().encodeToString(payload), info.footer));
+        }
+        sink.add(Category.ENCODING, "trailing dot", token + ".");
+        sink.add(Category.ENCODING, "upper-case header", info.version.toUpperCase(Locale.ROOT) + token.substring(info.version.length()));
+        sink.add(Category.ENCODING, "empty payload", join(info.version, info.purpose, "", info.footer));
+
+        // Claim edits on the (plaintext) message, original signature kept
+        if (claims != null) {
+            byte[] signature = decoded.signature();
+            claimVariants(claims, claimEdits, limit, (description, edited) -> {
+                byte[] newPayload = concat(MiniJson.write(edited).getBytes(StandardCharsets.UTF_8), signature);
+                sink.add(Category.CLAIMS, description,
+                        join(info.version, info.purpose, URL_ENCODER.encodeToString(newPayload), info.footer));
+                return variants.size() < limit;
+            });
+        }
+
+        return new ArrayList<>(variants.values());
+    }
+
+    /**
+     * Feeds {@code out} every edited copy of {@code claims}: single edits first, then
+     * combinations of edits on different claims. Edits that would not change the
+     * claims are dropped up front, so every combination is a distinct claim set.
+     * Stops once {@code out} returns false or {@code limit} sets were produced.
+     */
+    static void claimVariants(Map<String, Object> claims, ClaimEdits edits, int limit, ClaimSink out) {
+        List<String> names = new ArrayList<>();
+        List<List<Object>> options = new ArrayList<>();
+        Set<String> all = new LinkedHashSet<>(edits.values().keySet());
+        all.addAll(edits.removals());
+        for (String name : all) {
+            List<Object> choices = new ArrayList<>();
+            for (Object value : edits.values().getOrDefault(name, List.of())) {
+                if (!claims.containsKey(name) || !Objects.equals(claims.get(name), value)) {
+                    choices.add(value);
+                }
+            }
+            if (edits.removals().contains(name) && claims.containsKey(name)) {
+                choices.add(REMOVE);
+            }
+            if (!choices.isEmpty()) {
+                names.add(name);
+                options.add(choices);
+            }
+        }
+
+        int produced = 0;
+        for (int i = 0; i < names.size(); i++) {
+            for (Object choice : options.get(i)) {
+                if (produced++ >= limit || !out.add(describe(names.get(i), choice), apply(claims, names.get(i), choice))) {
+                    return;
+                }
+            }
+        }
+
+        // Combinations: a mixed-radix counter where digit 0 keeps the claim as it is
+        int[] digits = new int[names.size()];
+        while (increment(digits, options)) {
+            int edited = 0;
+            for (int digit : digits) {
+                edited += digit == 0 ? 0 : 1;
+            }
+            if (edited < 2) {
+                continue;
+            }
+            Map<String, Object> copy = new LinkedHashMap<>(claims);
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < digits.length; i++) {
+                if (digits[i] != 0) {
+                    Object choice = options.get(i).get(digits[i] - 1);
+                    set(copy, names.get(i), choice);
+                    description.append(description.length() == 0 ? "" : ", ").append(describe(names.get(i), choice));
+                }
+            }
+            if (produced++ >= limit || !out.add(description.toString(), copy)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean increment(int[] digits, List<List<Object>> options) {
+        for (int i = 0; i < digits.length; i++) {
+            if (++digits[i] <= options.get(i).size()) {
+                return true;
+            }
+            digits[i] = 0;
+        }
+        return false;
+    }
+
+    private static Map<String, Object> apply(Map<String, Object> claims, String name, Object choice) {
+        Map<String, Object> copy = new LinkedHashMap<>(claims);
+        set(copy, name, choice);
+        return copy;
+    }
+
+    private static void set(Map<String, Object> claims, String name, Object choice) {
+        if (choice == REMOVE) {
+            claims.remove(name);
+        } else {
+            claims.put(name, choice);
+        }
+    }
+
+    private static String describe(String name, Object choice) {
+        if (choice == REMOVE) {
+            return name + " removed";
+        }
+        return name + " = " + (choice instanceof String s ? s : MiniJson.write(choice));
+    }
+
+    private static String join(String version, String purpose, String payload, String footer) {
+        return version + "." + purpose + "." + payload + (footer.isEmpty() ? "" : "." + footer);
+    }
+
+    private static String flipLastChar(String s) {
+        char last = s.charAt(s.length() - 1);
+        return s.substring(0, s.length() - 1) + (last == 'A' ? 'B' : 'A');
+    }
+
+    private static String encode(String text) {
+        return URL_ENCODER.encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] decode(String b64) {
+        try {
+            return URL_DECODER.decode(b64);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private interface Sink {
+        void add(Category category, String description, String token);
+    }
+
+    /** Receives one edited claim set; returns false to stop. */
+    interface ClaimSink {
+        boolean add(String description, Map<String, Object> claims);
+    }
+}
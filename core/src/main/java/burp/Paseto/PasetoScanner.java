@@ -0,0 +1,80 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Token-span helpers and the built-in PASETO detector.
+ *
+ * The static {@code find*} methods match {@link DetectionRule#DEFAULT_RULES}
+ * through {@link RuleMatcher#DEFAULT} (the language of the old
+ * {@code PASETO_PATTERN} regex, {@code v[0-9].(local|public).<b64url>[.<b64url>]});
+ * the Burp extension and the offline scanner use the configured rule set instead.
+ *
+ * Single-match lookups return a packed span ({@code start << 32 | end}, end
+ * exclusive) or {@link #NO_MATCH}; use {@link #start(long)} / {@link #end(long)}
+ * to unpack it.
+ */
+public final class PasetoScanner {
+
+    public static final long NO_MATCH = -1L;
+
+    private PasetoScanner() {
+    }
+
+    //------------------------------------------------------------------
+    // Public API
+    //------------------------------------------------------------------
+
+    /** Finds the first token in {@code data[from, to)}. */
+    public static long find(ByteAt data, int from, int to) {
+        return RuleMatcher.DEFAULT.find(data, from, to, -1);
+    }
+
+    /** Same as {@link #find(ByteAt, int, int)} for a plain array. */
+    public static long find(byte[] data, int from, int to) {
+        return RuleMatcher.DEFAULT.find(data, from, to, -1);
+    }
+
+    /** All non-overlapping tokens in {@code data[from, to)}; {@link TokenSpans#EMPTY} if there are none. */
+    public static TokenSpans findAll(ByteAt data, int from, int to) {
+        return RuleMatcher.DEFAULT.findAll(data, from, to, -1);
+    }
+
+    /** Same as {@link #findAll(ByteAt, int, int)} for a plain array. */
+    public static TokenSpans findAll(byte[] data, int from, int to) {
+        return RuleMatcher.DEFAULT.findAll(data, from, to, -1);
+    }
+
+    public static int start(long span) {
+        return (int) (span >>> 32);
+    }
+
+    public static int end(long span) {
+        return (int) span;
+    }
+
+    /** Copies the token text out of {@code data}; tokens are pure ASCII. */
+    public static String tokenAt(ByteAt data, long span) {
+        return tokenAt(data, start(span), end(span));
+    }
+
+    public static String tokenAt(ByteAt data, int start, int end) {
+        byte[] out = new byte[end - start];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) data.at(start + i);
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    public static String tokenAt(byte[] data, int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    public static long span(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    public static boolean isBase64Url(int b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '-' || b == '_';
+    }
+}
@@ -0,0 +1,346 @@
+package burp.Paseto;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.ChaCha20ParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Verifies public tokens and decrypts local tokens with the keys from the
+ * "verificationKeys" setting.
+ *
+ * Supported: v2/v4.public (Ed25519), v3.public (ECDSA P-384 / SHA-384),
+ * v2.local (XChaCha20-Poly1305) and v4.local (XChaCha20 + BLAKE2b-MAC). Keys are
+ * parsed once per setting change, {@link Signature} / {@link Cipher} / BLAKE2b
+ * instances are kept per thread, and the cryptographic outcome is cached per
+ * token; only the exp/nbf check is redone on every call, since it depends on the
+ * clock. Never throws.
+ */
+public final class PasetoVerifier {
+
+    public static final int DEFAULT_CACHE_ENTRIES = 4096;
+
+    public enum Status {
+        VALID("valid"),
+        EXPIRED("expired"),
+        NOT_YET_VALID("not yet valid"),
+        INVALID("invalid"),
+        NO_KEY("no key"),
+        UNSUPPORTED("unsupported"),
+        MALFORMED("malformed");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /** Outcome for one token; {@code plaintext} and {@code claims} are set for decrypted local tokens. */
+    public record Verification(Status status, String keyLabel, byte[] plaintext, PasetoClaims claims, String detail) {
+
+        Verification withStatus(Status newStatus) {
+            return newStatus == status ? this : new Verification(newStatus, keyLabel, plaintext, claims, detail);
+        }
+
+        public String describe() {
+            StringBuilder sb = new StringBuilder("Verified : ").append(status.label());
+            if (keyLabel != null) {
+                sb.append(" (key ").append(keyLabel).append(')');
+            }
+            if (detail != null) {
+                sb.append(" - ").append(detail);
+            }
+            if (plaintext != null) {
+                sb.append("\nPlaintext: ").append(new String(plaintext, StandardCharsets.UTF_8));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final byte[] V4_ENCRYPTION_KEY_INFO = "paseto-encryption-key".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] V4_AUTH_KEY_INFO = "paseto-auth-key-for-aead".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final ThreadLocal<Signature> ED25519 = ThreadLocal.withInitial(() -> signature("Ed25519"));
+    private static final ThreadLocal<Signature> ECDSA_P384 =
+            ThreadLocal.withInitial(() -> signature("SHA384withECDSAinP1363Format"));
+    private static final ThreadLocal<Cipher> CHACHA20 = ThreadLocal.withInitial(() -> cipher("ChaCha20"));
+    private static final ThreadLocal<Cipher> CHACHA20_POLY1305 =
+            ThreadLocal.withInitial(() -> cipher("ChaCha20-Poly1305"));
+    private static final ThreadLocal<Blake2b> BLAKE2B = ThreadLocal.withInitial(Blake2b::new);
+
+    private final Supplier<String> keySpec;
+    private final Consumer<String> log;
+    private final BoundedCache<String, Verification> cache = new BoundedCache<>(DEFAULT_CACHE_ENTRIES);
+    private volatile PasetoKeyRing keys = PasetoKeyRing.EMPTY;
+
+    /**
+     * @param keySpec current value of the key setting; re-read on every call but
+     *                only re-parsed when it changes
+     * @param log     receives key parsing errors
+     */
+    public PasetoVerifier(Supplier<String> keySpec, Consumer<String> log) {
+        this.keySpec = keySpec;
+        this.log = log;
+    }
+
+    /** True once at least one usable key is configured. */
+    public boolean hasKeys() {
+        return !currentKeys().isEmpty();
+    }
+
+    public Verification verify(String token) {
+        return verify(token, Instant.now());
+    }
+
+    public Verification verify(String token, Instant now) {
+        PasetoKeyRing ring = currentKeys();
+        if (ring.isEmpty()) {
+            return new Verification(Status.NO_KEY, null, null, null, null);
+        }
+        return atTime(cache.computeIfAbsent(token, t -> check(PasetoDecoder.decode(t), ring)), now);
+    }
+
+    /**
+     * The verification of {@code token} if {@link #verify} already computed it, else null.
+     * Never runs any cryptography, so proxy threads can label tokens with it.
+     */
+    public Verification cached(String token) {
+        if (currentKeys().isEmpty()) {
+            return null;
+        }
+        Verification result = cache.get(token);
+        return result == null ? null : atTime(result, Instant.now());
+    }
+
+    /** Applies the time-dependent claims to a cached cryptographic outcome. */
+    private static Verification atTime(Verification result, Instant now) {
+        if (result.status() != Status.VALID || result.claims() == null) {
+            return result;
+        }
+        PasetoClaims claims = result.claims();
+        if (claims.isExpired(now)) {
+            return result.withStatus(Status.EXPIRED);
+        }
+        if (claims.notBefore() != null && now.isBefore(claims.notBefore())) {
+            return result.withStatus(Status.NOT_YET_VALID);
+        }
+        return result;
+    }
+
+    long cacheHits() {
+        return cache.hits();
+    }
+
+    long cacheMisses() {
+        return cache.misses();
+    }
+
+    private PasetoKeyRing currentKeys() {
+        PasetoKeyRing ring = keys;
+        String spec = keySpec.get();
+        String normalised = spec == null ? "" : spec.trim();
+        if (!normalised.equals(ring.spec())) {
+            synchronized (this) {
+                ring = keys;
+                if (!normalised.equals(ring.spec())) {
+                    ring = PasetoKeyRing.parse(normalised);
+                    for (String error : ring.errors()) {
+                        log.accept("[!] PASETO key ignored: " + error);
+                    }
+                    cache.clear();
+                    keys = ring;
+                }
+            }
+        }
+        return ring;
+    }
+
+    //------------------------------------------------------------------
+    // Cryptography
+    //------------------------------------------------------------------
+
+    static Verification check(DecodedPaseto decoded, PasetoKeyRing ring) {
+        if (decoded.isMalformed() || decoded.version() == null) {
+            return new Verification(Status.MALFORMED, null, null, null, String.join("; ", decoded.problems()));
+        }
+        String header = decoded.header() + "." + decoded.purpose() + ".";
+        byte[] h = header.getBytes(StandardCharsets.US_ASCII);
+        boolean triedKey = false;
+        try {
+            if (decoded.isPublic()) {
+                for (PasetoKeyRing.VerificationKey key : ring.verificationKeys()) {
+                    if (key.version() != decoded.version() || !kidMatches(key.kid(), decoded.kid())) {
+                        continue;
+                    }
+                    triedKey = true;
+                    if (verifySignature(decoded, key, h)) {
+                        return new Verification(Status.VALID, key.label(), null, decoded.claims(), null);
+                    }
+                }
+            } else {
+                for (PasetoKeyRing.SymmetricKey key : ring.symmetricKeys()) {
+                    if (key.version() != decoded.version() || !kidMatches(key.kid(), decoded.kid())) {
+                        continue;
+                    }
+                    triedKey = true;
+                    byte[] plaintext = decrypt(decoded, key.key(), h);
+                    if (plaintext != null) {
+                        List<String> problems = new ArrayList<>();
+                        PasetoClaims claims = PasetoDecoder.parseClaims(plaintext, problems);
+                        return new Verification(Status.VALID, key.label(), plaintext, claims,
+                                problems.isEmpty() ? null : String.join("; ", problems));
+                    }
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            return new Verification(Status.INVALID, null, null, null, e.getMessage());
+        }
+        if (!triedKey) {
+            boolean supported = switch (decoded.version()) {
+                case V2, V4 -> true;
+                case V3 -> decoded.isPublic();
+                case V1 -> false;
+            };
+            return new Verification(supported ? Status.NO_KEY : Status.UNSUPPORTED, null, null, null, null);
+        }
+        return new Verification(Status.INVALID, null, null, null,
+                decoded.isPublic() ? "signature does not verify" : "authentication tag does not match");
+    }
+
+    private static boolean kidMatches(String keyKid, String tokenKid) {
+        return keyKid == null || tokenKid == null || keyKid.equals(tokenKid);
+    }
+
+    private static boolean verifySignature(DecodedPaseto decoded, PasetoKeyRing.VerificationKey key, byte[] h)
+            throws GeneralSecurityException {
+        Signature signature;
+        byte[] m2;
+        if (decoded.version() == PasetoVersion.V3) {
+            signature = ECDSA_P384.get();
+            m2 = pae(key.compressed(), h, decoded.message(), decoded.footer(), EMPTY);
+        } else {
+            signature = ED25519.get();
+            m2 = decoded.version() == PasetoVersion.V2
+                    ? pae(h, decoded.message(), decoded.footer())
+                    : pae(h, decoded.message(), decoded.footer(), EMPTY);
+        }
+        signature.initVerify(key.key());
+        signature.update(m2);
+        try {
+            return signature.verify(decoded.signature());
+        } catch (SignatureException e) {
+            return false;
+        }
+    }
+
+    /** Plaintext, or null if the tag does not authenticate under {@code key}. */
+    private static byte[] decrypt(DecodedPaseto decoded, byte[] key, byte[] h) throws GeneralSecurityException {
+        byte[] n = decoded.nonce();
+        byte[] c = decoded.ciphertext();
+        byte[] f = decoded.footer();
+        if (decoded.version() == PasetoVersion.V2) {
+            Cipher aead = init(CHACHA20_POLY1305, "ChaCha20-Poly1305",
+                    new SecretKeySpec(HChaCha20.subkey(key, n, 0), "ChaCha20"), new IvParameterSpec(HChaCha20.ietfNonce(n, 0)));
+            aead.updateAAD(pae(h, n, f));
+            try {
+                aead.update(c);
+                return aead.doFinal(decoded.tag());
+            } catch (AEADBadTagException e) {
+                return null;
+            }
+        }
+
+        // v4.local: split keys with keyed BLAKE2b, check the BLAKE2b-MAC, then XChaCha20
+        Blake2b blake = BLAKE2B.get();
+        byte[] tmp = blake.init(key, 56).update(V4_ENCRYPTION_KEY_INFO).update(n).doFinal();
+        byte[] authKey = blake.init(key, 32).update(V4_AUTH_KEY_INFO).update(n).doFinal();
+        byte[] expected = blake.init(authKey, 32).update(pae(h, n, c, f, EMPTY)).doFinal();
+        if (!MessageDigest.isEqual(expected, decoded.tag())) {
+            return null;
+        }
+        byte[] n2 = Arrays.copyOfRange(tmp, 32, 56);
+        Cipher stream = init(CHACHA20, "ChaCha20", new SecretKeySpec(HChaCha20.subkey(tmp, n2, 0), "ChaCha20"),
+                new ChaCha20ParameterSpec(HChaCha20.ietfNonce(n2, 0), 0));
+        return stream.doFinal(c);
+    }
+
+    /**
+     * Initialises the thread's cipher for decryption. The JDK rejects re-initialising a
+     * ChaCha20 instance with the key and nonce it last used, which happens whenever a
+     * tampered token keeps the original nonce; the instance is replaced in that case.
+     */
+    private static Cipher init(ThreadLocal<Cipher> holder, String transformation, SecretKeySpec key,
+                               AlgorithmParameterSpec parameters) throws GeneralSecurityException {
+        Cipher cipher = holder.get();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, parameters);
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
+            cipher = cipher(transformation);
+            cipher.init(Cipher.DECRYPT_MODE, key, parameters);
+            holder.set(cipher);
+        }
+        return cipher;
+    }
+
+    /** Pre-Authentication Encoding: LE64(count) || for each piece LE64(length) || piece. */
+    static byte[] pae(byte[]... pieces) {
+        int length = 8;
+        for (byte[] piece : pieces) {
+            length += 8 + piece.length;
+        }
+        byte[] out = new byte[length];
+        int off = putLittleEndian64(out, 0, pieces.length);
+        for (byte[] piece : pieces) {
+            off = putLittleEndian64(out, off, piece.length);
+            System.arraycopy(piece, 0, out, off, piece.length);
+            off += piece.length;
+        }
+        return out;
+    }
+
+    private static int putLittleEndian64(byte[] out, int off, long value) {
+        for (int i = 0; i < 8; i++) {
+            out[off + i] = (byte) (value >>> (i << 3));
+        }
+        // Top bit cleared as the spec requires
+        out[off + 7] &= 0x7F;
+        return off + 8;
+    }
+
+    private static Signature signature(String algorithm) {
+        try {
+            return Signature.getInstance(algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(algorithm + " is not available in this JRE", e);
+        }
+    }
+
+    private static Cipher cipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(transformation + " is not available in this JRE", e);
+        }
+    }
+}
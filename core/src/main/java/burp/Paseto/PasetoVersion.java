@@ -0,0 +1,49 @@
+package burp.Paseto;
+
+/** Per-version layout constants from the PASETO specification. */
+public enum PasetoVersion {
+    //  header, signature (public), nonce (local), tag (local; v2 tag is inside the AEAD ciphertext)
+    V1("v1", 256, 32, 48),
+    V2("v2", 64, 24, 16),
+    V3("v3", 96, 32, 48),
+    V4("v4", 64, 32, 32);
+
+    private final String prefix;
+    private final int signatureLength;
+    private final int nonceLength;
+    private final int tagLength;
+
+    PasetoVersion(String prefix, int signatureLength, int nonceLength, int tagLength) {
+        this.prefix = prefix;
+        this.signatureLength = signatureLength;
+        this.nonceLength = nonceLength;
+        this.tagLength = tagLength;
+    }
+
+    public String prefix() {
+        return prefix;
+    }
+
+    /** Length of the detached signature at the end of a {@code public} payload. */
+    public int signatureLength() {
+        return signatureLength;
+    }
+
+    public int nonceLength() {
+        return nonceLength;
+    }
+
+    public int tagLength() {
+        return tagLength;
+    }
+
+    /** {@code "v4"} -> {@link #V4}; null for unknown versions. */
+    public static PasetoVersion of(String prefix) {
+        for (PasetoVersion v : values()) {
+            if (v.prefix.equals(prefix)) {
+                return v;
+            }
+        }
+        return null;
+    }
+}
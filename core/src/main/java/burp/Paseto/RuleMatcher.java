@@ -0,0 +1,413 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of {@link DetectionRule}s compiled into one Aho–Corasick automaton over
+ * raw bytes.
+ *
+ * Every rule prefix (after expanding classes and alternatives) is a keyword of a
+ * single dense DFA, so a message is walked once however many rules there are.
+ * When a prefix completes, the token body is extended greedily with base64url
+ * segments joined by single dots (up to the rule's segment count); a trailing dot
+ * is not part of the token. Scopes are checked only for such candidates.
+ * Matches never overlap and scanning resumes at the end of the previous token.
+ * With {@link DetectionRule#DEFAULT_RULES} this accepts exactly the language of
+ * the old {@code PASETO_PATTERN} regex.
+ *
+ * Instances are immutable and safe to share between threads; spans use the same
+ * packed format as {@link PasetoScanner}.
+ */
+public final class RuleMatcher {
+
+    /** Upper bound on automaton states; the transition table is {@code states * 256} ints. */
+    static final int MAX_STATES = 4096;
+
+    private static final boolean[] BASE64URL = new boolean[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            BASE64URL[b] = PasetoScanner.isBase64Url(b);
+        }
+    }
+
+    public static final RuleMatcher DEFAULT = compile(DetectionRule.DEFAULT_RULES, new ArrayList<>());
+
+    private final String source;
+    private final DetectionRule[] rules;
+    /**
+     * Dense transition table indexed by {@code state << 8 | unsignedByte}; entries
+     * are {@code ~next} when {@code next} completes a prefix.
+     */
+    private final int[] delta;
+    /** Rule whose prefix ends in each state (via failure links), or -1. */
+    private final int[] outRule;
+    /** Length of that prefix. */
+    private final int[] outLength;
+    /** That prefix's bytes, for scanners that no longer hold the input. */
+    private final byte[][] outPrefix;
+    /** Bytes that leave the root; everything else is skipped without a table lookup. */
+    private final boolean[] first;
+    private final boolean scoped;
+
+    private RuleMatcher(String source, DetectionRule[] rules, int[] delta, int[] outRule, int[] outLength,
+                        byte[][] outPrefix, boolean[] first) {
+        this.source = source;
+        this.rules = rules;
+        this.delta = delta;
+        this.outRule = outRule;
+        this.outLength = outLength;
+        this.outPrefix = outPrefix;
+        this.first = first;
+        boolean anyScoped = false;
+        for (DetectionRule rule : rules) {
+            anyScoped |= rule.isScoped();
+        }
+        this.scoped = anyScoped;
+    }
+
+    /**
+     * Compiles the "detectionRules" setting. Invalid rules are skipped and described
+     * in {@code errors}; if nothing valid remains the default rules are used.
+     */
+    public static RuleMatcher compile(String text, List<String> errors) {
+        List<DetectionRule> parsed = DetectionRule.parseAll(text, errors);
+        if (parsed.isEmpty()) {
+            if (text != null && !text.isBlank()) {
+                errors.add("no usable detection rules, falling back to: " + DetectionRule.DEFAULT_RULES);
+            }
+            parsed = DetectionRule.parseAll(DetectionRule.DEFAULT_RULES, errors);
+            text = DetectionRule.DEFAULT_RULES;
+        }
+        return build(text, parsed, errors);
+    }
+
+    private static RuleMatcher build(String source, List<DetectionRule> parsed, List<String> errors) {
+        List<int[]> children = new ArrayList<>();
+        List<Integer> depth = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        List<byte[]> text = new ArrayList<>();
+        children.add(newNode());
+        depth.add(0);
+        terminal.add(-1);
+        text.add(null);
+        List<DetectionRule> kept = new ArrayList<>();
+
+        for (DetectionRule rule : parsed) {
+            int ruleIndex = kept.size();
+            int before = children.size();
+            boolean fits = true;
+            for (String literal : rule.literals()) {
+                int state = 0;
+                for (int i = 0; i < literal.length(); i++) {
+                    int b = literal.charAt(i);
+                    int next = children.get(state)[b];
+                    if (next == 0) {
+                        if (children.size() == MAX_STATES) {
+                            fits = false;
+                            break;
+                        }
+                        next = children.size();
+                        children.get(state)[b] = next;
+                        children.add(newNode());
+                        depth.add(i + 1);
+                        terminal.add(-1);
+                        text.add(literal.substring(0, i + 1).getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                    state = next;
+                }
+                if (!fits) {
+                    break;
+                }
+                if (terminal.get(state) < 0) {
+                    terminal.set(state, ruleIndex); // earlier rules win on identical prefixes
+                }
+            }
+            if (!fits) {
+                // Undo this rule's nodes so the automaton stays consistent with the kept rules.
+                while (children.size() > before) {
+                    children.remove(children.size() - 1);
+                    depth.remove(depth.size() - 1);
+                    terminal.remove(terminal.size() - 1);
+                    text.remove(text.size() - 1);
+                }
+                for (int[] node : children) {
+                    for (int b = 0; b < 256; b++) {
+                        if (node[b] >= before) {
+                            node[b] = 0;
+                        }
+                    }
+                }
+                for (int s = 0; s < terminal.size(); s++) {
+                    if (terminal.get(s) == ruleIndex) {
+                        terminal.set(s, -1);
+                    }
+                }
+                errors.add("rule " + rule.name() + ": too many prefixes (automaton limit " + MAX_STATES + " states)");
+                continue;
+            }
+            kept.add(rule);
+        }
+
+        int states = children.size();
+        int[] delta = new int[states << 8];
+        int[] fail = new int[states];
+        int[] outRule = new int[states];
+        int[] outLength = new int[states];
+        byte[][] outPrefix = new byte[states][];
+        boolean[] first = new boolean[256];
+        Arrays.fill(outRule, -1);
+
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int b = 0; b < 256; b++) {
+            int child = children.get(0)[b];
+            delta[b] = child;
+            if (child != 0) {
+                first[b] = true;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int u = queue[head++];
+            int own = terminal.get(u);
+            if (own >= 0) {
+                outRule[u] = own;
+                outLength[u] = depth.get(u);
+                outPrefix[u] = text.get(u);
+            } else {
+                outRule[u] = outRule[fail[u]];
+                outLength[u] = outLength[fail[u]];
+                outPrefix[u] = outPrefix[fail[u]];
+            }
+            for (int b = 0; b < 256; b++) {
+                int v = children.get(u)[b];
+                if (v != 0) {
+                    fail[v] = delta[(fail[u] << 8) | b];
+                    delta[(u << 8) | b] = v;
+                    queue[tail++] = v;
+                } else {
+                    delta[(u << 8) | b] = delta[(fail[u] << 8) | b];
+                }
+            }
+        }
+        // Transitions into a state that completes a prefix are stored complemented, so
+        // the scan loop tests the sign of the next state instead of a second table.
+        for (int i = 0; i < delta.length; i++) {
+            if (outRule[delta[i]] >= 0) {
+                delta[i] = ~delta[i];
+            }
+        }
+        return new RuleMatcher(source, kept.toArray(new DetectionRule[0]), delta, outRule, outLength, outPrefix, first);
+    }
+
+    private static int[] newNode() {
+        return new int[256];
+    }
+
+    //------------------------------------------------------------------
+    // Matching
+    //------------------------------------------------------------------
+
+    /**
+     * Finds the first token in {@code data[from, to)}.
+     *
+     * @param bodyOffset start of the body for header/body scopes; -1 to locate it on demand
+     */
+    public long find(ByteAt data, int from, int to, int bodyOffset) {
+        final int[] delta = this.delta;
+        final boolean[] first = this.first;
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            int b = data.at(i) & 0xFF;
+            if (state == 0 && !first[b]) {
+                continue;
+            }
+            state = delta[(state << 8) | b];
+            if (state < 0) {
+                state = ~state;
+                int rule = outRule[state];
+                int end = bodyEnd(data, i + 1, to, rules[rule].segments());
+                if (end > i + 1) {
+                    int start = i + 1 - outLength[state];
+                    if (!scoped || allows(rule, data, to, start, bodyOffset)) {
+                        return PasetoScanner.span(start, end);
+                    }
+                }
+            }
+        }
+        return PasetoScanner.NO_MATCH;
+    }
+
+    /** Same as {@link #find(ByteAt, int, int, int)} for a plain array. */
+    public long find(byte[] data, int from, int to, int bodyOffset) {
+        final int[] delta = this.delta;
+        final boolean[] first = this.first;
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            int b = data[i] & 0xFF;
+            if (state == 0 && !first[b]) {
+                continue;
+            }
+            state = delta[(state << 8) | b];
+            if (state < 0) {
+                state = ~state;
+                int rule = outRule[state];
+                int end = bodyEnd(data, i + 1, to, rules[rule].segments());
+                if (end > i + 1) {
+                    int start = i + 1 - outLength[state];
+                    if (!scoped || allows(rule, data, start, bodyOffset)) {
+                        return PasetoScanner.span(start, end);
+                    }
+                }
+            }
+        }
+        return PasetoScanner.NO_MATCH;
+    }
+
+    /** All non-overlapping tokens in {@code data}; {@link TokenSpans#EMPTY} if there are none. */
+    public TokenSpans findAll(ByteAt data, int from, int to, int bodyOffset) {
+        long span = find(data, from, to, bodyOffset);
+        if (span == PasetoScanner.NO_MATCH) {
+            return TokenSpans.EMPTY;
+        }
+        TokenSpans spans = new TokenSpans();
+        while (span != PasetoScanner.NO_MATCH) {
+            spans.add(PasetoScanner.start(span), PasetoScanner.end(span));
+            span = find(data, PasetoScanner.end(span), to, bodyOffset);
+        }
+        return spans;
+    }
+
+    /** All non-overlapping tokens in {@code data[from, to)}. */
+    public TokenSpans findAll(byte[] data, int from, int to, int bodyOffset) {
+        long span = find(data, from, to, bodyOffset);
+        if (span == PasetoScanner.NO_MATCH) {
+            return TokenSpans.EMPTY;
+        }
+        TokenSpans spans = new TokenSpans();
+        while (span != PasetoScanner.NO_MATCH) {
+            spans.add(PasetoScanner.start(span), PasetoScanner.end(span));
+            span = find(data, PasetoScanner.end(span), to, bodyOffset);
+        }
+        return spans;
+    }
+
+    /** End of the token body starting at {@code p}, or {@code p} if there is none. */
+    private static int bodyEnd(ByteAt data, int p, int to, int segments) {
+        int i = p;
+        while (true) {
+            while (i < to && BASE64URL[data.at(i) & 0xFF]) {
+                i++;
+            }
+            if (i == p || --segments == 0 || i + 1 >= to || data.at(i) != '.' || !BASE64URL[data.at(i + 1) & 0xFF]) {
+                return i;
+            }
+            i++;
+        }
+    }
+
+    private static int bodyEnd(byte[] data, int p, int to, int segments) {
+        int i = p;
+        while (true) {
+            while (i < to && BASE64URL[data[i] & 0xFF]) {
+                i++;
+            }
+            if (i == p || --segments == 0 || i + 1 >= to || data[i] != '.' || !BASE64URL[data[i + 1] & 0xFF]) {
+                return i;
+            }
+            i++;
+        }
+    }
+
+    private boolean allows(int rule, ByteAt data, int length, int start, int bodyOffset) {
+        DetectionRule r = rules[rule];
+        if (!r.isScoped()) {
+            return true;
+        }
+        return r.allows(data, start, bodyOffset >= 0 ? bodyOffset : headerEnd(data, length));
+    }
+
+    private boolean allows(int rule, byte[] data, int start, int bodyOffset) {
+        DetectionRule r = rules[rule];
+        if (!r.isScoped()) {
+            return true;
+        }
+        ByteAt bytes = ByteAt.of(data);
+        return r.allows(bytes, start, bodyOffset >= 0 ? bodyOffset : headerEnd(bytes, data.length));
+    }
+
+    /** Offset after the first blank line, or -1 if the data is not an HTTP message. */
+    public static int headerEnd(ByteAt data, int length) {
+        for (int i = 3; i < length; i++) {
+            if (data.at(i) == '\n' && data.at(i - 1) == '\r' && data.at(i - 2) == '\n' && data.at(i - 3) == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    //------------------------------------------------------------------
+    // Streaming support
+    //------------------------------------------------------------------
+
+    /** Root state of the automaton. */
+    static final int ROOT = 0;
+
+    int step(int state, int b) {
+        if (state == ROOT && !first[b]) {
+            return ROOT;
+        }
+        int next = delta[(state << 8) | b];
+        return next < 0 ? ~next : next;
+    }
+
+    /** Rule whose prefix completes in {@code state}, or -1. */
+    int ruleAt(int state) {
+        return outRule[state];
+    }
+
+    /** Bytes of the prefix that completes in {@code state}; do not modify. */
+    byte[] prefix(int state) {
+        return outPrefix[state];
+    }
+
+    DetectionRule rule(int index) {
+        return rules[index];
+    }
+
+    static boolean isBase64Url(int b) {
+        return BASE64URL[b];
+    }
+
+    //------------------------------------------------------------------
+    // Introspection
+    //------------------------------------------------------------------
+
+    public List<DetectionRule> rules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+
+    /** The setting text this matcher was compiled from. */
+    public String source() {
+        return source;
+    }
+
+    public boolean hasScopes() {
+        return scoped;
+    }
+
+    public int states() {
+        return delta.length >> 8;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleMatcher[" + rules.length + " rules, " + states() + " states]";
+    }
+}
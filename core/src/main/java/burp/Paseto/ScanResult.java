@@ -0,0 +1,57 @@
+package burp.Paseto;
+
+/**
+ * Immutable outcome of scanning one request: token offsets into the raw request
+ * bytes plus the token strings themselves, so later stages never re-scan.
+ */
+public final class ScanResult {
+
+    public static final ScanResult NONE = new ScanResult(TokenSpans.EMPTY, new String[0], -1);
+
+    private final TokenSpans spans;
+    private final String[] tokens;
+    private final int bodyOffset;
+
+    private ScanResult(TokenSpans spans, String[] tokens, int bodyOffset) {
+        this.spans = spans;
+        this.tokens = tokens;
+        this.bodyOffset = bodyOffset;
+    }
+
+    public static ScanResult of(ByteAt raw, TokenSpans spans, int bodyOffset) {
+        if (spans.isEmpty()) {
+            return NONE;
+        }
+        String[] tokens = new String[spans.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = PasetoScanner.tokenAt(raw, spans.start(i), spans.end(i));
+        }
+        return new ScanResult(spans, tokens, bodyOffset);
+    }
+
+    public boolean hasToken() {
+        return tokens.length > 0;
+    }
+
+    public String firstToken() {
+        return tokens.length > 0 ? tokens[0] : null;
+    }
+
+    public int tokenCount() {
+        return tokens.length;
+    }
+
+    public String token(int i) {
+        return tokens[i];
+    }
+
+    /** Offsets of every token in {@code request.toByteArray()}. */
+    public TokenSpans spans() {
+        return spans;
+    }
+
+    /** True if the i-th token sits in the body rather than the request line / headers. */
+    public boolean inBody(int i) {
+        return bodyOffset >= 0 && spans.start(i) >= bodyOffset;
+    }
+}
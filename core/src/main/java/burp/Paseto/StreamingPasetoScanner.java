@@ -0,0 +1,170 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Incremental variant of {@link RuleMatcher} for data that arrives in chunks.
+ *
+ * Runs the same automaton, but keeps the state and the bytes of the token in
+ * progress between {@link #feed} calls, so a token split across a chunk boundary
+ * is still reported once and in full. Call {@link #finish()} at the end of the
+ * stream to flush a token that runs up to the last byte.
+ *
+ * Scopes are not checked here (the preceding bytes may be gone); the listener
+ * gets the token's stream offset and rule so it can check them against the
+ * original message.
+ *
+ * Not thread-safe; use one instance per stream.
+ */
+public class StreamingPasetoScanner {
+
+    /** Candidates longer than this are abandoned so a hostile stream cannot grow the carry buffer. */
+    public static final int MAX_TOKEN_LENGTH = 64 * 1024;
+
+    /** Receives each token with its offset in the stream and the rule that matched it. */
+    @FunctionalInterface
+    public interface Listener {
+        void token(String token, long start, DetectionRule rule);
+    }
+
+    private final RuleMatcher matcher;
+    private final Listener listener;
+    private byte[] token = new byte[256];
+    private int tokenLength;
+    private long position;
+    private int state = RuleMatcher.ROOT;
+    // Token body in progress (after a complete prefix)
+    private boolean inBody;
+    private int prefixState;
+    private int bodyLength;
+    private int segmentsLeft;
+    private boolean lastDot;
+
+    /** Built-in PASETO rules, tokens only. */
+    public StreamingPasetoScanner(Consumer<String> listener) {
+        this(RuleMatcher.DEFAULT, (token, start, rule) -> listener.accept(token));
+    }
+
+    public StreamingPasetoScanner(RuleMatcher matcher, Listener listener) {
+        this.matcher = matcher;
+        this.listener = listener;
+    }
+
+    public void feed(byte[] buf, int off, int len) {
+        int state = this.state;
+        for (int i = off, end = off + len; i < end; i++) {
+            state = consume(state, buf[i] & 0xFF, position + (i - off));
+        }
+        position += len;
+        this.state = state;
+    }
+
+    /**
+     * Feeds text without encoding it first (WebSocket text frames). Rule prefixes and
+     * token bodies are ASCII, so every other character is fed as one non-matching
+     * byte; offsets passed to the listener then count characters, not bytes.
+     */
+    public void feed(CharSequence text, int off, int len) {
+        int state = this.state;
+        for (int i = off, end = off + len; i < end; i++) {
+            char c = text.charAt(i);
+            state = consume(state, c < 0x80 ? c : 0x80, position + (i - off));
+        }
+        position += len;
+        this.state = state;
+    }
+
+    /** Stream offset of the next byte (or character) to be fed. */
+    public long position() {
+        return position;
+    }
+
+    /** Ends the stream: reports a token that reaches the last byte and resets the scanner. */
+    public void finish() {
+        if (inBody) {
+            endBody(position);
+        }
+        reset();
+    }
+
+    public void reset() {
+        state = RuleMatcher.ROOT;
+        inBody = false;
+        tokenLength = 0;
+        position = 0;
+    }
+
+    /** True while a partial token is carried over to the next chunk. */
+    public boolean inToken() {
+        return inBody || state != RuleMatcher.ROOT;
+    }
+
+    /** One input byte at stream offset {@code at}; returns the next automaton state. */
+    private int consume(int state, int b, long at) {
+        if (inBody) {
+            if (RuleMatcher.isBase64Url(b)) {
+                if (tokenLength == MAX_TOKEN_LENGTH) {
+                    inBody = false;
+                    return RuleMatcher.ROOT;
+                }
+                append((byte) b);
+                bodyLength++;
+                lastDot = false;
+                return state;
+            }
+            if (b == '.' && !lastDot && bodyLength > 0 && segmentsLeft > 1 && tokenLength < MAX_TOKEN_LENGTH) {
+                append((byte) b);
+                segmentsLeft--;
+                lastDot = true;
+                return state;
+            }
+            state = endBody(at);
+        }
+        state = matcher.step(state, b);
+        int rule = matcher.ruleAt(state);
+        if (rule >= 0) {
+            startBody(state, rule);
+        }
+        return state;
+    }
+
+    private void startBody(int state, int rule) {
+        byte[] prefix = matcher.prefix(state);
+        tokenLength = 0;
+        for (byte p : prefix) {
+            append(p);
+        }
+        inBody = true;
+        prefixState = state;
+        bodyLength = 0;
+        segmentsLeft = matcher.rule(rule).segments();
+        lastDot = false;
+    }
+
+    /**
+     * Closes the body in progress at stream offset {@code at} and returns the
+     * automaton state to continue from, mirroring where {@link RuleMatcher#find}
+     * would resume.
+     */
+    private int endBody(long at) {
+        inBody = false;
+        if (bodyLength == 0) {
+            return prefixState;
+        }
+        int len = lastDot ? tokenLength - 1 : tokenLength;
+        long start = at - tokenLength;
+        listener.token(new String(token, 0, len, StandardCharsets.ISO_8859_1), start,
+                matcher.rule(matcher.ruleAt(prefixState)));
+        // A trailing dot is not part of the token, so the matcher sees it again.
+        return lastDot ? matcher.step(RuleMatcher.ROOT, '.') : RuleMatcher.ROOT;
+    }
+
+    private void append(byte b) {
+        if (tokenLength == token.length) {
+            token = Arrays.copyOf(token, Math.min(MAX_TOKEN_LENGTH, token.length * 2));
+        }
+        token[tokenLength++] = b;
+    }
+}
@@ -0,0 +1,338 @@
+package burp.Paseto;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Deduplicated record of every distinct PASETO token the extension has seen.
+ *
+ * Each token is stored once with its (interned) version and purpose, the hosts it
+ * was sent to or issued by, first/last-seen time and a hit count. Memory is capped
+ * by an estimated byte budget; once it is exceeded the least recently seen tokens
+ * are evicted, so a long proxy session cannot exhaust the heap.
+ */
+public class TokenInventory {
+
+    public static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+    /** Hosts kept per token; further hosts are counted but not stored. */
+    static final int MAX_HOSTS_PER_TOKEN = 16;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<String, TokenRecord> records = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+    private long evictions;
+    private volatile long modCount;
+    /** Records changed since the last {@link #drainChanges()}; each record is listed at most once. */
+    private List<TokenRecord> dirty = new ArrayList<>();
+    private boolean clearedSinceDrain;
+
+    public TokenInventory() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    public TokenInventory(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /** Records one sighting of {@code token} on {@code host} (may be null); true if the token is new. */
+    public boolean record(String token, String host, long timestamp) {
+        synchronized (records) {
+            boolean isNew = recordLocked(token, host, timestamp);
+            evictOverBudget();
+            modCount++;
+            return isNew;
+        }
+    }
+
+    /**
+     * Applies a batch of sightings under a single lock acquisition.
+     *
+     * @param onNew called (under the lock, keep it cheap) for sightings that introduced a new token
+     */
+    public void recordAll(List<TokenSighting> sightings, Consumer<TokenSighting> onNew) {
+        synchronized (records) {
+            for (TokenSighting s : sightings) {
+                if (recordLocked(s.token(), s.host(), s.timestamp())) {
+                    onNew.accept(s);
+                }
+            }
+            evictOverBudget();
+            modCount++;
+        }
+    }
+
+    private boolean recordLocked(String token, String host, long timestamp) {
+        TokenRecord record = records.get(token);
+        boolean isNew = record == null;
+        if (isNew) {
+            record = new TokenRecord(token, timestamp);
+            records.put(token, record);
+            usedBytes += record.estimatedBytes();
+        }
+        if (record.addHost(host)) {
+            usedBytes += TokenRecord.hostBytes(host);
+        }
+        record.hit(timestamp);
+        record.live = true;
+        markDirty(record);
+        return isNew;
+    }
+
+    private void markDirty(TokenRecord record) {
+        if (!record.dirty) {
+            record.dirty = true;
+            dirty.add(record);
+        }
+    }
+
+    /**
+     * Merges records loaded from a previous session. Tokens already seen in this
+     * session keep their entry and absorb the saved hits, hosts and time range.
+     *
+     * Restored records rank as less recently seen than every sighting of this
+     * session, so if the saved state does not fit the budget the oldest saved
+     * records are evicted, never live ones. Pass batches oldest first.
+     */
+    void restoreAll(List<Saved> saved) {
+        synchronized (records) {
+            List<TokenRecord> live = new ArrayList<>();
+            for (TokenRecord record : records.values()) {
+                if (record.live) {
+                    live.add(record);
+                }
+            }
+            for (Saved s : saved) {
+                TokenRecord record = records.get(s.token());
+                if (record == null) {
+                    record = new TokenRecord(s.token(), s.firstSeen());
+                    records.put(s.token(), record);
+                    usedBytes += record.estimatedBytes();
+                } else {
+                    record.firstSeen = Math.min(record.firstSeen, s.firstSeen());
+                    markDirty(record);
+                }
+                for (String host : s.hosts()) {
+                    if (record.addHost(host)) {
+                        usedBytes += TokenRecord.hostBytes(host);
+                    }
+                }
+                record.hits += s.hits();
+                if (s.lastSeen() > record.lastSeen) {
+                    record.lastSeen = s.lastSeen();
+                }
+            }
+            // An access-ordered get moves the record to the recently-used end; keeps their relative order
+            for (TokenRecord record : live) {
+                records.get(record.token);
+            }
+            evictOverBudget();
+            modCount++;
+        }
+    }
+
+    /** Persistence delta: records changed since the previous call, and whether a clear happened first. */
+    Changes drainChanges() {
+        synchronized (records) {
+            List<Saved> changed = new ArrayList<>(dirty.size());
+            for (TokenRecord record : dirty) {
+                record.dirty = false;
+                // Evicted records are not worth saving
+                if (records.get(record.token) == record) {
+                    changed.add(record.saved());
+                }
+            }
+            Changes changes = new Changes(clearedSinceDrain, changed);
+            dirty = new ArrayList<>();
+            clearedSinceDrain = false;
+            return changes;
+        }
+    }
+
+    /** Every live record, for compaction; also resets the change log. */
+    List<Saved> drainAll() {
+        synchronized (records) {
+            for (TokenRecord record : dirty) {
+                record.dirty = false;
+            }
+            dirty = new ArrayList<>();
+            clearedSinceDrain = false;
+            List<Saved> all = new ArrayList<>(records.size());
+            for (TokenRecord record : records.values()) {
+                all.add(record.saved());
+            }
+            return all;
+        }
+    }
+
+    public TokenRecord get(String token) {
+        synchronized (records) {
+            return records.get(token);
+        }
+    }
+
+    public int size() {
+        synchronized (records) {
+            return records.size();
+        }
+    }
+
+    public long usedBytes() {
+        synchronized (records) {
+            return usedBytes;
+        }
+    }
+
+    public long evictions() {
+        synchronized (records) {
+            return evictions;
+        }
+    }
+
+    /** Changes every time the inventory changes; lets views skip refreshes cheaply. */
+    public long modCount() {
+        return modCount;
+    }
+
+    /** Records from least to most recently seen. */
+    public TokenRecord[] snapshot() {
+        synchronized (records) {
+            return records.values().toArray(new TokenRecord[0]);
+        }
+    }
+
+    public void clear() {
+        synchronized (records) {
+            records.clear();
+            usedBytes = 0;
+            for (TokenRecord record : dirty) {
+                record.dirty = false;
+            }
+            dirty = new ArrayList<>();
+            clearedSinceDrain = true;
+            modCount++;
+        }
+    }
+
+    private void evictOverBudget() {
+        Iterator<TokenRecord> it = records.values().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            usedBytes -= it.next().estimatedBytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    //------------------------------------------------------------------
+    // Record
+    //------------------------------------------------------------------
+
+    /** Immutable copy of a record's state, as written to and read from the persistent store. */
+    record Saved(String token, long firstSeen, long lastSeen, long hits, List<String> hosts) {
+    }
+
+    record Changes(boolean cleared, List<Saved> records) {
+    }
+
+    /** One distinct token. Mutated only under the inventory lock; read freely by views. */
+    public static final class TokenRecord {
+        private static final int BASE_BYTES = 160;
+
+        private final String token;
+        private final String version;
+        private final String purpose;
+        private final Set<String> hosts = new LinkedHashSet<>(2);
+        private volatile long firstSeen;
+        private volatile String hostSummary = "";
+        private volatile long lastSeen;
+        private volatile long hits;
+        private boolean dirty;
+        /** Seen in this session, as opposed to only restored from a saved one. */
+        private boolean live;
+
+        TokenRecord(String token, long firstSeen) {
+            this.token = token;
+            int firstDot = token.indexOf('.');
+            int secondDot = token.indexOf('.', firstDot + 1);
+            this.version = firstDot > 0 ? token.substring(0, firstDot).intern() : "";
+            this.purpose = secondDot > firstDot ? token.substring(firstDot + 1, secondDot).intern() : "";
+            this.firstSeen = firstSeen;
+            this.lastSeen = firstSeen;
+        }
+
+        static long hostBytes(String host) {
+            return 48 + 2L * host.length();
+        }
+
+        long estimatedBytes() {
+            long bytes = BASE_BYTES + 2L * token.length();
+            for (String host : hosts) {
+                bytes += hostBytes(host);
+            }
+            return bytes;
+        }
+
+        boolean addHost(String host) {
+            if (host == null || hosts.size() >= MAX_HOSTS_PER_TOKEN || !hosts.add(host.intern())) {
+                return false;
+            }
+            hostSummary = String.join(", ", hosts);
+            return true;
+        }
+
+        Saved saved() {
+            return new Saved(token, firstSeen, lastSeen, hits, List.copyOf(hosts));
+        }
+
+        void hit(long timestamp) {
+            hits++;
+            // offline scans record sightings out of capture order
+            if (timestamp < firstSeen) {
+                firstSeen = timestamp;
+            }
+            if (timestamp > lastSeen) {
+                lastSeen = timestamp;
+            }
+        }
+
+        public String token() {
+            return token;
+        }
+
+        public String version() {
+            return version;
+        }
+
+        public String purpose() {
+            return purpose;
+        }
+
+        public String hosts() {
+            return hostSummary;
+        }
+
+        public long firstSeen() {
+            return firstSeen;
+        }
+
+        public long lastSeen() {
+            return lastSeen;
+        }
+
+        public long hits() {
+            return hits;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (records) {
+            return "TokenInventory[tokens=" + records.size() + " bytes=" + usedBytes + "/" + budgetBytes
+                    + " evictions=" + evictions + "]";
+        }
+    }
+}
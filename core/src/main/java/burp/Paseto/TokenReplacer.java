@@ -0,0 +1,91 @@
+package burp.Paseto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Replaces every occurrence of a token – request line / query string, headers,
+ * cookies and body – by splicing the new token into the raw message bytes at the
+ * offsets reported by {@link RuleMatcher}. One copy of the message, no regex and
+ * no per-header String round-trip. The caller fixes Content-Length from
+ * {@link Splice#bodyDelta()} when the body changes size.
+ */
+public final class TokenReplacer {
+
+    /** The rewritten message and how much the body grew (negative if it shrank). */
+    public record Splice(byte[] bytes, int bodyDelta) {
+    }
+
+    private TokenReplacer() {
+    }
+
+    /**
+     * Replaces the spans of {@code message} that hold exactly {@code oldToken}.
+     *
+     * @return the rewritten message, or {@code null} if {@code oldToken} does not occur
+     */
+    public static Splice replaceToken(byte[] message, TokenSpans spans, String oldToken, String newToken, int bodyOffset) {
+        boolean[] hit = occurrences(ByteAt.of(message), spans, oldToken);
+        return hit == null ? null : splice(message, spans, hit, newToken, bodyOffset);
+    }
+
+    /**
+     * Marks the spans whose bytes equal {@code oldToken}; {@code null} if there are
+     * none, so callers can skip copying the message at all.
+     */
+    public static boolean[] occurrences(ByteAt raw, TokenSpans spans, String oldToken) {
+        byte[] oldBytes = oldToken.getBytes(StandardCharsets.ISO_8859_1);
+        boolean[] hit = null;
+        for (int i = 0; i < spans.size(); i++) {
+            if (regionEquals(raw, spans.start(i), spans.end(i), oldBytes)) {
+                if (hit == null) {
+                    hit = new boolean[spans.size()];
+                }
+                hit[i] = true;
+            }
+        }
+        return hit;
+    }
+
+    /** Copies {@code src} with {@code newToken} in place of every span marked in {@code hit}. */
+    public static Splice splice(byte[] src, TokenSpans spans, boolean[] hit, String newToken, int bodyOffset) {
+        byte[] newBytes = newToken.getBytes(StandardCharsets.UTF_8);
+        int outLength = src.length;
+        for (int i = 0; i < hit.length; i++) {
+            if (hit[i]) {
+                outLength += newBytes.length - (spans.end(i) - spans.start(i));
+            }
+        }
+        byte[] out = new byte[outLength];
+        int bodyDelta = 0;
+        int srcPos = 0;
+        int outPos = 0;
+        for (int i = 0; i < hit.length; i++) {
+            if (!hit[i]) {
+                continue;
+            }
+            int start = spans.start(i);
+            System.arraycopy(src, srcPos, out, outPos, start - srcPos);
+            outPos += start - srcPos;
+            System.arraycopy(newBytes, 0, out, outPos, newBytes.length);
+            outPos += newBytes.length;
+            srcPos = spans.end(i);
+            if (bodyOffset >= 0 && start >= bodyOffset) {
+                bodyDelta += newBytes.length - (spans.end(i) - start);
+            }
+        }
+        System.arraycopy(src, srcPos, out, outPos, src.length - srcPos);
+        return new Splice(out, bodyDelta);
+    }
+
+    private static boolean regionEquals(ByteAt raw, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((byte) raw.at(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
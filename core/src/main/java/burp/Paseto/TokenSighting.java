@@ -0,0 +1,12 @@
+package burp.Paseto;
+
+/** One observation of a token, handed from the request path to the {@link AnalysisPipeline}. */
+public record TokenSighting(String token, String host, long timestamp, Source source) {
+
+    public enum Source {
+        REQUEST,
+        RESPONSE,
+        HISTORY,
+        WEBSOCKET
+    }
+}
@@ -0,0 +1,49 @@
+package burp.Paseto;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of token offsets ({@code [start, end)}) produced by {@link PasetoScanner}.
+ * Offsets are relative to the byte buffer that was scanned.
+ */
+public final class TokenSpans {
+
+    /** Shared result for the (common) no-token case. Never mutated. */
+    public static final TokenSpans EMPTY = new TokenSpans(0);
+
+    private int[] offsets;
+    private int size;
+
+    TokenSpans() {
+        this(4);
+    }
+
+    private TokenSpans(int capacity) {
+        this.offsets = new int[capacity * 2];
+    }
+
+    void add(int start, int end) {
+        if (size * 2 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(4, offsets.length * 2));
+        }
+        offsets[size * 2] = start;
+        offsets[size * 2 + 1] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int start(int i) {
+        return offsets[i * 2];
+    }
+
+    public int end(int i) {
+        return offsets[i * 2 + 1];
+    }
+}
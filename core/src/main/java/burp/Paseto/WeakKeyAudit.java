@@ -0,0 +1,363 @@
+package burp.Paseto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Offline dictionary audit of a captured {@code v1/v3/v4.local} token: checks
+ * whether any wordlist entry, turned into a 32-byte key, reproduces the token's
+ * authentication tag. Nothing is sent anywhere.
+ *
+ * The wordlist is memory-mapped and split into one newline-aligned range per
+ * worker thread. Each worker owns its line buffer, key buffer and MAC state, so
+ * the inner loop allocates nothing; the tag check is done on the token's
+ * precomputed pre-authentication encoding, without decrypting. Progress is
+ * published in batches and the first hit stops every worker.
+ *
+ * v2.local is not supported: its tag is a Poly1305 one-time MAC inside the AEAD,
+ * which would mean a full cipher set-up per candidate.
+ */
+public class WeakKeyAudit {
+
+    /** How a wordlist line becomes a 32-byte key. */
+    public enum Derivation {
+        RAW("line bytes, zero-padded or truncated to 32"),
+        SHA256("SHA-256 of the line"),
+        HEX("line is the key in hex");
+
+        private final String description;
+
+        Derivation(String description) {
+            this.description = description;
+        }
+
+        public String description() {
+            return description;
+        }
+    }
+
+    /** Invoked from the coordinating thread only. */
+    public interface Listener {
+        void progress(long candidates, long bytesDone, long totalBytes, long candidatesPerSecond);
+
+        void finished(Result result);
+    }
+
+    /** {@code secret}, {@code derivation} and {@code key} are null unless a key was found. */
+    public record Result(long candidates, long millis, boolean cancelled, String secret, Derivation derivation,
+                         byte[] key, String header) {
+
+        public boolean found() {
+            return key != null;
+        }
+
+        /** The key in the "verificationKeys" setting format, e.g. {@code v4.local:<hex>}. */
+        public String keyEntry() {
+            return key == null ? null : header + ":" + HexFormat.of().formatHex(key);
+        }
+    }
+
+    static final int MAX_LINE = 1024;
+    static final long WINDOW = 64L << 20;
+    private static final int FLUSH_EVERY = 4096;
+    private static final long PROGRESS_MILLIS = 250;
+    private static final byte[] AUTH_INFO = "paseto-auth-key-for-aead".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ZERO_SALT = new byte[HmacSha384.LENGTH];
+
+    private final DecodedPaseto token;
+    private final Path wordlist;
+    private final Set<Derivation> derivations;
+    private final int threads;
+    private final byte[] preAuth;
+    private volatile boolean stop;
+
+    public WeakKeyAudit(String token, Path wordlist, Set<Derivation> derivations, int threads) {
+        this.token = PasetoDecoder.decode(token);
+        if (!supports(this.token)) {
+            throw new IllegalArgumentException("only well-formed v1/v3/v4.local tokens can be audited");
+        }
+        this.wordlist = wordlist;
+        this.derivations = derivations.isEmpty() ? EnumSet.of(Derivation.RAW) : EnumSet.copyOf(derivations);
+        this.threads = Math.max(1, threads);
+        byte[] h = (this.token.header() + ".local.").getBytes(StandardCharsets.US_ASCII);
+        this.preAuth = this.token.version() == PasetoVersion.V1
+                ? PasetoVerifier.pae(h, this.token.nonce(), this.token.ciphertext(), this.token.footer())
+                : PasetoVerifier.pae(h, this.token.nonce(), this.token.ciphertext(), this.token.footer(), new byte[0]);
+    }
+
+    public static boolean supports(DecodedPaseto decoded) {
+        return decoded.isLocal() && !decoded.isMalformed() && decoded.version() != null
+                && decoded.version() != PasetoVersion.V2;
+    }
+
+    public void cancel() {
+        stop = true;
+    }
+
+    /** Blocks until the wordlist is exhausted, a key is found or {@link #cancel()} is called. */
+    public Result run(Listener listener) throws IOException {
+        long started = System.nanoTime();
+        AtomicLong candidates = new AtomicLong();
+        AtomicLong bytesDone = new AtomicLong();
+        AtomicReference<Result> hit = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (FileChannel channel = FileChannel.open(wordlist, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = ranges(channel, size, threads);
+            CountDownLatch done = new CountDownLatch(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                Thread worker = new Thread(() -> {
+                    try {
+                        new Worker(channel, size, candidates, bytesDone, hit).scan(from, to);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                        stop = true;
+                    } finally {
+                        done.countDown();
+                    }
+                }, "paseto-weak-key-" + i);
+                worker.setDaemon(true);
+                worker.start();
+            }
+
+            long lastCandidates = 0;
+            long lastTime = System.nanoTime();
+            while (true) {
+                boolean finished;
+                try {
+                    finished = done.await(PROGRESS_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stop = true;
+                    finished = false;
+                }
+                long now = System.nanoTime();
+                long count = candidates.get();
+                long rate = (count - lastCandidates) * 1_000_000_000L / Math.max(1, now - lastTime);
+                listener.progress(count, Math.min(size, bytesDone.get()), size, rate);
+                lastCandidates = count;
+                lastTime = now;
+                if (finished) {
+                    break;
+                }
+            }
+            if (failure.get() != null) {
+                throw new IOException("weak-key audit failed: " + failure.get(), failure.get());
+            }
+        }
+
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        Result found = hit.get();
+        Result result = found != null
+                ? new Result(candidates.get(), millis, false, found.secret(), found.derivation(), found.key(), found.header())
+                : new Result(candidates.get(), millis, stop, null, null, null, null);
+        listener.finished(result);
+        return result;
+    }
+
+    /** Splits {@code [0, size)} into up to {@code parts} ranges that each start at a line start. */
+    private static long[] ranges(FileChannel channel, long size, int parts) throws IOException {
+        parts = (int) Math.max(1, Math.min(parts, size / MAX_LINE + 1));
+        long[] bounds = new long[parts + 1];
+        ByteBuffer probe = ByteBuffer.allocate(MAX_LINE);
+        for (int i = 1; i < parts; i++) {
+            long pos = Math.max(bounds[i - 1], size * i / parts);
+            probe.clear();
+            int read = channel.read(probe, pos);
+            int skip = 0;
+            while (skip < read && probe.get(skip) != '\n') {
+                skip++;
+            }
+            bounds[i] = Math.min(size, pos + skip + 1);
+        }
+        bounds[parts] = size;
+        return bounds;
+    }
+
+    //------------------------------------------------------------------
+    // Worker
+    //------------------------------------------------------------------
+
+    private final class Worker {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final AtomicLong candidates;
+        private final AtomicLong bytesDone;
+        private final AtomicReference<Result> hit;
+
+        private final byte[] line = new byte[MAX_LINE];
+        private final byte[] key = new byte[32];
+        private final byte[] authKey = new byte[HmacSha384.LENGTH];
+        private final byte[] blakeKey = new byte[32];
+        private final byte[] mac = new byte[64];
+        private final byte[] tag;
+        private final byte[] nonce;
+        private final MessageDigest sha256;
+        private final HmacSha384 hmac;
+        private final Blake2b blake2b;
+
+        Worker(FileChannel channel, long fileSize, AtomicLong candidates, AtomicLong bytesDone,
+               AtomicReference<Result> hit) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.candidates = candidates;
+            this.bytesDone = bytesDone;
+            this.hit = hit;
+            this.tag = token.tag();
+            this.nonce = token.nonce();
+            try {
+                this.sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            this.hmac = token.version() == PasetoVersion.V4 ? null : new HmacSha384();
+            this.blake2b = token.version() == PasetoVersion.V4 ? new Blake2b() : null;
+        }
+
+        void scan(long from, long to) throws IOException {
+            long pending = 0;
+            long pendingBytes = 0;
+            long windowStart = from;
+            while (windowStart < to && !stop) {
+                // Map a little past the window so a line starting inside it is complete
+                long mapEnd = Math.min(fileSize, windowStart + WINDOW + MAX_LINE);
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, mapEnd - windowStart);
+                int limit = map.limit();
+                int stopAt = (int) Math.min(Math.min(WINDOW, to - windowStart), limit);
+                int p = 0;
+                while (p < stopAt && !stop) {
+                    int end = p;
+                    while (end < limit && map.get(end) != '\n') {
+                        end++;
+                    }
+                    int next = end + 1;
+                    if (end > p && map.get(end - 1) == '\r') {
+                        end--;
+                    }
+                    int length = Math.min(end - p, MAX_LINE);
+                    if (length > 0) {
+                        map.get(p, line, 0, length);
+                        pending += test(length);
+                    }
+                    pendingBytes += next - p;
+                    p = next;
+                    if (pending >= FLUSH_EVERY) {
+                        candidates.addAndGet(pending);
+                        bytesDone.addAndGet(pendingBytes);
+                        pending = 0;
+                        pendingBytes = 0;
+                    }
+                }
+                windowStart += p;
+            }
+            candidates.addAndGet(pending);
+            bytesDone.addAndGet(pendingBytes);
+        }
+
+        /** Tests every configured derivation of {@code line[0, length)}; returns the candidates tried. */
+        private int test(int length) {
+            int tried = 0;
+            for (Derivation derivation : derivations) {
+                if (!derive(derivation, length)) {
+                    continue;
+                }
+                tried++;
+                if (matches()) {
+                    if (hit.compareAndSet(null, new Result(0, 0, false,
+                            new String(line, 0, length, StandardCharsets.UTF_8), derivation, key.clone(),
+                            token.header() + ".local"))) {
+                        stop = true;
+                    }
+                    return tried;
+                }
+            }
+            return tried;
+        }
+
+        private boolean derive(Derivation derivation, int length) {
+            switch (derivation) {
+                case RAW:
+                    int copy = Math.min(length, 32);
+                    System.arraycopy(line, 0, key, 0, copy);
+                    for (int i = copy; i < 32; i++) {
+                        key[i] = 0;
+                    }
+                    return true;
+                case SHA256:
+                    sha256.update(line, 0, length);
+                    try {
+                        sha256.digest(key, 0, 32);
+                    } catch (DigestException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return true;
+                case HEX:
+                    if (length != 64) {
+                        return false;
+                    }
+                    for (int i = 0; i < 32; i++) {
+                        int hi = Character.digit(line[2 * i], 16);
+                        int lo = Character.digit(line[2 * i + 1], 16);
+                        if (hi < 0 || lo < 0) {
+                            return false;
+                        }
+                        key[i] = (byte) (hi << 4 | lo);
+                    }
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /** Recomputes the authentication tag under {@link #key} and compares it with the token's. */
+        private boolean matches() {
+            switch (token.version()) {
+                case V4:
+                    // Ak = BLAKE2b-256(key = k, "paseto-auth-key-for-aead" || n); t = BLAKE2b-256(key = Ak, PAE)
+                    blake2b.init(key, 32).update(AUTH_INFO).update(nonce).doFinal(blakeKey, 0);
+                    blake2b.init(blakeKey, 32).update(preAuth).doFinal(mac, 0);
+                    return equal(mac, tag, 32);
+                case V3:
+                    // Ak = HKDF-SHA384(salt = none, ikm = k, info = "paseto-auth-key-for-aead" || n, 48)
+                    hmac.init(ZERO_SALT, 0, HmacSha384.LENGTH).update(key).doFinal(authKey);
+                    hmac.init(authKey, 0, HmacSha384.LENGTH).update(AUTH_INFO).update(nonce).update((byte) 1).doFinal(authKey);
+                    hmac.init(authKey, 0, HmacSha384.LENGTH).update(preAuth).doFinal(mac);
+                    return equal(mac, tag, HmacSha384.LENGTH);
+                case V1:
+                    // Ak = HKDF-SHA384(salt = n[0:16], ikm = k, info = "paseto-auth-key-for-aead", 32)
+                    hmac.init(nonce, 0, 16).update(key).doFinal(authKey);
+                    hmac.init(authKey, 0, HmacSha384.LENGTH).update(AUTH_INFO).update((byte) 1).doFinal(authKey);
+                    hmac.init(authKey, 0, 32).update(preAuth).doFinal(mac);
+                    return equal(mac, tag, HmacSha384.LENGTH);
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static boolean equal(byte[] a, byte[] b, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+}
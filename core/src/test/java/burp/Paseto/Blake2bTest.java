@@ -0,0 +1,72 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Known answers from RFC 7693 and the reference implementation's blake2b-kat.txt. */
+class Blake2bTest {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static byte[] sequence(int length) {
+        byte[] out = new byte[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = (byte) i;
+        }
+        return out;
+    }
+
+    private static String hash(byte[] key, byte[] data, int outLength) {
+        return HEX.formatHex(new Blake2b().init(key, outLength).update(data).doFinal());
+    }
+
+    @Test
+    void rfc7693Abc() {
+        assertEquals("ba80a53f981c4d0d6a2797b69f12f6e94c212f14685ac4b74b12bb6fdbffa2d1"
+                        + "7d87c5392aab792dc252d5de4533cc9518d38aa8dbf1925ab92386edd4009923",
+                hash(null, "abc".getBytes(StandardCharsets.US_ASCII), 64));
+    }
+
+    @Test
+    void emptyInput() {
+        assertEquals("786a02f742015903c6c6fd852552d272912f4740e15847618a86e217f71f5419"
+                        + "d25e1031afee585313896444934eb04b903a685b1448b755d56f701afe9be2ce",
+                hash(null, new byte[0], 64));
+    }
+
+    @Test
+    void keyedKnownAnswers() {
+        byte[] key = sequence(64);
+        assertEquals("10ebb67700b1868efb4417987acf4690ae9d972fb7a590c2f02871799aaa4786"
+                        + "b5e996e8f0f4eb981fc214b005f42d2ff4233499391653df7aefcbc13fc51568",
+                hash(key, new byte[0], 64));
+        assertEquals("961f6dd1e4dd30f63901690c512e78e4b45e4742ed197c3c5e45c549fd25f2e4"
+                        + "187b0bc9fe30492b16b0d0bc4ef9b0f34c7003fac09a5ef1532e69430234cebd",
+                hash(key, sequence(1), 64));
+    }
+
+    @Test
+    void splitUpdatesMatchOneUpdate() {
+        byte[] data = sequence(255);
+        byte[] key = sequence(32);
+        byte[] whole = new Blake2b().init(key, 32).update(data).doFinal();
+        for (int split : new int[]{0, 1, 127, 128, 129, 254}) {
+            Blake2b blake = new Blake2b().init(key, 32);
+            blake.update(data, 0, split).update(data, split, data.length - split);
+            assertArrayEquals(whole, blake.doFinal(), "split at " + split);
+        }
+    }
+
+    @Test
+    void instanceIsReusableAfterInit() {
+        Blake2b blake = new Blake2b();
+        blake.init(sequence(64), 64).update(sequence(200)).doFinal();
+        assertEquals(hash(null, "abc".getBytes(StandardCharsets.US_ASCII), 64),
+                HEX.formatHex(blake.init(null, 64).update("abc".getBytes(StandardCharsets.US_ASCII)).doFinal()));
+    }
+}
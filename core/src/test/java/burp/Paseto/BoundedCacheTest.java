@@ -0,0 +1,86 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+
+    @Test
+    void neverHoldsMoreThanTheLimit() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(1000);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+            assertTrue(cache.size() <= 1000);
+        }
+        assertEquals(1000, cache.size());
+        assertEquals(9000, cache.evictions());
+    }
+
+    @Test
+    void unusedEntryGoesBeforeUsedOnes() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        assertEquals("a", cache.get(1));
+        cache.put(4, "d");
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void frequentlyUsedKeysSurviveAStreamOfNewKeys() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(4096);
+        for (int i = 0; i < 256; i++) {
+            cache.put(-i - 1, i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(i, i);
+            if (i % 64 == 0) {
+                for (int k = 0; k < 256; k++) {
+                    cache.get(-k - 1);
+                }
+            }
+        }
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i, cache.get(-i - 1));
+        }
+    }
+
+    @Test
+    void concurrentUseKeepsCountsAndLimit() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(512);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = (i * 31 + seed) % 2048;
+                        Integer value = cache.computeIfAbsent(key, k -> k * 2);
+                        assertEquals(key * 2, value);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(8 * 50_000, cache.hits() + cache.misses());
+        assertTrue(cache.size() <= 512);
+    }
+}
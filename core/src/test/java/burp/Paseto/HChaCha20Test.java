@@ -0,0 +1,68 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Known answers from draft-irtf-cfrg-xchacha-03 (sections 2.2.1 and A.3.1). */
+class HChaCha20Test {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static byte[] sequence(int from, int length) {
+        byte[] out = new byte[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = (byte) (from + i);
+        }
+        return out;
+    }
+
+    @Test
+    void subkey() {
+        byte[] nonce = HEX.parseHex("000000090000004a0000000031415927");
+        assertEquals("82413b4227b27bfed30e42508a877d73a0f9e4d58a74a853c12ec41326d3ecdc",
+                HEX.formatHex(HChaCha20.subkey(sequence(0, 32), nonce, 0)));
+    }
+
+    @Test
+    void subkeyAtAnOffset() {
+        byte[] nonce = HEX.parseHex("ffff000000090000004a0000000031415927");
+        assertEquals("82413b4227b27bfed30e42508a877d73a0f9e4d58a74a853c12ec41326d3ecdc",
+                HEX.formatHex(HChaCha20.subkey(sequence(0, 32), nonce, 2)));
+        assertEquals("000000000000000031415927", HEX.formatHex(HChaCha20.ietfNonce(
+                HEX.parseHex("ffff0000000000000000000000000000000000000000000031415927"), 4)));
+    }
+
+    @Test
+    void xChaCha20Poly1305WithTheJdkCipher() throws Exception {
+        byte[] key = sequence(0x80, 32);
+        byte[] nonce = sequence(0x40, 24);
+        byte[] aad = HEX.parseHex("50515253c0c1c2c3c4c5c6c7");
+        byte[] plaintext = ("Ladies and Gentlemen of the class of '99: If I could offer you only one tip for "
+                + "the future, sunscreen would be it.").getBytes(StandardCharsets.US_ASCII);
+        String expected = "bd6d179d3e83d43b9576579493c0e939572a1700252bfaccbed2902c21396cbb"
+                + "731c7f1b0b4aa6440bf3a82f4eda7e39ae64c6708c54c216cb96b72e1213b452"
+                + "2f8c9ba40db5d945b11b69b982c1bb9e3f3fac2bc369488f76b2383565d3fff9"
+                + "21f9664c97637da9768812f615c68b13b52e"
+                + "c0875924c1c7987947deafd8780acf49";
+
+        Cipher cipher = Cipher.getInstance("ChaCha20-Poly1305");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(HChaCha20.subkey(key, nonce, 0), "ChaCha20"),
+                new IvParameterSpec(HChaCha20.ietfNonce(nonce, 0)));
+        cipher.updateAAD(aad);
+        assertEquals(expected, HEX.formatHex(cipher.doFinal(plaintext)));
+
+        cipher = Cipher.getInstance("ChaCha20-Poly1305"); // the JDK refuses a key/nonce pair it just encrypted with
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(HChaCha20.subkey(key, nonce, 0), "ChaCha20"),
+                new IvParameterSpec(HChaCha20.ietfNonce(nonce, 0)));
+        cipher.updateAAD(aad);
+        assertArrayEquals(plaintext, cipher.doFinal(HEX.parseHex(expected)));
+    }
+}
@@ -0,0 +1,153 @@
+package burp.Paseto;
+
+import burp.Paseto.PasetoMutator.Category;
+import burp.Paseto.PasetoMutator.ClaimEdits;
+import burp.Paseto.PasetoMutator.Mutation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasetoMutatorTest {
+
+    private static String publicToken(String json, String footer) {
+        byte[] message = json.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = Arrays.copyOf(message, message.length + 64);
+        Arrays.fill(payload, message.length, payload.length, (byte) 7);
+        return "v4.public." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload)
+                + (footer == null ? "" : "." + footer);
+    }
+
+    private static Mutation find(List<Mutation> mutations, String description) {
+        for (Mutation m : mutations) {
+            if (m.description().equals(description)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> claims(Mutation m) {
+        return MiniJson.parseObject(PasetoDecoder.decode(m.token()).messageText());
+    }
+
+    @Test
+    void variantsAreUniqueAndNeverTheOriginal() {
+        String token = publicToken("{\"sub\":\"alice\",\"exp\":\"2024-01-01T00:00:00+00:00\"}", "e30");
+        List<Mutation> mutations = PasetoMutator.mutate(token);
+        Set<String> tokens = new HashSet<>();
+        for (Mutation m : mutations) {
+            assertTrue(tokens.add(m.token()), m.description());
+            assertFalse(m.token().equals(token), m.description());
+        }
+        Set<Category> categories = new HashSet<>();
+        mutations.forEach(m -> categories.add(m.category()));
+        assertEquals(Set.of(Category.values()), categories);
+    }
+
+    @Test
+    void claimEditsKeepNestedAndEscapedValues() {
+        String json = "{\"sub\":\"al\\\"ice\",\"ctx\":{\"role\":\"user\",\"sub\":\"x\"},\"tags\":[\"a,b\",\"}\"],\"role\":\"user\"}";
+        String token = publicToken(json, null);
+        List<Mutation> mutations = PasetoMutator.mutate(token, ClaimEdits.parse("role=admin; -sub", new ArrayList<>()), 100);
+
+        Map<String, Object> role = claims(find(mutations, "role = admin"));
+        assertEquals("admin", role.get("role"));
+        assertEquals("al\"ice", role.get("sub"));
+        assertEquals(Map.of("role", "user", "sub", "x"), role.get("ctx"));
+        assertEquals(List.of("a,b", "}"), role.get("tags"));
+
+        Map<String, Object> removed = claims(find(mutations, "sub removed"));
+        assertFalse(removed.containsKey("sub"));
+        assertEquals(Map.of("role", "user", "sub", "x"), removed.get("ctx"));
+
+        assertNotNull(find(mutations, "role = admin, sub removed"));
+        byte[] signature = PasetoDecoder.decode(token).signature();
+        assertArrayEquals(signature, PasetoDecoder.decode(find(mutations, "role = admin").token()).signature());
+    }
+
+    @Test
+    void missingClaimIsAddedAndNoOpEditsAreDropped() {
+        String token = publicToken("{\"sub\":\"admin\"}", null);
+        List<Mutation> mutations = PasetoMutator.mutate(token, ClaimEdits.parse("sub=admin,1; role=admin; -exp", new ArrayList<>()), 100);
+        List<String> claimEdits = new ArrayList<>();
+        for (Mutation m : mutations) {
+            if (m.category() == Category.CLAIMS) {
+                claimEdits.add(m.description());
+            }
+        }
+        assertEquals(List.of("sub = 1", "role = admin", "sub = 1, role = admin"), claimEdits);
+        assertEquals(1L, claims(find(mutations, "sub = 1")).get("sub"));
+        assertEquals(Map.of("sub", "admin", "role", "admin"), claims(find(mutations, "role = admin")));
+    }
+
+    @Test
+    void combinationsYieldThousandsOfDistinctVariantsUpToTheLimit() {
+        StringBuilder spec = new StringBuilder();
+        for (String claim : new String[]{"sub", "role", "tenant", "scope"}) {
+            spec.append(claim).append('=');
+            for (int v = 0; v < 9; v++) {
+                spec.append(v == 0 ? "" : ",").append(claim).append(v);
+            }
+            spec.append(';');
+        }
+        ClaimEdits edits = ClaimEdits.parse(spec.toString(), new ArrayList<>());
+        String token = publicToken("{\"sub\":\"alice\"}", null);
+
+        // 10^4 - 1 edited claim sets, plus the structural variants
+        List<Mutation> all = PasetoMutator.mutate(token, edits, 20_000);
+        long claimVariants = all.stream().filter(m -> m.category() == Category.CLAIMS).count();
+        assertEquals(9_999, claimVariants);
+        assertEquals(all.size(), all.stream().map(Mutation::token).distinct().count());
+
+        List<Mutation> capped = PasetoMutator.mutate(token, edits, 1000);
+        assertEquals(1000, capped.size());
+        assertEquals(all.subList(0, 1000), capped);
+    }
+
+    @Test
+    void parseReadsJsonLiteralsAndReportsBadEntries() {
+        List<String> errors = new ArrayList<>();
+        ClaimEdits edits = ClaimEdits.parse(
+                "exp=2099-01-01T00:00:00+00:00; admin=true,1,null,\"1\"; -; nonsense\n-nbf", errors);
+        assertEquals(List.of("2099-01-01T00:00:00+00:00"), edits.values().get("exp"));
+        assertEquals(Arrays.asList(Boolean.TRUE, 1L, null, "1"), edits.values().get("admin"));
+        assertEquals(List.of("nbf"), edits.removals());
+        assertEquals(2, errors.size(), errors.toString());
+    }
+
+    @Test
+    void upperCaseHeaderIgnoresDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            String token = "vi.local.QUJD";
+            assertNotNull(find(PasetoMutator.mutate(token, ClaimEdits.DEFAULT, 100), "upper-case header"));
+            assertTrue(PasetoMutator.mutate(token).stream().anyMatch(m -> m.token().equals("VI.local.QUJD")));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void localTokensGetNoClaimOrSignatureVariants() {
+        String token = "v4.local." + Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[80]);
+        for (Mutation m : PasetoMutator.mutate(token)) {
+            assertFalse(m.category() == Category.CLAIMS || m.category() == Category.SIGNATURE,
+                    m.description());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.interfaces.ECPublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Official vectors from github.com/paseto-standard/test-vectors (v2.json, v3.json, v4.json). */
+class PasetoVerifierTest {
+
+    /** Key of the 2-E-* and 4-E-* vectors. */
+    static final String LOCAL_KEY = "707172737475767778797a7b7c7d7e7f808182838485868788898a8b8c8d8e8f";
+    /** Ed25519 public key of the 2-S-* and 4-S-* vectors. */
+    static final String ED25519_KEY = "1eb9dbbbbc047c03fd70604e0071f0987e16b28b757225c11f00415d0e20b1a2";
+    /** Compressed P-384 public key of the 3-S-* vectors. */
+    static final String P384_KEY = "02fbcb7c69ee1c60579be7a334134878d9c5c5bf35d552dab63c0140397ed14cef637d7720925c44699ea30e72874c72fb";
+
+    static final Instant BEFORE_2019 = Instant.parse("2018-06-01T00:00:00Z");
+    static final Instant BEFORE_2022 = Instant.parse("2021-06-01T00:00:00Z");
+
+    static final String V2_E_1 = "v2.local.97TTOvgwIxNGvV80XKiGZg_kD3tsXM_-qB4dZGHOeN1cTkgQ4PnW8888l802W8d9AvEGnoNBY3BnqHORy8a5cC8aKpbA0En8XELw2yDk2f1sVODyfnDbi6rEGMY3pSfCbLWMM2oHJxvlEl2XbQ";
+    static final String V2_S_1 = "v2.public.eyJkYXRhIjoidGhpcyBpcyBhIHNpZ25lZCBtZXNzYWdlIiwiZXhwIjoiMjAxOS0wMS0wMVQwMDowMDowMCswMDowMCJ9HQr8URrGntTu7Dz9J2IF23d1M7-9lH9xiqdGyJNvzp4angPW5Esc7C5huy_M8I8_DjJK2ZXC2SUYuOFM-Q_5Cw";
+    static final String V3_S_1 = "v3.public.eyJkYXRhIjoidGhpcyBpcyBhIHNpZ25lZCBtZXNzYWdlIiwiZXhwIjoiMjAyMi0wMS0wMVQwMDowMDowMCswMDowMCJ9qqEwwrKHKi5lJ7b9MBKc0G4MGZy0ptUiMv3lAUAaz-JY_zjoqBSIxMxhfAoeNYiSyvfUErj76KOPWm1OeNnBPkTSespeSXDGaDfxeIrl3bRrPEIy7tLwLAIsRzsXkfph";
+    static final String V4_E_1 = "v4.local.AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAQAr68PS4AXe7If_ZgesdkUMvSwscFlAl1pk5HC0e8kApeaqMfGo_7OpBnwJOAbY9V7WU6abu74MmcUE8YWAiaArVI8XJ5hOb_4v9RmDkneN0S92dx0OW4pgy7omxgf3S8c3LlQg";
+    static final String V4_S_1 = "v4.public.eyJkYXRhIjoidGhpcyBpcyBhIHNpZ25lZCBtZXNzYWdlIiwiZXhwIjoiMjAyMi0wMS0wMVQwMDowMDowMCswMDowMCJ9bg_XBBzds8lTZShVlwwKSgeKpLT3yukTw6JUz3W4h_ExsQV-P0V54zemZDcAxFaSeef1QlXEFtkqxT1ciiQEDA";
+    static final String V4_S_2 = "v4.public.eyJkYXRhIjoidGhpcyBpcyBhIHNpZ25lZCBtZXNzYWdlIiwiZXhwIjoiMjAyMi0wMS0wMVQwMDowMDowMCswMDowMCJ9v3Jt8mx_TdM2ceTGoqwrh4yDFn0XsHvvV_D0DtwQxVrJEBMl0F2caAdgnpKlt4p7xBnx1HcO-SPo8FPp214HDw.eyJraWQiOiJ6VmhNaVBCUDlmUmYyc25FY1Q3Z0ZUaW9lQTlDT2NOeTlEZmdMMVc2MGhhTiJ9";
+
+    private static PasetoVerifier verifier(String keys) {
+        List<String> errors = new ArrayList<>();
+        PasetoVerifier verifier = new PasetoVerifier(() -> keys, errors::add);
+        verifier.hasKeys();
+        assertTrue(errors.isEmpty(), errors.toString());
+        return verifier;
+    }
+
+    private static void assertValid(PasetoVerifier verifier, String token, Instant now) {
+        PasetoVerifier.Verification v = verifier.verify(token, now);
+        assertEquals(PasetoVerifier.Status.VALID, v.status(), v.describe());
+    }
+
+    @Test
+    void v2Local() {
+        PasetoVerifier.Verification v = verifier("v2.local:" + LOCAL_KEY).verify(V2_E_1, BEFORE_2019);
+        assertEquals(PasetoVerifier.Status.VALID, v.status(), v.describe());
+        assertEquals("{\"data\":\"this is a signed message\",\"exp\":\"2019-01-01T00:00:00+00:00\"}",
+                new String(v.plaintext(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void v2Public() {
+        assertValid(verifier("v2.public:" + ED25519_KEY), V2_S_1, BEFORE_2019);
+    }
+
+    @Test
+    void v3Public() {
+        assertValid(verifier("v3.public:" + P384_KEY), V3_S_1, BEFORE_2022);
+    }
+
+    @Test
+    void v3PublicWithTheUncompressedKey() {
+        // Same point as P384_KEY; the signed PAE must still use the compressed form
+        PasetoKeyRing ring = PasetoKeyRing.parse("v3.public:" + P384_KEY);
+        ECPublicKey key = (ECPublicKey) ring.verificationKeys().get(0).key();
+        assertEquals(P384_KEY, HexFormat.of().formatHex(ring.verificationKeys().get(0).compressed()));
+        String uncompressed = "04" + coordinate(key.getW().getAffineX()) + coordinate(key.getW().getAffineY());
+        assertValid(verifier("v3.public:" + uncompressed), V3_S_1, BEFORE_2022);
+    }
+
+    private static String coordinate(BigInteger value) {
+        String hex = value.toString(16);
+        return "0".repeat(96 - hex.length()) + hex;
+    }
+
+    @Test
+    void v4Local() {
+        PasetoVerifier.Verification v = verifier("v4.local:" + LOCAL_KEY).verify(V4_E_1, BEFORE_2022);
+        assertEquals(PasetoVerifier.Status.VALID, v.status(), v.describe());
+        assertEquals("{\"data\":\"this is a secret message\",\"exp\":\"2022-01-01T00:00:00+00:00\"}",
+                new String(v.plaintext(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void v4Public() {
+        PasetoVerifier verifier = verifier("v4.public:" + ED25519_KEY);
+        assertValid(verifier, V4_S_1, BEFORE_2022);
+        assertValid(verifier, V4_S_2, BEFORE_2022);
+    }
+
+    @Test
+    void tamperedTokensAreInvalid() {
+        PasetoVerifier verifier = verifier("v2.local:" + LOCAL_KEY + "; v4.local:" + LOCAL_KEY
+                + "; v2.public:" + ED25519_KEY + "; v4.public:" + ED25519_KEY + "; v3.public:" + P384_KEY);
+        for (String token : new String[]{V2_E_1, V2_S_1, V3_S_1, V4_E_1, V4_S_1, V4_S_2}) {
+            assertEquals(PasetoVerifier.Status.VALID, verifier.verify(token, BEFORE_2019).status(), token);
+            // Flip a character of the signature or tag, just before the footer if there is one
+            String[] parts = token.split("\\.");
+            int at = parts[0].length() + parts[1].length() + parts[2].length() - 3;
+            String tampered = token.substring(0, at) + (token.charAt(at) == 'A' ? 'B' : 'A') + token.substring(at + 1);
+            assertEquals(PasetoVerifier.Status.INVALID, verifier.verify(tampered, BEFORE_2019).status(), tampered);
+        }
+        String otherFooter = V4_S_2.substring(0, V4_S_2.lastIndexOf('.') + 1) + "e30";
+        assertEquals(PasetoVerifier.Status.INVALID, verifier.verify(otherFooter, BEFORE_2022).status());
+    }
+
+    @Test
+    void wrongKeyExpiryAndKid() {
+        String otherKey = LOCAL_KEY.replace('7', '6');
+        assertEquals(PasetoVerifier.Status.INVALID, verifier("v4.local:" + otherKey).verify(V4_E_1, BEFORE_2022).status());
+        assertEquals(PasetoVerifier.Status.NO_KEY, verifier("v2.local:" + LOCAL_KEY).verify(V4_E_1, BEFORE_2022).status());
+        assertEquals(PasetoVerifier.Status.EXPIRED,
+                verifier("v4.public:" + ED25519_KEY).verify(V4_S_1, Instant.parse("2022-01-02T00:00:00Z")).status());
+        assertEquals(PasetoVerifier.Status.NO_KEY,
+                verifier("v4.public#other:" + ED25519_KEY).verify(V4_S_2, BEFORE_2022).status());
+        assertValid(verifier("v4.public#zVhMiPBP9fRf2snEcT7gFTioeA9COcNy9DfgL1W60haN:" + ED25519_KEY), V4_S_2, BEFORE_2022);
+    }
+
+    @Test
+    void cachedNeverComputesAndAppliesTheTimeClaims() {
+        assertNull(new PasetoVerifier(() -> "", message -> { }).cached(V4_S_1));
+        PasetoVerifier verifier = verifier("v4.public:" + ED25519_KEY);
+        assertNull(verifier.cached(V4_S_1));
+        assertEquals(PasetoVerifier.Status.VALID, verifier.verify(V4_S_1, BEFORE_2022).status());
+        // Cached while the vector's 2022 expiry has long passed
+        assertEquals(PasetoVerifier.Status.EXPIRED, verifier.cached(V4_S_1).status());
+    }
+
+    @Test
+    void preAuthenticationEncodingSpecExamples() {
+        HexFormat hex = HexFormat.of();
+        assertArrayEquals(hex.parseHex("0000000000000000"), PasetoVerifier.pae());
+        assertArrayEquals(hex.parseHex("01000000000000000000000000000000"), PasetoVerifier.pae(new byte[0]));
+        assertArrayEquals(hex.parseHex("0100000000000000040000000000000074657374"),
+                PasetoVerifier.pae("test".getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,195 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleMatcherTest {
+
+    /** The regex the extension used before the byte scanner. */
+    private static final Pattern PASETO_PATTERN =
+            Pattern.compile("v[0-9]\\.(local|public)\\.[A-Za-z0-9_-]+(?:\\.[A-Za-z0-9_-]+)?");
+
+    private static final String[] FRAGMENTS = {
+            "v", "v4", "v1.", "v2.local", "v4.public.", "v3.local.", "V4.public.", "v10.local.", "vv9.public.",
+            "local", "public", "local.", "public.", "loca", ".", ".", "..", "abc", "Zz09", "_-", "-", "AAAA",
+            " ", "\"", "=", ":", ";", "/", "+", "\r\n", "%2E", "é", "ÿ",
+    };
+
+    private static List<String> regexTokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher m = PASETO_PATTERN.matcher(text);
+        while (m.find()) {
+            tokens.add(m.group());
+        }
+        return tokens;
+    }
+
+    private static List<String> tokens(RuleMatcher matcher, String text, int bodyOffset) {
+        byte[] data = text.getBytes(StandardCharsets.ISO_8859_1);
+        TokenSpans spans = matcher.findAll(data, 0, data.length, bodyOffset);
+        TokenSpans viaByteAt = matcher.findAll(ByteAt.of(data), 0, data.length, bodyOffset);
+        assertEquals(spans.size(), viaByteAt.size(), "byte[] and ByteAt scans disagree on " + text);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < spans.size(); i++) {
+            assertEquals(spans.start(i), viaByteAt.start(i));
+            assertEquals(spans.end(i), viaByteAt.end(i));
+            tokens.add(text.substring(spans.start(i), spans.end(i)));
+        }
+        return tokens;
+    }
+
+    private static List<String> tokens(RuleMatcher matcher, String text) {
+        return tokens(matcher, text, -1);
+    }
+
+    private static RuleMatcher compile(String rules) {
+        List<String> errors = new ArrayList<>();
+        RuleMatcher matcher = RuleMatcher.compile(rules, errors);
+        assertTrue(errors.isEmpty(), errors.toString());
+        return matcher;
+    }
+
+    @Test
+    void defaultRulesMatchTheOldRegexOnARandomCorpus() {
+        Random random = new Random(17);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = 1 + random.nextInt(24);
+            for (int p = 0; p < parts; p++) {
+                if (random.nextInt(8) == 0) {
+                    sb.append((char) random.nextInt(256));
+                } else {
+                    sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                }
+            }
+            String text = sb.toString();
+            assertEquals(regexTokens(text), tokens(RuleMatcher.DEFAULT, text), () -> "corpus text: " + text);
+        }
+    }
+
+    @Test
+    void defaultRulesMatchTheOldRegexOnEveryVersionAndPurpose() {
+        for (int v = 0; v < 10; v++) {
+            for (String purpose : new String[]{"local", "public", "secret", "Local"}) {
+                String text = "x=v" + v + "." + purpose + ".QUJD.RA.more";
+                assertEquals(regexTokens(text), tokens(RuleMatcher.DEFAULT, text), text);
+            }
+        }
+    }
+
+    @Test
+    void trailingDotIsNotPartOfTheToken() {
+        assertEquals(List.of("v4.public.abc"), tokens(RuleMatcher.DEFAULT, "v4.public.abc."));
+        assertEquals(List.of("v4.public.abc.foot"), tokens(RuleMatcher.DEFAULT, "v4.public.abc.foot."));
+        assertEquals(List.of("v4.public.abc"), tokens(RuleMatcher.DEFAULT, "v4.public.abc..foot"));
+        assertEquals(List.of("v4.public.abc.def"), tokens(RuleMatcher.DEFAULT, "v4.public.abc.def.ghi"));
+        assertEquals(List.of(), tokens(RuleMatcher.DEFAULT, "v4.public."));
+        assertEquals(List.of(), tokens(RuleMatcher.DEFAULT, "v4.public.."));
+    }
+
+    @Test
+    void segmentCountLimitsTheBody() {
+        RuleMatcher matcher = compile("paserk = k[1-4].(local|public|secret). segments=1; jwt = eyJ segments=3");
+        assertEquals(List.of("k4.local.abc", "eyJhb.c2.sig"), tokens(matcher, "k4.local.abc.def eyJhb.c2.sig.x"));
+    }
+
+    @Test
+    void tokensNeverOverlapAndScanningResumesAfterEach() {
+        assertEquals(List.of("v1.local.v2.local"), tokens(RuleMatcher.DEFAULT, "v1.local.v2.local.abc"));
+        assertEquals(List.of("v2.local.a", "v4.public.b"), tokens(RuleMatcher.DEFAULT, "v2.local.a v4.public.b"));
+        assertEquals(List.of("v2.local.a-v4.public"), tokens(RuleMatcher.DEFAULT, "v2.local.a-v4.public.b.c"));
+    }
+
+    @Test
+    void overlappingPrefixesAcrossRules() {
+        // A keyword inside another: the failure link still finds the shorter one
+        RuleMatcher matcher = compile("long = xab.; short = ab.");
+        assertEquals(List.of("xab.QQ", "ab.RR"), tokens(matcher, "xab.QQ yab.RR"));
+        // A keyword that is a prefix of another: the shorter completes first and takes the body
+        RuleMatcher nested = compile("outer = tok.; inner = tok.ext.");
+        assertEquals(List.of("tok.ext.abc"), tokens(nested, "tok.ext.abc"));
+        // A failed candidate ("aab." over "aaa") does not hide a match that starts later
+        RuleMatcher shifted = compile("a = aab.; b = ab.");
+        assertEquals(List.of("aab.x"), tokens(shifted, "aaab.x"));
+        assertEquals(List.of("ab.y"), tokens(shifted, "aab..ab.y"));
+    }
+
+    @Test
+    void headerScopeOnlyMatchesInThatHeader() {
+        RuleMatcher matcher = compile("paseto = v[0-9].(local|public). in=header:Authorization");
+        String request = "GET /v4.public.path HTTP/1.1\r\n"
+                + "X-Other: v4.public.other\r\n"
+                + "authorization: Bearer v4.public.auth\r\n"
+                + "\r\n"
+                + "Authorization: v4.public.body";
+        int bodyOffset = request.indexOf("\r\n\r\n") + 4;
+        assertEquals(List.of("v4.public.auth"), tokens(matcher, request, bodyOffset));
+        // Body offset located on demand
+        assertEquals(List.of("v4.public.auth"), tokens(matcher, request, -1));
+    }
+
+    @Test
+    void cookieScopeNeedsTheCookieName() {
+        RuleMatcher matcher = compile("paseto = v[0-9].(local|public). in=cookie:session");
+        String request = "GET / HTTP/1.1\r\n"
+                + "Cookie: theme=v4.public.theme; session=v4.public.sess; xsession=v4.public.x\r\n"
+                + "X-Cookie: session=v4.public.wrongheader\r\n"
+                + "\r\n"
+                + "session=v4.public.body";
+        assertEquals(List.of("v4.public.sess"), tokens(matcher, request, request.indexOf("\r\n\r\n") + 4));
+
+        String response = "HTTP/1.1 200 OK\r\nSet-Cookie: session=v4.local.issued; HttpOnly\r\n\r\n";
+        assertEquals(List.of("v4.local.issued"), tokens(matcher, response, response.length()));
+    }
+
+    @Test
+    void jsonScopeNeedsTheFieldName() {
+        RuleMatcher matcher = compile("paseto = v[0-9].(local|public). in=json:access_token");
+        String body = "{\"access_token\" : \"v4.local.one\",\"refresh_token\":\"v4.local.two\","
+                + "\"xaccess_token\":\"v4.local.three\",\"access_token\":v4.local.four,"
+                + "\"nested\":{\"access_token\":\n\t\"v4.local.five\"}}";
+        assertEquals(List.of("v4.local.one", "v4.local.five"), tokens(matcher, body));
+    }
+
+    @Test
+    void headersAndBodyScopes() {
+        String request = "POST / HTTP/1.1\r\nX-Token: v4.public.head\r\n\r\n{\"t\":\"v4.public.body\"}";
+        int bodyOffset = request.indexOf("\r\n\r\n") + 4;
+        assertEquals(List.of("v4.public.head"), tokens(compile("p = v4.public. in=headers"), request, bodyOffset));
+        assertEquals(List.of("v4.public.body"), tokens(compile("p = v4.public. in=body"), request, bodyOffset));
+        assertEquals(List.of("v4.public.head", "v4.public.body"),
+                tokens(compile("p = v4.public. in=headers,body"), request, bodyOffset));
+    }
+
+    @Test
+    void ruleOverTheStateLimitIsRolledBackAndTheOthersStillWork() {
+        List<String> errors = new ArrayList<>();
+        // 676 ten-byte prefixes that share only their first byte: far more than MAX_STATES nodes
+        RuleMatcher matcher = RuleMatcher.compile(
+                "paseto = v[0-9].(local|public).; big = [a-z][a-z]abcdefgh.; after = tok_.", errors);
+
+        assertEquals(1, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("big") && errors.get(0).contains("too many prefixes"), errors.get(0));
+        assertEquals(List.of("paseto", "after"), matcher.rules().stream().map(DetectionRule::name).toList());
+        assertTrue(matcher.states() <= RuleMatcher.MAX_STATES, matcher.toString());
+        assertEquals(List.of("v4.local.x", "tok_.y"), tokens(matcher, "aaabcdefgh.q v4.local.x zzabcdefgh.w tok_.y"));
+    }
+
+    @Test
+    void invalidRulesFallBackToTheDefault() {
+        List<String> errors = new ArrayList<>();
+        RuleMatcher matcher = RuleMatcher.compile("nonsense", errors);
+        assertEquals(2, errors.size(), errors.toString());
+        assertEquals(DetectionRule.DEFAULT_RULES, matcher.source());
+        assertEquals(List.of("v4.public.abc"), tokens(matcher, "v4.public.abc"));
+    }
+}
@@ -0,0 +1,164 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The audit only reports a key when its own tag derivation agrees with the token's
+ * issuer, so these tokens are built independently: v4 is the official 4-E-1 vector,
+ * v1 and v3 follow the PASETO spec using the JDK's HmacSHA384 and AES/CTR.
+ */
+class WeakKeyAuditTest {
+
+    private static final byte[] MESSAGE =
+            "{\"data\":\"this is a secret message\",\"exp\":\"2022-01-01T00:00:00+00:00\"}".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    private static final WeakKeyAudit.Listener QUIET = new WeakKeyAudit.Listener() {
+        @Override
+        public void progress(long candidates, long bytesDone, long totalBytes, long candidatesPerSecond) {
+        }
+
+        @Override
+        public void finished(WeakKeyAudit.Result result) {
+        }
+    };
+
+    private Path wordlist(String... lines) throws Exception {
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            all.add("decoy" + i);
+        }
+        all.addAll(2_500, List.of(lines));
+        return Files.write(dir.resolve("words.txt"), all);
+    }
+
+    private static WeakKeyAudit.Result audit(String token, Path wordlist, Set<WeakKeyAudit.Derivation> derivations)
+            throws Exception {
+        return new WeakKeyAudit(token, wordlist, derivations, 2).run(QUIET);
+    }
+
+    private static byte[] hmac(byte[] key, byte[]... parts) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA384");
+        mac.init(new SecretKeySpec(key, "HmacSHA384"));
+        for (byte[] part : parts) {
+            mac.update(part);
+        }
+        return mac.doFinal();
+    }
+
+    /** RFC 5869 with one expand block, which covers both lengths PASETO asks for. */
+    private static byte[] hkdf(byte[] salt, byte[] ikm, byte[] info, int length) throws Exception {
+        byte[] prk = hmac(salt.length == 0 ? new byte[48] : salt, ikm);
+        return Arrays.copyOf(hmac(prk, info, new byte[]{1}), length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] aesCtr(byte[] key, byte[] iv, byte[] data) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return cipher.doFinal(data);
+    }
+
+    private static String token(String header, byte[] nonce, byte[] ciphertext, byte[] tag) {
+        return header + Base64.getUrlEncoder().withoutPadding().encodeToString(concat(nonce, ciphertext, tag));
+    }
+
+    /** v1.local encrypt: n = HMAC-SHA384(key = random, m)[0:32], keys by HKDF salted with n[0:16]. */
+    private static String v1Local(byte[] key, byte[] random) throws Exception {
+        byte[] header = "v1.local.".getBytes(StandardCharsets.US_ASCII);
+        byte[] nonce = Arrays.copyOf(hmac(random, MESSAGE), 32);
+        byte[] salt = Arrays.copyOf(nonce, 16);
+        byte[] ek = hkdf(salt, key, "paseto-encryption-key".getBytes(StandardCharsets.US_ASCII), 32);
+        byte[] ak = hkdf(salt, key, "paseto-auth-key-for-aead".getBytes(StandardCharsets.US_ASCII), 32);
+        byte[] c = aesCtr(ek, Arrays.copyOfRange(nonce, 16, 32), MESSAGE);
+        byte[] tag = hmac(ak, PasetoVerifier.pae(header, nonce, c, new byte[0]));
+        return token("v1.local.", nonce, c, tag);
+    }
+
+    /** v3.local encrypt: Ek || n2 and Ak by unsalted HKDF-SHA384 with the nonce in the info. */
+    private static String v3Local(byte[] key, byte[] nonce) throws Exception {
+        byte[] header = "v3.local.".getBytes(StandardCharsets.US_ASCII);
+        byte[] tmp = hkdf(new byte[0], key, concat("paseto-encryption-key".getBytes(StandardCharsets.US_ASCII), nonce), 48);
+        byte[] ak = hkdf(new byte[0], key, concat("paseto-auth-key-for-aead".getBytes(StandardCharsets.US_ASCII), nonce), 48);
+        byte[] c = aesCtr(Arrays.copyOf(tmp, 32), Arrays.copyOfRange(tmp, 32, 48), MESSAGE);
+        byte[] tag = hmac(ak, PasetoVerifier.pae(header, nonce, c, new byte[0], new byte[0]));
+        return token("v3.local.", nonce, c, tag);
+    }
+
+    @Test
+    void v4FindsTheOfficialVectorKeyGivenInHex() throws Exception {
+        Path words = wordlist(PasetoVerifierTest.LOCAL_KEY.toUpperCase(), "not-the-key");
+        WeakKeyAudit.Result result = audit(PasetoVerifierTest.V4_E_1, words, EnumSet.allOf(WeakKeyAudit.Derivation.class));
+        assertTrue(result.found(), String.valueOf(result));
+        assertEquals(WeakKeyAudit.Derivation.HEX, result.derivation());
+        assertEquals("v4.local:" + PasetoVerifierTest.LOCAL_KEY, result.keyEntry());
+    }
+
+    @Test
+    void v3FindsASha256DerivedKey() throws Exception {
+        byte[] key = MessageDigest.getInstance("SHA-256").digest("correct horse".getBytes(StandardCharsets.UTF_8));
+        byte[] nonce = HexFormat.of().parseHex("26f7553354482a1d91d4784627854b8da6b8042a7966523c2b404e8dbbe7f7f2");
+        String token = v3Local(key, nonce);
+
+        WeakKeyAudit.Result result = audit(token, wordlist("correct horse"), EnumSet.of(WeakKeyAudit.Derivation.SHA256));
+        assertTrue(result.found(), String.valueOf(result));
+        assertEquals("correct horse", result.secret());
+        assertArrayEquals(key, result.key());
+        assertEquals("v3.local", result.header());
+    }
+
+    @Test
+    void v1FindsAZeroPaddedRawKey() throws Exception {
+        byte[] key = Arrays.copyOf("hunter2".getBytes(StandardCharsets.US_ASCII), 32);
+        String token = v1Local(key, new byte[32]);
+
+        WeakKeyAudit.Result result = audit(token, wordlist("hunter2"), EnumSet.of(WeakKeyAudit.Derivation.RAW));
+        assertTrue(result.found(), String.valueOf(result));
+        assertEquals("hunter2", result.secret());
+        assertEquals(WeakKeyAudit.Derivation.RAW, result.derivation());
+    }
+
+    @Test
+    void exhaustsTheListWhenNoLineMatches() throws Exception {
+        byte[] key = MessageDigest.getInstance("SHA-256").digest("elsewhere".getBytes(StandardCharsets.UTF_8));
+        String token = v3Local(key, new byte[32]);
+
+        WeakKeyAudit.Result result = audit(token, wordlist("correct horse"), EnumSet.allOf(WeakKeyAudit.Derivation.class));
+        assertFalse(result.found());
+        assertFalse(result.cancelled());
+        // RAW and SHA256 for every line; HEX only applies to 64-character lines
+        assertEquals(2 * 5_001, result.candidates());
+    }
+}
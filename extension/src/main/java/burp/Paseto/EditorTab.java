@@ -0,0 +1,185 @@
+package burp.Paseto;
+
+import burp.api.montoya.BurpExtension;
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.ui.settings.SettingsPanelBuilder;
+import burp.api.montoya.ui.settings.SettingsPanelPersistence;
+import burp.api.montoya.ui.settings.SettingsPanelSetting;
+import burp.api.montoya.ui.settings.SettingsPanelWithData;
+
+import javax.swing.*;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.Properties;
+
+public class EditorTab implements BurpExtension {
+    private SettingsPanelWithData settings;
+    private ExtensionConfig config;
+
+    @Override
+    public void initialize(MontoyaApi api) {
+        api.extension().setName("PasetoToken");
+
+        logHeader(api);
+        setupSettings(api);
+        registerHandlers(api);
+    }
+
+    /**
+     * Logs the extension metadata in a clean, formatted header.
+     */
+    private void logHeader(MontoyaApi api) {
+        api.logging().logToOutput("====================================================");
+        api.logging().logToOutput(" Project Information");
+        api.logging().logToOutput("====================================================");
+        api.logging().logToOutput(" Author       : Philipp Röder");
+        api.logging().logToOutput(" Contributors : Sebastian Vetter, Kartik Rastogi");
+        api.logging().logToOutput(" Version      : " + loadVersion(api));
+        api.logging().logToOutput("====================================================");
+        api.logging().logToOutput(" Further logging below on found token...");
+        api.logging().logToOutput("====================================================");
+    }
+
+    /**
+     * Builds and registers the settings panel for the extension.
+     */
+    private void setupSettings(MontoyaApi api) {
+        settings = SettingsPanelBuilder.settingsPanel()
+                .withPersistence(SettingsPanelPersistence.USER_SETTINGS)
+                .withTitle("Paseto Token Settings")
+                .withDescription("Toggle request marking, response token harvesting and metrics logging; batch replay limits. "
+                        + "WebSocket frames are scanned up to webSocketScanLimitKb per frame (0 = off). "
+                        + "Verification keys: entries like v4.public:<hex> or v4.local#kid:<hex>, separated by ';'. "
+                        + "Detection rules: 'name = prefix [segments=N] [in=header:X,cookie:x,json:x,headers,body]' "
+                        + "separated by ';', e.g. 'paserk = k[1-4].(local|public|secret). segments=1'. "
+                        + "Mutation claims: 'claim=value[,value...]' or '-claim' separated by ';', "
+                        + "tried one at a time and then combined. "
+                        + "Changes apply within a second.")
+                .withSettings(
+                        SettingsPanelSetting.booleanSetting("markRequests", false),
+                        SettingsPanelSetting.booleanSetting("scanResponses", false),
+                        SettingsPanelSetting.integerSetting("responseScanLimitKb", 1024),
+                        SettingsPanelSetting.integerSetting("webSocketScanLimitKb", 16),
+                        SettingsPanelSetting.booleanSetting("logMetrics", false),
+                        SettingsPanelSetting.integerSetting("replayConcurrency", 8),
+                        SettingsPanelSetting.integerSetting("replayRatePerHost", 10),
+                        SettingsPanelSetting.stringSetting("verificationKeys", ""),
+                        SettingsPanelSetting.stringSetting("detectionRules", DetectionRule.DEFAULT_RULES),
+                        SettingsPanelSetting.stringSetting("mutationClaims", PasetoMutator.ClaimEdits.DEFAULT_SPEC)
+                )
+                .build();
+
+        api.userInterface().registerSettingsPanel(settings);
+        // Handlers read this snapshot instead of the panel on every request
+        config = new ExtensionConfig(settings, api.logging()::logToOutput);
+        config.start();
+        api.extension().registerUnloadingHandler(config::stop);
+    }
+
+    /**
+     * Registers HTTP, Proxy, WebSocket and Context Menu handlers.
+     */
+    private void registerHandlers(MontoyaApi api) {
+        // Shared so a proxied request is scanned once, not once per handler
+        ScanCache scanCache = new ScanCache(ScanCache.DEFAULT_MAX_ENTRIES);
+        TokenInventory inventory = new TokenInventory();
+        AnalysisPipeline pipeline = new AnalysisPipeline();
+        pipeline.addStage(batch -> {
+            List<TokenSighting> issued = new ArrayList<>();
+            inventory.recordAll(batch, sighting -> {
+                if (sighting.source() == TokenSighting.Source.RESPONSE) {
+                    issued.add(sighting);
+                }
+            });
+            for (TokenSighting sighting : issued) {
+                api.logging().logToOutput("[+] PASETO token issued by " + sighting.host() + ": " + sighting.token());
+            }
+        });
+        // Signature checks and decryption run here, not on the proxy thread; the handlers
+        // label later sightings of a token from the verifier's cache
+        PasetoVerifier verifier = new PasetoVerifier(() -> config.current().verificationKeys(),
+                api.logging()::logToError);
+        pipeline.addStage(batch -> {
+            if (verifier.hasKeys()) {
+                for (TokenSighting sighting : batch) {
+                    verifier.verify(sighting.token());
+                }
+            }
+        });
+        api.extension().registerUnloadingHandler(pipeline::shutdown);
+        ExtensionMetrics metrics = new ExtensionMetrics(scanCache, pipeline);
+        startMetricsSummary(api, metrics);
+        HttpHandlerPaseto handler = new HttpHandlerPaseto(config, api, scanCache, pipeline, metrics);
+        // Restores the previous session's inventory and pending edits in the background
+        InventoryStore store = new InventoryStore(api, inventory, handler.pendingEdits());
+        store.start();
+        api.extension().registerUnloadingHandler(store::close);
+
+        HistoryScanner historyScanner = new HistoryScanner(api, inventory, config);
+        InventoryTab inventoryTab = new InventoryTab(inventory, historyScanner);
+        MetricsPanel metricsPanel = new MetricsPanel(metrics);
+        JTabbedPane suiteTab = new JTabbedPane();
+        suiteTab.addTab("Inventory", inventoryTab);
+        suiteTab.addTab("Metrics", metricsPanel);
+        api.userInterface().registerSuiteTab("PASETO", suiteTab);
+        api.extension().registerUnloadingHandler(() -> {
+            historyScanner.cancel();
+            inventoryTab.dispose();
+            metricsPanel.dispose();
+        });
+
+        api.proxy().registerRequestHandler(new PasetoProxyHandler(config, api, scanCache, pipeline, metrics, verifier));
+        api.proxy().registerWebSocketCreationHandler(new PasetoWebSocketHandler(config, pipeline, metrics, verifier));
+        api.userInterface().registerContextMenuItemsProvider(new PasetoContextMenu(api, handler, config, verifier));
+        PasetoEditorProvider editors = new PasetoEditorProvider(scanCache, config, verifier);
+        api.userInterface().registerHttpRequestEditorProvider(editors);
+        api.userInterface().registerHttpResponseEditorProvider(editors);
+        api.extension().registerUnloadingHandler(editors::shutdown);
+        api.http().registerHttpHandler(handler);
+    }
+
+    /**
+     * Logs a one-line metrics summary once a minute while "logMetrics" is enabled
+     * and there was traffic since the last line.
+     */
+    private void startMetricsSummary(MontoyaApi api, ExtensionMetrics metrics) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "paseto-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        long[] lastActivity = { -1 };
+        timer.scheduleAtFixedRate(() -> {
+            long activity = metrics.activity();
+            if (activity != lastActivity[0] && config.current().logMetrics()) {
+                api.logging().logToOutput(metrics.summaryLine());
+            }
+            lastActivity[0] = activity;
+        }, 60, 60, TimeUnit.SECONDS);
+        api.extension().registerUnloadingHandler(timer::shutdownNow);
+    }
+
+    /**
+     * Loads the extension version from version.properties.
+     * Falls back to "Unknown" if not found or invalid.
+     */
+    private String loadVersion(MontoyaApi api) {
+        try (InputStream input = getClass().getClassLoader().getResourceAsStream("version.properties")) {
+            if (input != null) {
+                Properties props = new Properties();
+                props.load(input);
+                return props.getProperty("version", "Unknown");
+            } else {
+                api.logging().logToOutput("[!] version.properties not found – using fallback.");
+                return "Unknown";
+            }
+        } catch (Exception e) {
+            api.logging().logToOutput("[!] Failed to load version.properties: " + e.getMessage());
+            return "Unknown";
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package burp.Paseto;
+
+import burp.api.montoya.ui.settings.SettingsPanelWithData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Hot-reloaded view of the settings panel.
+ *
+ * Handlers call {@link #current()} once per message and read everything from the
+ * returned {@link Snapshot}, so a request never mixes old and new values and the
+ * settings store is not touched on the hot path. A daemon thread polls the panel
+ * once a second and publishes a new snapshot only when something changed; the
+ * detection rules are recompiled only when their text changed.
+ */
+public class ExtensionConfig {
+
+    static final long POLL_MILLIS = 1000;
+
+    /**
+     * Immutable settings snapshot; {@code rules} is the compiled "detectionRules" setting,
+     * {@code mutationClaims} the parsed "mutationClaims" setting.
+     */
+    public record Snapshot(boolean markRequests, boolean scanResponses, int responseScanLimitKb,
+                           int webSocketScanLimitKb, boolean logMetrics, int replayConcurrency, int replayRatePerHost,
+                           String verificationKeys, RuleMatcher rules, PasetoMutator.ClaimEdits mutationClaims) {
+
+        public static final Snapshot DEFAULTS = new Snapshot(false, false, 1024, 16, false, 8, 10, "", RuleMatcher.DEFAULT,
+                PasetoMutator.ClaimEdits.DEFAULT);
+
+        public int responseScanLimitBytes() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, responseScanLimitKb) * 1024L);
+        }
+
+        /** Bytes (characters for text frames) scanned per WebSocket frame; 0 turns WebSocket scanning off. */
+        public int webSocketScanLimitBytes() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, webSocketScanLimitKb) * 1024L);
+        }
+
+        boolean sameSettings(Snapshot o) {
+            return markRequests == o.markRequests && scanResponses == o.scanResponses
+                    && responseScanLimitKb == o.responseScanLimitKb && webSocketScanLimitKb == o.webSocketScanLimitKb
+                    && logMetrics == o.logMetrics
+                    && replayConcurrency == o.replayConcurrency && replayRatePerHost == o.replayRatePerHost
+                    && Objects.equals(verificationKeys, o.verificationKeys)
+                    && rules == o.rules && mutationClaims == o.mutationClaims;
+        }
+    }
+
+    private final SettingsPanelWithData settings;
+    private final Consumer<String> log;
+    private final AtomicReference<Snapshot> current;
+    private ScheduledExecutorService poller;
+    /** Rule text the current matcher was compiled from (the matcher's own source may be the fallback). */
+    private String ruleText;
+    private String mutationText;
+
+    public ExtensionConfig(SettingsPanelWithData settings, Consumer<String> log) {
+        this.settings = settings;
+        this.log = log;
+        this.current = new AtomicReference<>(Snapshot.DEFAULTS);
+        reload();
+    }
+
+    /** The latest published snapshot. */
+    public Snapshot current() {
+        return current.get();
+    }
+
+    /** Starts polling the settings panel for changes. */
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "paseto-settings");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.accept("[!] Reading settings failed: " + e.getMessage());
+            }
+        }, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /** Reads the panel and publishes a new snapshot if anything changed; returns the current one. */
+    public synchronized Snapshot reload() {
+        Snapshot previous = current.get();
+        String text = settings.getString("detectionRules");
+        RuleMatcher rules = previous.rules();
+        if (!Objects.equals(text, ruleText)) {
+            // Compiled once per edit; errors are logged once, invalid rules are skipped
+            List<String> errors = new ArrayList<>();
+            rules = RuleMatcher.compile(text, errors);
+            for (String error : errors) {
+                log.accept("[!] Detection rules: " + error);
+            }
+            ruleText = text;
+            log.accept("[*] Detection rules: " + rules.rules().size() + " active (" + rules.states() + " matcher states)");
+        }
+        String claimText = settings.getString("mutationClaims");
+        PasetoMutator.ClaimEdits mutationClaims = previous.mutationClaims();
+        if (!Objects.equals(claimText, mutationText)) {
+            List<String> errors = new ArrayList<>();
+            mutationClaims = PasetoMutator.ClaimEdits.parse(claimText, errors);
+            for (String error : errors) {
+                log.accept("[!] Mutation claims: " + error);
+            }
+            mutationText = claimText;
+        }
+        Snapshot next = new Snapshot(
+                settings.getBoolean("markRequests"),
+                settings.getBoolean("scanResponses"),
+                settings.getInteger("responseScanLimitKb"),
+                settings.getInteger("webSocketScanLimitKb"),
+                settings.getBoolean("logMetrics"),
+                settings.getInteger("replayConcurrency"),
+                settings.getInteger("replayRatePerHost"),
+                settings.getString("verificationKeys"),
+                rules,
+                mutationClaims);
+        if (next.sameSettings(previous)) {
+            return previous;
+        }
+        current.compareAndSet(previous, next);
+        return current.get();
+    }
+}
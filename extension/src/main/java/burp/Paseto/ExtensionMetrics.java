@@ -0,0 +1,189 @@
+package burp.Paseto;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot-path counters and latency histograms for the handlers.
+ *
+ * Everything is striped ({@link LongAdder}, {@link LatencyHistogram}) so recording
+ * from many Burp threads costs a few nanoseconds and never contends on a lock.
+ * Also pulls in the counters of the {@link ScanCache} and {@link AnalysisPipeline}
+ * so one summary / JSON export covers the whole extension.
+ */
+public class ExtensionMetrics {
+
+    final LongAdder proxyRequests = new LongAdder();
+    final LongAdder httpRequests = new LongAdder();
+    final LongAdder tokensFound = new LongAdder();
+    final LongAdder pendingEditHits = new LongAdder();
+    final LongAdder pendingEditMisses = new LongAdder();
+    final LongAdder responsesScanned = new LongAdder();
+    final LongAdder responseBytesScanned = new LongAdder();
+    final LongAdder responseTokens = new LongAdder();
+    final LongAdder webSocketFrames = new LongAdder();
+    final LongAdder webSocketBytesScanned = new LongAdder();
+    final LongAdder webSocketBytesSkipped = new LongAdder();
+    final LongAdder webSocketTokens = new LongAdder();
+
+    final LatencyHistogram proxyLatency = new LatencyHistogram();
+    final LatencyHistogram httpLatency = new LatencyHistogram();
+    final LatencyHistogram responseLatency = new LatencyHistogram();
+    final LatencyHistogram webSocketLatency = new LatencyHistogram();
+
+    private final ScanCache scanCache;
+    private final AnalysisPipeline pipeline;
+    private final long startedAt = System.currentTimeMillis();
+
+    public ExtensionMetrics(ScanCache scanCache, AnalysisPipeline pipeline) {
+        this.scanCache = scanCache;
+        this.pipeline = pipeline;
+    }
+
+    //------------------------------------------------------------------
+    // Recording
+    //------------------------------------------------------------------
+    public void recordProxyRequest(int tokens, long nanos) {
+        proxyRequests.increment();
+        tokensFound.add(tokens);
+        proxyLatency.record(nanos);
+    }
+
+    public void recordHttpRequest(long nanos) {
+        httpRequests.increment();
+        httpLatency.record(nanos);
+    }
+
+    public void recordPendingEdit(boolean hit) {
+        (hit ? pendingEditHits : pendingEditMisses).increment();
+    }
+
+    public void recordResponse(int tokens, long nanos) {
+        responsesScanned.increment();
+        responseTokens.add(tokens);
+        responseLatency.record(nanos);
+    }
+
+    /** One WebSocket frame: {@code scanned} bytes run through the scanner, {@code skipped} over the budget. */
+    public void recordWebSocketFrame(int tokens, long scanned, long skipped, long nanos) {
+        webSocketFrames.increment();
+        webSocketBytesScanned.add(scanned);
+        webSocketBytesSkipped.add(skipped);
+        webSocketTokens.add(tokens);
+        webSocketLatency.record(nanos);
+    }
+
+    /** Counter the response harvester adds its scanned byte count to. */
+    public LongAdder responseBytesScanned() {
+        return responseBytesScanned;
+    }
+
+    /** Total of all recorded events; cheap way for reporters to notice activity. */
+    public long activity() {
+        return proxyRequests.sum() + httpRequests.sum() + responsesScanned.sum() + webSocketFrames.sum();
+    }
+
+    public void reset() {
+        for (LongAdder a : new LongAdder[]{proxyRequests, httpRequests, tokensFound, pendingEditHits,
+                pendingEditMisses, responsesScanned, responseBytesScanned, responseTokens, webSocketFrames,
+                webSocketBytesScanned, webSocketBytesSkipped, webSocketTokens}) {
+            a.reset();
+        }
+        proxyLatency.reset();
+        httpLatency.reset();
+        responseLatency.reset();
+        webSocketLatency.reset();
+    }
+
+    //------------------------------------------------------------------
+    // Reporting
+    //------------------------------------------------------------------
+
+    /** One line for the extension output, e.g. on a timer. */
+    public String summaryLine() {
+        return String.format(Locale.ROOT,
+                "[metrics] proxy=%d (p50 %s, p99 %s) http=%d (p99 %s) tokens=%d bytes=%d cache hit/miss=%d/%d"
+                        + " edits hit/miss=%d/%d responses=%d ws frames=%d pipeline accepted/dropped=%d/%d",
+                proxyRequests.sum(), micros(proxyLatency.percentileNanos(50)), micros(proxyLatency.percentileNanos(99)),
+                httpRequests.sum(), micros(httpLatency.percentileNanos(99)),
+                tokensFound.sum(), scanCache.bytesScanned(), scanCache.hits(), scanCache.misses(),
+                pendingEditHits.sum(), pendingEditMisses.sum(), responsesScanned.sum(), webSocketFrames.sum(),
+                pipeline.accepted(), pipeline.dropped() + pipeline.sampledOut());
+    }
+
+    /** Multi-line, human readable view for the metrics panel. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Uptime              : %d s%n", (System.currentTimeMillis() - startedAt) / 1000));
+        sb.append(String.format(Locale.ROOT, "Proxy requests      : %d%n", proxyRequests.sum()));
+        sb.append(String.format(Locale.ROOT, "HTTP requests       : %d%n", httpRequests.sum()));
+        sb.append(String.format(Locale.ROOT, "Tokens found        : %d%n", tokensFound.sum()));
+        sb.append(String.format(Locale.ROOT, "Bytes scanned       : %d (fingerprinted %d)%n", scanCache.bytesScanned(), scanCache.bytesFingerprinted()));
+        sb.append(String.format(Locale.ROOT, "Scan cache          : %d hits / %d misses / %d evictions%n", scanCache.hits(), scanCache.misses(), scanCache.evictions()));
+        sb.append(String.format(Locale.ROOT, "Pending edits       : %d hits / %d misses%n", pendingEditHits.sum(), pendingEditMisses.sum()));
+        sb.append(String.format(Locale.ROOT, "Responses scanned   : %d (%d bytes, %d tokens)%n", responsesScanned.sum(), responseBytesScanned.sum(), responseTokens.sum()));
+        sb.append(String.format(Locale.ROOT, "WebSocket frames    : %d (%d bytes, %d over budget, %d tokens)%n",
+                webSocketFrames.sum(), webSocketBytesScanned.sum(), webSocketBytesSkipped.sum(), webSocketTokens.sum()));
+        sb.append(String.format(Locale.ROOT, "Pipeline            : %d accepted / %d sampled out / %d dropped / %d queued%n",
+                pipeline.accepted(), pipeline.sampledOut(), pipeline.dropped(), pipeline.queued()));
+        sb.append(String.format(Locale.ROOT, "%nLatency              count      mean       p50       p90       p99     p99.9%n"));
+        appendLatency(sb, "proxy request", proxyLatency);
+        appendLatency(sb, "http request", httpLatency);
+        appendLatency(sb, "response scan", responseLatency);
+        appendLatency(sb, "websocket frame", webSocketLatency);
+        return sb.toString();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"timestamp\":").append(System.currentTimeMillis());
+        sb.append(",\"proxyRequests\":").append(proxyRequests.sum());
+        sb.append(",\"httpRequests\":").append(httpRequests.sum());
+        sb.append(",\"tokensFound\":").append(tokensFound.sum());
+        sb.append(",\"bytesScanned\":").append(scanCache.bytesScanned());
+        sb.append(",\"bytesFingerprinted\":").append(scanCache.bytesFingerprinted());
+        sb.append(",\"scanCache\":{\"hits\":").append(scanCache.hits())
+                .append(",\"misses\":").append(scanCache.misses())
+                .append(",\"evictions\":").append(scanCache.evictions())
+                .append(",\"size\":").append(scanCache.size()).append('}');
+        sb.append(",\"pendingEdits\":{\"hits\":").append(pendingEditHits.sum())
+                .append(",\"misses\":").append(pendingEditMisses.sum()).append('}');
+        sb.append(",\"responses\":{\"scanned\":").append(responsesScanned.sum())
+                .append(",\"bytes\":").append(responseBytesScanned.sum())
+                .append(",\"tokens\":").append(responseTokens.sum()).append('}');
+        sb.append(",\"webSocket\":{\"frames\":").append(webSocketFrames.sum())
+                .append(",\"bytes\":").append(webSocketBytesScanned.sum())
+                .append(",\"skippedBytes\":").append(webSocketBytesSkipped.sum())
+                .append(",\"tokens\":").append(webSocketTokens.sum()).append('}');
+        sb.append(",\"pipeline\":{\"accepted\":").append(pipeline.accepted())
+                .append(",\"sampledOut\":").append(pipeline.sampledOut())
+                .append(",\"dropped\":").append(pipeline.dropped())
+                .append(",\"failed\":").append(pipeline.failed())
+                .append(",\"queued\":").append(pipeline.queued()).append('}');
+        sb.append(",\"latencyNanos\":{");
+        appendLatencyJson(sb, "proxyRequest", proxyLatency).append(',');
+        appendLatencyJson(sb, "httpRequest", httpLatency).append(',');
+        appendLatencyJson(sb, "responseScan", responseLatency).append(',');
+        appendLatencyJson(sb, "webSocketFrame", webSocketLatency);
+        return sb.append("}}").toString();
+    }
+
+    private static void appendLatency(StringBuilder sb, String name, LatencyHistogram h) {
+        sb.append(String.format(Locale.ROOT, "%-15s %10d %9s %9s %9s %9s %9s%n", name, h.count(), micros(h.meanNanos()),
+                micros(h.percentileNanos(50)), micros(h.percentileNanos(90)), micros(h.percentileNanos(99)),
+                micros(h.percentileNanos(99.9))));
+    }
+
+    private static StringBuilder appendLatencyJson(StringBuilder sb, String name, LatencyHistogram h) {
+        return sb.append('"').append(name).append("\":{\"count\":").append(h.count())
+                .append(",\"mean\":").append(h.meanNanos())
+                .append(",\"p50\":").append(h.percentileNanos(50))
+                .append(",\"p90\":").append(h.percentileNanos(90))
+                .append(",\"p99\":").append(h.percentileNanos(99))
+                .append(",\"p999\":").append(h.percentileNanos(99.9)).append('}');
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1fus", nanos / 1000.0);
+    }
+}
@@ -0,0 +1,256 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.persistence.PersistedObject;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk "Scan history for PASETO": runs the detection rules over Proxy history in
+ * parallel, annotates matching items and adds their tokens to the inventory.
+ *
+ * Work is split into fixed-size chunks of history items on a dedicated fork-join
+ * pool. The last item of the fully processed leading chunks is kept as a checkpoint
+ * in the project's extension data (its time plus a fingerprint of its request, not
+ * its index, since deleting history items shifts indices), so the next run only
+ * scans entries added after it. A run can be cancelled; finished chunks before the
+ * first unfinished one still advance the checkpoint.
+ */
+public class HistoryScanner {
+
+    static final int CHUNK_SIZE = 256;
+    static final String CHECKPOINT_KEY = "historyScanMarker";
+    /** Index-based checkpoint of earlier versions; ignored and removed. */
+    static final String LEGACY_CHECKPOINT_KEY = "historyScanCheckpoint";
+
+    /** Progress callbacks; invoked from pool threads. */
+    public interface Listener {
+        void progress(int done, int total);
+
+        void finished(Result result);
+    }
+
+    public record Result(int scanned, int matched, int tokens, boolean cancelled, int checkpoint) {
+    }
+
+    private final MontoyaApi api;
+    private final TokenInventory inventory;
+    private final ExtensionConfig config;
+    private volatile boolean cancelled;
+    private volatile boolean running;
+
+    public HistoryScanner(MontoyaApi api, TokenInventory inventory, ExtensionConfig config) {
+        this.api = api;
+        this.inventory = inventory;
+        this.config = config;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Forgets the checkpoint so the next run scans the whole history again. */
+    public void resetCheckpoint() {
+        api.persistence().extensionData().deleteString(CHECKPOINT_KEY);
+        api.persistence().extensionData().deleteInteger(LEGACY_CHECKPOINT_KEY);
+    }
+
+    /** Starts a background run unless one is already in progress; returns false in that case. */
+    public synchronized boolean start(Listener listener) {
+        if (running) {
+            return false;
+        }
+        running = true;
+        cancelled = false;
+        Thread t = new Thread(() -> {
+            try {
+                listener.finished(run(listener));
+            } catch (RuntimeException e) {
+                api.logging().logToError("[!] History scan failed: " + e);
+                listener.finished(new Result(0, 0, 0, true, 0));
+            } finally {
+                running = false;
+            }
+        }, "paseto-history-scan");
+        t.setDaemon(true);
+        t.start();
+        return true;
+    }
+
+    private Result run(Listener listener) {
+        List<ProxyHttpRequestResponse> history = api.proxy().history();
+        Marker marker = Marker.parse(api.persistence().extensionData().getString(CHECKPOINT_KEY));
+        int from = marker == null ? 0 : marker.resumeIndex(history);
+        int total = history.size() - from;
+        RuleMatcher rules = config.current().rules(); // one rule set for the whole run
+        int chunks = (total + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        BitSet doneChunks = new BitSet(chunks);
+        AtomicInteger scanned = new AtomicInteger();
+        AtomicInteger matched = new AtomicInteger();
+        AtomicInteger tokens = new AtomicInteger();
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        try {
+            final int base = from;
+            pool.invoke(new ChunkTask(0, chunks, chunk -> {
+                int start = base + chunk * CHUNK_SIZE;
+                int end = Math.min(history.size(), start + CHUNK_SIZE);
+                List<TokenSighting> sightings = new ArrayList<>();
+                for (int i = start; i < end && !cancelled; i++) {
+                    int found = scanItem(history.get(i), rules, sightings);
+                    if (found > 0) {
+                        matched.incrementAndGet();
+                        tokens.addAndGet(found);
+                    }
+                    listener.progress(scanned.incrementAndGet(), total);
+                }
+                if (!sightings.isEmpty()) {
+                    inventory.recordAll(sightings, s -> { });
+                }
+                if (!cancelled) {
+                    synchronized (doneChunks) {
+                        doneChunks.set(chunk);
+                    }
+                }
+            }));
+        } finally {
+            pool.shutdown();
+        }
+
+        int completedPrefix;
+        synchronized (doneChunks) {
+            completedPrefix = doneChunks.nextClearBit(0);
+        }
+        int checkpoint = Math.min(history.size(), from + completedPrefix * CHUNK_SIZE);
+        if (checkpoint > from) {
+            PersistedObject data = api.persistence().extensionData();
+            data.setString(CHECKPOINT_KEY, Marker.of(history.get(checkpoint - 1)).toString());
+            data.deleteInteger(LEGACY_CHECKPOINT_KEY);
+        }
+        return new Result(scanned.get(), matched.get(), tokens.get(), cancelled, checkpoint);
+    }
+
+    private int scanItem(ProxyHttpRequestResponse item, RuleMatcher rules, List<TokenSighting> sightings) {
+        ByteArray raw = item.request().toByteArray();
+        TokenSpans spans = HttpTokens.findAll(rules, raw, -1);
+        if (spans.isEmpty()) {
+            return 0;
+        }
+        long time = item.time() == null ? System.currentTimeMillis() : item.time().toInstant().toEpochMilli();
+        String host = item.request().httpService().host();
+        for (int i = 0; i < spans.size(); i++) {
+            String token = HttpTokens.tokenAt(raw, spans.start(i), spans.end(i));
+            sightings.add(new TokenSighting(token, host, time, TokenSighting.Source.HISTORY));
+        }
+        Annotations annotations = item.annotations();
+        annotations.setHighlightColor(HighlightColor.GREEN);
+        if (!annotations.hasNotes()) {
+            annotations.setNotes("PASETO (" + spans.size() + ")");
+        }
+        return spans.size();
+    }
+
+    /**
+     * Identity of the last checkpointed history item: its time (-1 if unknown) and the
+     * fingerprint of its request, stored as {@code time:length:hash}.
+     */
+    record Marker(long time, ScanCache.Fingerprint fingerprint) {
+
+        static Marker of(ProxyHttpRequestResponse item) {
+            return new Marker(time(item), ScanCache.Fingerprint.of(item.request().toByteArray()));
+        }
+
+        /** Null if {@code value} is missing or not a marker. */
+        static Marker parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            String[] parts = value.split(":");
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new Marker(Long.parseLong(parts[0]),
+                        new ScanCache.Fingerprint(Integer.parseInt(parts[1]), Long.parseUnsignedLong(parts[2], 16)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Index of the first item after the marked one. History is in capture order,
+         * so the search walks back from the end and stops at the first older item. If
+         * the marked item was deleted, scanning resumes after the last older item, so
+         * items from the same millisecond are scanned again rather than skipped.
+         */
+        int resumeIndex(List<ProxyHttpRequestResponse> history) {
+            for (int i = history.size() - 1; i >= 0; i--) {
+                ProxyHttpRequestResponse item = history.get(i);
+                long t = time(item);
+                if (t == time && ScanCache.Fingerprint.of(item.request().toByteArray()).equals(fingerprint)) {
+                    return i + 1;
+                }
+                if (t >= 0 && t < time) {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+
+        private static long time(ProxyHttpRequestResponse item) {
+            return item.time() == null ? -1 : item.time().toInstant().toEpochMilli();
+        }
+
+        @Override
+        public String toString() {
+            return time + ":" + fingerprint.length() + ":" + Long.toHexString(fingerprint.hash());
+        }
+    }
+
+    //------------------------------------------------------------------
+    // Fork-join split over chunk indices
+    //------------------------------------------------------------------
+    private interface ChunkWork {
+        void scan(int chunk);
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final ChunkWork work;
+
+        ChunkTask(int from, int to, ChunkWork work) {
+            this.from = from;
+            this.to = to;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+            if (to - from <= 1) {
+                if (from < to) {
+                    work.scan(from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, work), new ChunkTask(mid, to, work));
+        }
+    }
+}
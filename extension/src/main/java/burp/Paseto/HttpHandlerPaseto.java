@@ -0,0 +1,101 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.http.handler.*;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.List;
+
+
+
+public class HttpHandlerPaseto implements HttpHandler {
+
+
+    private final PendingEdits pendingEdits = new PendingEdits();
+    private final ExtensionConfig config;
+    private final MontoyaApi api;
+    private final ScanCache scanCache;
+    private final AnalysisPipeline pipeline;
+    private final ExtensionMetrics metrics;
+
+    public HttpHandlerPaseto(ExtensionConfig config,  MontoyaApi api, ScanCache scanCache, AnalysisPipeline pipeline,
+                             ExtensionMetrics metrics){
+        this.api=api;
+        this.config=config;
+        this.scanCache=scanCache;
+        this.pipeline=pipeline;
+        this.metrics=metrics;
+    }
+
+    @Override
+    public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent httpRequestToBeSent) {
+        long started = System.nanoTime();
+        Annotations annotations = Annotations.annotations(null, null);
+        HttpRequest request=httpRequestToBeSent;
+
+        // Nothing pending (the usual case): skip token extraction altogether
+        if(!this.pendingEdits.isEmpty()){
+            ExtensionConfig.Snapshot current = config.current();
+            HttpRequest edited = this.pendingEdits.take(findPasetoToken(httpRequestToBeSent, current.rules()));
+            metrics.recordPendingEdit(edited != null);
+            if(edited != null){
+                request=edited.withRemovedHeader("X-Paseto-Edit-Id");
+                if(current.markRequests()){
+                    annotations = Annotations.annotations(null, HighlightColor.GREEN);
+                }
+            }
+        }
+        metrics.recordHttpRequest(System.nanoTime() - started);
+        // Continue with the (possibly) modified request
+        return RequestToBeSentAction.continueWith(request, annotations);
+    }
+
+    @Override
+    public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived httpResponseReceived) {
+        // One snapshot per response, so the settings cannot change halfway through
+        ExtensionConfig.Snapshot current = config.current();
+        if(!current.scanResponses()){
+            return ResponseReceivedAction.continueWith(httpResponseReceived);
+        }
+
+        // Opt-in: harvest tokens the server hands out (login / refresh responses, Set-Cookie)
+        long started = System.nanoTime();
+        List<String> tokens = ResponseHarvester.harvest(httpResponseReceived, current.rules(),
+                current.responseScanLimitBytes(), metrics.responseBytesScanned());
+        metrics.recordResponse(tokens.size(), System.nanoTime() - started);
+        if(tokens.isEmpty()){
+            return ResponseReceivedAction.continueWith(httpResponseReceived);
+        }
+
+        String host = httpResponseReceived.initiatingRequest().httpService().host();
+        long now = System.currentTimeMillis();
+        for(String token : tokens){
+            pipeline.submit(new TokenSighting(token, host, now, TokenSighting.Source.RESPONSE));
+        }
+        Annotations annotations = httpResponseReceived.annotations();
+        if(current.markRequests()){
+            annotations = annotations.withHighlightColor(HighlightColor.GREEN);
+        }
+        // Append: the proxy handler may already have noted the request's own token
+        String issued = "PASETO issued (" + tokens.size() + ")";
+        annotations = annotations.withNotes(annotations.hasNotes() ? annotations.notes() + "; " + issued : issued);
+        return ResponseReceivedAction.continueWith(httpResponseReceived, annotations);
+    }
+
+
+    PendingEdits pendingEdits() {
+        return pendingEdits;
+    }
+
+    /** Sends {@code edited} instead of the next request that carries {@code token}. */
+    void addPendingEdit(String token, HttpRequest edited){
+        this.pendingEdits.put(token, edited);
+    }
+
+    private String findPasetoToken(HttpRequest request, RuleMatcher rules) {
+        return scanCache.scan(request, rules).firstToken();
+    }
+
+}
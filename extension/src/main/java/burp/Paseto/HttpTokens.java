@@ -0,0 +1,90 @@
+package burp.Paseto;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+/**
+ * Montoya side of the core scanner: runs a {@link RuleMatcher} over Burp's
+ * {@link ByteArray} in place (no copy of the message) and splices replacement
+ * tokens back into {@link HttpRequest}s.
+ */
+public final class HttpTokens {
+
+    private HttpTokens() {
+    }
+
+    /** Reads {@code raw} byte by byte without copying it. */
+    public static ByteAt bytes(ByteArray raw) {
+        return raw::getByte;
+    }
+
+    /** True if the request line, headers or body contain a token matched by {@code rules}. */
+    public static boolean containsToken(RuleMatcher rules, HttpRequest request) {
+        ByteArray raw = request.toByteArray();
+        return rules.find(bytes(raw), 0, raw.length(), request.bodyOffset()) != PasetoScanner.NO_MATCH;
+    }
+
+    /** True if the request contains a PASETO token (built-in rules). */
+    public static boolean containsToken(HttpRequest request) {
+        return containsToken(RuleMatcher.DEFAULT, request);
+    }
+
+    /** First token in the raw request bytes, or {@code null}. */
+    public static String firstToken(RuleMatcher rules, HttpRequest request) {
+        ByteArray raw = request.toByteArray();
+        long span = rules.find(bytes(raw), 0, raw.length(), request.bodyOffset());
+        return span == PasetoScanner.NO_MATCH ? null : tokenAt(raw, span);
+    }
+
+    /** First PASETO token in the request (built-in rules), or {@code null}. */
+    public static String firstToken(HttpRequest request) {
+        return firstToken(RuleMatcher.DEFAULT, request);
+    }
+
+    /**
+     * All non-overlapping tokens in {@code raw}.
+     *
+     * @param bodyOffset start of the body for header/body scopes; -1 to locate it on demand
+     */
+    public static TokenSpans findAll(RuleMatcher rules, ByteArray raw, int bodyOffset) {
+        return rules.findAll(bytes(raw), 0, raw.length(), bodyOffset);
+    }
+
+    public static String tokenAt(ByteArray raw, long span) {
+        return PasetoScanner.tokenAt(bytes(raw), span);
+    }
+
+    public static String tokenAt(ByteArray raw, int start, int end) {
+        return PasetoScanner.tokenAt(bytes(raw), start, end);
+    }
+
+    /** Replaces every PASETO token equal to {@code oldToken} (built-in rules). */
+    public static HttpRequest replaceToken(HttpRequest original, String oldToken, String newToken) {
+        ByteArray raw = original.toByteArray();
+        return replaceToken(original, raw, findAll(RuleMatcher.DEFAULT, raw, original.bodyOffset()), oldToken, newToken);
+    }
+
+    /**
+     * @param raw   {@code original.toByteArray()}
+     * @param spans token offsets into {@code raw}; only spans equal to {@code oldToken} are replaced
+     * @return the rewritten request with Content-Length fixed up, or {@code original} if nothing matched
+     */
+    public static HttpRequest replaceToken(HttpRequest original, ByteArray raw, TokenSpans spans,
+                                           String oldToken, String newToken) {
+        boolean[] hit = TokenReplacer.occurrences(bytes(raw), spans, oldToken);
+        if (hit == null) {
+            return original;
+        }
+        int bodyOffset = original.bodyOffset();
+        TokenReplacer.Splice splice = TokenReplacer.splice(raw.getBytes(), spans, hit, newToken, bodyOffset);
+
+        HttpRequest updated = original.httpService() == null
+                ? HttpRequest.httpRequest(ByteArray.byteArray(splice.bytes()))
+                : HttpRequest.httpRequest(original.httpService(), ByteArray.byteArray(splice.bytes()));
+        if (splice.bodyDelta() != 0 && original.hasHeader("Content-Length")) {
+            int bodyLength = raw.length() - bodyOffset + splice.bodyDelta();
+            updated = updated.withUpdatedHeader("Content-Length", Integer.toString(bodyLength));
+        }
+        return updated;
+    }
+}
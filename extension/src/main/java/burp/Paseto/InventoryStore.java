@@ -0,0 +1,452 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.persistence.PersistedObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the {@link TokenInventory} and {@link PendingEdits} in the project file
+ * (the extension's {@code api.persistence().extensionData()}), so they survive a
+ * Burp restart.
+ *
+ * The inventory is an append-only log of binary segments
+ * ({@code inventory.segment.<n>}, with live range {@code [inventory.base, inventory.next)}).
+ * Each flush appends one segment holding only the records changed since the
+ * previous flush. Once the log holds many segments or far more bytes than the live
+ * data, it is compacted: the current state is written as fresh segments that start
+ * with a CLEAR marker, the pointers are moved, and the old segments are deleted.
+ * A crash at any point leaves a log that still replays correctly.
+ *
+ * Loading runs on the store's own background thread and is merged into the
+ * inventory in small batches, so startup and live traffic are never blocked.
+ * Flushes are queued on the same thread and therefore always see a fully loaded
+ * inventory. Pending edits are few and short-lived, so they are stored as a single
+ * snapshot that is rewritten only when they change.
+ */
+public class InventoryStore {
+
+    static final String BASE_KEY = "inventory.base";
+    static final String NEXT_KEY = "inventory.next";
+    static final String SEGMENT_PREFIX = "inventory.segment.";
+    static final String PENDING_KEY = "pendingEdits";
+
+    static final long FLUSH_SECONDS = 15;
+    static final int RESTORE_BATCH = 2048;
+    static final int MAX_SEGMENT_BYTES = 1 << 20;
+    static final int COMPACT_AFTER_SEGMENTS = 64;
+
+    private static final int MAGIC = 0x50494E56;   // "PINV"
+    private static final int FORMAT = 1;
+    private static final int CLEAR = 1;
+    private static final int RECORD = 2;
+
+    private final MontoyaApi api;
+    private final TokenInventory inventory;
+    private final PendingEdits pendingEdits;
+    private final ScheduledExecutorService executor;
+    private long savedPendingModCount = -1;
+    private long logBytes;
+
+    public InventoryStore(MontoyaApi api, TokenInventory inventory, PendingEdits pendingEdits) {
+        this.api = api;
+        this.inventory = inventory;
+        this.pendingEdits = pendingEdits;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "paseto-persistence");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /** Loads the saved state in the background and starts periodic flushing. Returns immediately. */
+    public void start() {
+        executor.execute(this::load);
+        executor.scheduleWithFixedDelay(this::flushQuietly, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** Writes outstanding changes and stops; call from the extension unloading handler. */
+    public void close() {
+        executor.execute(this::flushQuietly);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                api.logging().logToError("[!] PASETO inventory: final save did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //------------------------------------------------------------------
+    // Load
+    //------------------------------------------------------------------
+
+    private void load() {
+        long started = System.nanoTime();
+        try {
+            PersistedObject data = api.persistence().extensionData();
+            int base = intOr(data, BASE_KEY, 0);
+            int next = intOr(data, NEXT_KEY, 0);
+            // Replay the log: later segments overwrite earlier state, CLEAR forgets everything before it
+            Map<String, TokenInventory.Saved> state = new HashMap<>();
+            for (int n = base; n < next; n++) {
+                ByteArray segment = data.getByteArray(SEGMENT_PREFIX + n);
+                if (segment == null) {
+                    continue;
+                }
+                byte[] bytes = segment.getBytes();
+                logBytes += bytes.length;
+                decodeSegment(bytes, state);
+            }
+            List<TokenInventory.Saved> records = new ArrayList<>(state.values());
+            state = null;
+            // Oldest first, so the most recently seen tokens end up at the recently-used end
+            records.sort((a, b) -> Long.compare(a.lastSeen(), b.lastSeen()));
+            for (int i = 0; i < records.size(); i += RESTORE_BATCH) {
+                inventory.restoreAll(records.subList(i, Math.min(records.size(), i + RESTORE_BATCH)));
+                Thread.yield();
+            }
+
+            ByteArray pending = data.getByteArray(PENDING_KEY);
+            if (pending != null) {
+                pendingEdits.restore(decodePending(pending.getBytes()));
+            }
+            savedPendingModCount = pendingEdits.modCount();
+            if (!records.isEmpty()) {
+                api.logging().logToOutput("[+] PASETO inventory: restored " + records.size() + " tokens from "
+                        + (next - base) + " segments in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+            }
+        } catch (RuntimeException e) {
+            api.logging().logToError("[!] PASETO inventory: could not load saved state: " + e);
+        }
+    }
+
+    //------------------------------------------------------------------
+    // Flush / compaction
+    //------------------------------------------------------------------
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            api.logging().logToError("[!] PASETO inventory: save failed: " + e);
+        }
+    }
+
+    void flush() {
+        PersistedObject data = api.persistence().extensionData();
+        TokenInventory.Changes changes = inventory.drainChanges();
+        if (changes.cleared() || !changes.records().isEmpty()) {
+            int next = intOr(data, NEXT_KEY, 0);
+            List<byte[]> segments = encodeSegments(changes.records(), changes.cleared());
+            next = writeSegments(data, next, segments);
+            data.setInteger(NEXT_KEY, next);
+            if (changes.cleared()) {
+                // Everything before the CLEAR marker is dead
+                int oldBase = intOr(data, BASE_KEY, 0);
+                int newBase = next - segments.size();
+                data.setInteger(BASE_KEY, newBase);
+                deleteSegments(data, oldBase, newBase);
+                logBytes = 0;
+            }
+            for (byte[] segment : segments) {
+                logBytes += segment.length;
+            }
+            maybeCompact(data);
+        }
+
+        long pendingModCount = pendingEdits.modCount();
+        if (pendingModCount != savedPendingModCount) {
+            List<PendingEdits.Saved> edits = pendingEdits.snapshot();
+            if (edits.isEmpty()) {
+                data.deleteByteArray(PENDING_KEY);
+            } else {
+                data.setByteArray(PENDING_KEY, ByteArray.byteArray(encodePending(edits)));
+            }
+            savedPendingModCount = pendingModCount;
+        }
+    }
+
+    private void maybeCompact(PersistedObject data) {
+        int base = intOr(data, BASE_KEY, 0);
+        int next = intOr(data, NEXT_KEY, 0);
+        boolean tooManySegments = next - base > COMPACT_AFTER_SEGMENTS;
+        // The in-memory estimate is several times the encoded size, so this means "mostly superseded records"
+        boolean mostlyGarbage = logBytes > MAX_SEGMENT_BYTES && logBytes > 2 * inventory.usedBytes();
+        if (!tooManySegments && !mostlyGarbage) {
+            return;
+        }
+        List<TokenInventory.Saved> all = inventory.drainAll();
+        List<byte[]> segments = encodeSegments(all, true);
+        int newNext = writeSegments(data, next, segments);
+        // NEXT first: if we stop here, replaying from the old base still ends in the same state
+        data.setInteger(NEXT_KEY, newNext);
+        data.setInteger(BASE_KEY, next);
+        deleteSegments(data, base, next);
+        logBytes = 0;
+        for (byte[] segment : segments) {
+            logBytes += segment.length;
+        }
+    }
+
+    private static int writeSegments(PersistedObject data, int next, List<byte[]> segments) {
+        for (byte[] segment : segments) {
+            data.setByteArray(SEGMENT_PREFIX + next++, ByteArray.byteArray(segment));
+        }
+        return next;
+    }
+
+    private static void deleteSegments(PersistedObject data, int from, int to) {
+        for (int n = from; n < to; n++) {
+            data.deleteByteArray(SEGMENT_PREFIX + n);
+        }
+    }
+
+    private static int intOr(PersistedObject data, String key, int fallback) {
+        Integer value = data.getInteger(key);
+        return value == null ? fallback : value;
+    }
+
+    //------------------------------------------------------------------
+    // Binary format
+    //
+    // segment := MAGIC:int32 FORMAT:varint baseTime:varlong entry*
+    // entry   := CLEAR
+    //          | RECORD token:str firstSeen:zigzag(delta to baseTime) lastSeen:varlong(delta to firstSeen)
+    //                   hits:varlong hostCount:varint host:str*
+    // str     := length:varint UTF-8 bytes
+    //------------------------------------------------------------------
+
+    static List<byte[]> encodeSegments(List<TokenInventory.Saved> records, boolean clearFirst) {
+        List<byte[]> segments = new ArrayList<>();
+        Writer out = null;
+        long baseTime = 0;
+        for (int i = 0; i <= records.size(); i++) {
+            if (out != null && (i == records.size() || out.size() >= MAX_SEGMENT_BYTES)) {
+                segments.add(out.toByteArray());
+                out = null;
+            }
+            if (i == records.size()) {
+                break;
+            }
+            TokenInventory.Saved s = records.get(i);
+            if (out == null) {
+                baseTime = s.firstSeen();
+                out = header(baseTime);
+                if (clearFirst && segments.isEmpty()) {
+                    out.varint(CLEAR);
+                }
+            }
+            out.varint(RECORD);
+            out.string(s.token());
+            out.varlong(zigzag(s.firstSeen() - baseTime));
+            out.varlong(Math.max(0, s.lastSeen() - s.firstSeen()));
+            out.varlong(s.hits());
+            out.varint(s.hosts().size());
+            for (String host : s.hosts()) {
+                out.string(host);
+            }
+        }
+        if (segments.isEmpty() && clearFirst) {
+            Writer clear = header(0);
+            clear.varint(CLEAR);
+            segments.add(clear.toByteArray());
+        }
+        return segments;
+    }
+
+    private static Writer header(long baseTime) {
+        Writer out = new Writer(4096);
+        out.int32(MAGIC);
+        out.varint(FORMAT);
+        out.varlong(baseTime);
+        return out;
+    }
+
+    static void decodeSegment(byte[] bytes, Map<String, TokenInventory.Saved> state) {
+        Reader in = new Reader(bytes);
+        if (in.int32() != MAGIC || in.varint() != FORMAT) {
+            throw new IllegalStateException("unrecognised inventory segment");
+        }
+        long baseTime = in.varlong();
+        while (in.hasMore()) {
+            int type = in.varint();
+            if (type == CLEAR) {
+                state.clear();
+                continue;
+            }
+            if (type != RECORD) {
+                throw new IllegalStateException("unknown entry type " + type);
+            }
+            String token = in.string();
+            long firstSeen = baseTime + unzigzag(in.varlong());
+            long lastSeen = firstSeen + in.varlong();
+            long hits = in.varlong();
+            int hostCount = in.varint();
+            List<String> hosts = new ArrayList<>(hostCount);
+            for (int h = 0; h < hostCount; h++) {
+                hosts.add(in.string());
+            }
+            state.put(token, new TokenInventory.Saved(token, firstSeen, lastSeen, hits, hosts));
+        }
+    }
+
+    // pending := MAGIC:int32 FORMAT:varint count:varint (token:str expiresAt:varlong host:str port:varint
+    //            secure:varint request:bytes)*
+    static byte[] encodePending(List<PendingEdits.Saved> edits) {
+        Writer out = new Writer(8192);
+        out.int32(MAGIC);
+        out.varint(FORMAT);
+        out.varint(edits.size());
+        for (PendingEdits.Saved edit : edits) {
+            HttpService service = edit.request().httpService();
+            out.string(edit.token());
+            out.varlong(edit.expiresAt());
+            out.string(service.host());
+            out.varint(service.port());
+            out.varint(service.secure() ? 1 : 0);
+            out.bytes(edit.request().toByteArray().getBytes());
+        }
+        return out.toByteArray();
+    }
+
+    static List<PendingEdits.Saved> decodePending(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        if (in.int32() != MAGIC || in.varint() != FORMAT) {
+            throw new IllegalStateException("unrecognised pending-edit snapshot");
+        }
+        int count = in.varint();
+        List<PendingEdits.Saved> edits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String token = in.string();
+            long expiresAt = in.varlong();
+            HttpService service = HttpService.httpService(in.string(), in.varint(), in.varint() == 1);
+            HttpRequest request = HttpRequest.httpRequest(service, ByteArray.byteArray(in.bytes()));
+            edits.add(new PendingEdits.Saved(token, request, expiresAt));
+        }
+        return edits;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** Growable little byte sink with LEB128 varints. */
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        int size() {
+            return pos;
+        }
+
+        void int32(int v) {
+            ensure(4);
+            buf[pos++] = (byte) (v >>> 24);
+            buf[pos++] = (byte) (v >>> 16);
+            buf[pos++] = (byte) (v >>> 8);
+            buf[pos++] = (byte) v;
+        }
+
+        void varint(int v) {
+            varlong(v & 0xFFFFFFFFL);
+        }
+
+        void varlong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void string(String s) {
+            bytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void bytes(byte[] b) {
+            varint(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, pos, b.length);
+            pos += b.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        boolean hasMore() {
+            return pos < buf.length;
+        }
+
+        int int32() {
+            return (buf[pos++] & 0xFF) << 24 | (buf[pos++] & 0xFF) << 16 | (buf[pos++] & 0xFF) << 8 | (buf[pos++] & 0xFF);
+        }
+
+        int varint() {
+            return (int) varlong();
+        }
+
+        long varlong() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buf[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+        }
+
+        String string() {
+            int length = varint();
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        byte[] bytes() {
+            int length = varint();
+            byte[] b = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return b;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package burp.Paseto;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Suite tab listing the {@link TokenInventory}.
+ *
+ * The table model works on an array snapshot that is refreshed at most once per
+ * second and only when the inventory changed; every cell lookup is O(1), so the
+ * view stays responsive with 100k+ tokens. Newest tokens are shown first.
+ */
+public class InventoryTab extends JPanel {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final TokenInventory inventory;
+    private final InventoryTableModel model = new InventoryTableModel();
+    private final JLabel status = new JLabel();
+    private final Timer refreshTimer;
+    private long seenModCount = -1;
+
+    public InventoryTab(TokenInventory inventory, HistoryScanner historyScanner) {
+        super(new BorderLayout(5, 5));
+        this.inventory = inventory;
+
+        JTable table = new JTable(model);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        table.setFillsViewportHeight(true);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton clear = new JButton("Clear");
+        clear.addActionListener(e -> {
+            inventory.clear();
+            refresh();
+        });
+        JButton audit = new JButton("Audit weak key...");
+        audit.addActionListener(e -> auditWeakKey(table));
+        JPanel north = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        north.add(status);
+        north.add(clear);
+        north.add(audit);
+        north.add(historyControls(historyScanner));
+        add(north, BorderLayout.NORTH);
+
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+        refreshTimer.start();
+        refresh();
+    }
+
+    /** "Scan history for PASETO" button, progress bar and cancel / rescan controls. */
+    private JPanel historyControls(HistoryScanner scanner) {
+        JButton scan = new JButton("Scan history for PASETO");
+        JButton rescan = new JButton("Rescan all");
+        JButton cancel = new JButton("Cancel");
+        JProgressBar progress = new JProgressBar();
+        progress.setStringPainted(true);
+        progress.setString("");
+        cancel.setEnabled(false);
+
+        HistoryScanner.Listener listener = new HistoryScanner.Listener() {
+            private volatile long lastUpdate;
+
+            @Override
+            public void progress(int done, int total) {
+                long now = System.currentTimeMillis();
+                if (now - lastUpdate < 100 && done < total) {
+                    return;
+                }
+                lastUpdate = now;
+                SwingUtilities.invokeLater(() -> {
+                    progress.setMaximum(Math.max(1, total));
+                    progress.setValue(done);
+                    progress.setString(done + " / " + total);
+                });
+            }
+
+            @Override
+            public void finished(HistoryScanner.Result result) {
+                SwingUtilities.invokeLater(() -> {
+                    progress.setString((result.cancelled() ? "Cancelled: " : "Done: ") + result.scanned()
+                            + " scanned, " + result.matched() + " with tokens");
+                    scan.setEnabled(true);
+                    rescan.setEnabled(true);
+                    cancel.setEnabled(false);
+                    refresh();
+                });
+            }
+        };
+        Runnable start = () -> {
+            if (scanner.start(listener)) {
+                scan.setEnabled(false);
+                rescan.setEnabled(false);
+                cancel.setEnabled(true);
+                progress.setString("Starting...");
+            }
+        };
+        scan.addActionListener(e -> start.run());
+        rescan.addActionListener(e -> {
+            scanner.resetCheckpoint();
+            start.run();
+        });
+        cancel.addActionListener(e -> scanner.cancel());
+
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        panel.add(scan);
+        panel.add(rescan);
+        panel.add(cancel);
+        panel.add(progress);
+        return panel;
+    }
+
+    /** Offline dictionary audit of the selected local token; see {@link WeakKeyAudit}. */
+    private void auditWeakKey(JTable table) {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            JOptionPane.showMessageDialog(this, "Select a local token first.", "Weak-key audit",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String token = model.row(table.convertRowIndexToModel(row)).token();
+        if (!WeakKeyAudit.supports(PasetoDecoder.decode(token))) {
+            JOptionPane.showMessageDialog(this, "Only well-formed v1, v3 and v4 local tokens can be audited.",
+                    "Weak-key audit", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Candidate key wordlist (one per line)");
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            new WeakKeyAuditWindow(token, chooser.getSelectedFile().toPath()).setVisible(true);
+        }
+    }
+
+    /** Stops the refresh timer; call when the extension unloads. */
+    public void dispose() {
+        refreshTimer.stop();
+    }
+
+    private void refresh() {
+        long modCount = inventory.modCount();
+        if (modCount == seenModCount) {
+            return;
+        }
+        seenModCount = modCount;
+        model.setRows(inventory.snapshot());
+        status.setText(model.getRowCount() + " distinct tokens");
+    }
+
+    //------------------------------------------------------------------
+    // Table model
+    //------------------------------------------------------------------
+    private static class InventoryTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Version", "Purpose", "Hits", "Hosts", "Subject", "Expires", "First seen", "Last seen", "Token"};
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        private TokenInventory.TokenRecord[] rows = new TokenInventory.TokenRecord[0];
+
+        void setRows(TokenInventory.TokenRecord[] rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        /** Rows are shown newest-first; {@code row} is a model index as used by {@link #getValueAt}. */
+        TokenInventory.TokenRecord row(int row) {
+            return rows[rows.length - 1 - row];
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 2 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            TokenInventory.TokenRecord r = row(rowIndex);
+            switch (columnIndex) {
+                case 0: return r.version();
+                case 1: return r.purpose();
+                case 2: return r.hits();
+                case 3: return r.hosts();
+                case 4: return claims(r) == null || claims(r).subject() == null ? "" : claims(r).subject();
+                case 5: return claims(r) == null || claims(r).expiration() == null ? "" : claims(r).expiration().toString();
+                case 6: return timeFormat.format(new Date(r.firstSeen()));
+                case 7: return timeFormat.format(new Date(r.lastSeen()));
+                default: return r.token();
+            }
+        }
+
+        /** Memoised in {@link PasetoDecoder}, so only visible rows are ever decoded. */
+        private static PasetoClaims claims(TokenInventory.TokenRecord r) {
+            return PasetoDecoder.decode(r.token()).claims();
+        }
+    }
+}
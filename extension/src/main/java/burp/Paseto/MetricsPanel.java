@@ -0,0 +1,73 @@
+package burp.Paseto;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/** Live view of {@link ExtensionMetrics} with JSON export. Refreshes once per second. */
+public class MetricsPanel extends JPanel {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final ExtensionMetrics metrics;
+    private final JTextArea report = new JTextArea();
+    private final Timer refreshTimer;
+
+    public MetricsPanel(ExtensionMetrics metrics) {
+        super(new BorderLayout(5, 5));
+        this.metrics = metrics;
+
+        report.setEditable(false);
+        report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        add(new JScrollPane(report), BorderLayout.CENTER);
+
+        JButton copyJson = new JButton("Copy JSON");
+        copyJson.addActionListener(e -> Toolkit.getDefaultToolkit().getSystemClipboard()
+                .setContents(new StringSelection(metrics.toJson()), null));
+        JButton saveJson = new JButton("Save JSON...");
+        saveJson.addActionListener(e -> saveJson());
+        JButton reset = new JButton("Reset");
+        reset.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        JPanel north = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        north.add(copyJson);
+        north.add(saveJson);
+        north.add(reset);
+        add(north, BorderLayout.NORTH);
+
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+        refreshTimer.start();
+        refresh();
+    }
+
+    public void dispose() {
+        refreshTimer.stop();
+    }
+
+    private void refresh() {
+        if (isShowing() || report.getText().isEmpty()) {
+            report.setText(metrics.report());
+        }
+    }
+
+    private void saveJson() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("paseto-metrics.json"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            Files.writeString(chooser.getSelectedFile().toPath(), metrics.toJson(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not write metrics:\n" + ex.getMessage(),
+                    "Export error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
+import burp.api.montoya.ui.contextmenu.ContextMenuItemsProvider;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Context-menu entry that finds a PASETO token in the selected request, lets
+ * the tester edit it, and then either (1) replaces the request inside the
+ * active message editor tab, or (2) re-issues the modified request directly.
+ * We also ensure the resulting request/response is **explicitly inserted into
+ * the Proxy/Logger history**, so you will always see the edited token there.
+ */
+public class PasetoContextMenu implements ContextMenuItemsProvider {
+
+    private final MontoyaApi api;
+    private HttpHandlerPaseto handler;
+    private final ExtensionConfig config;
+    private final PasetoVerifier verifier;
+
+    public PasetoContextMenu(MontoyaApi api, HttpHandlerPaseto handler, ExtensionConfig config,
+                             PasetoVerifier verifier) {
+        this.api = api;
+        this.handler = handler;
+        this.config = config;
+        this.verifier = verifier;
+    }
+
+    //------------------------------------------------------------------
+    // Context-menu integration
+    //------------------------------------------------------------------
+    @Override
+    public List<Component> provideMenuItems(ContextMenuEvent menuEvent) {
+        if (!menuEvent.isFromTool(ToolType.PROXY)) return Collections.emptyList();
+        List<Component> items = new ArrayList<>();
+
+        JMenuItem editPaseto = new JMenuItem("Edit PASETO token");
+        editPaseto.addActionListener(e -> {
+            if (menuEvent.selectedRequestResponses().isEmpty()) {
+                return;
+            }
+
+            // 1. Base request that the user right-clicked on
+            HttpRequestResponse baseReqResp = menuEvent.selectedRequestResponses().get(0);
+            HttpRequest baseRequest = baseReqResp.request();
+
+            // 2. Locate the first PASETO token – bail out if none is present
+            String token = findPasetoToken(baseRequest);
+            if (token == null) {
+                JOptionPane.showMessageDialog(null,
+                        "No PASETO token found in the selected request.",
+                        "Edit PASETO",
+                        JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+
+            // 3. Let the user edit the token (modal dialog)
+            String editedToken = showEditablePasetoDialog(parsePaseto(token), token);
+            if (editedToken.equals(token)) {
+                return; // user cancelled or made no changes
+            }
+
+            // 4. Build the modified request
+            HttpRequest modifiedRequest = replaceTokenInRequest(baseRequest, token, editedToken);
+
+            this.handler.addPendingEdit(token, modifiedRequest);
+        });
+
+        items.add(editPaseto);
+
+        JMenuItem mutate = new JMenuItem("Run PASETO mutations");
+        mutate.addActionListener(e -> {
+            if (!menuEvent.selectedRequestResponses().isEmpty()) {
+                runMutations(menuEvent.selectedRequestResponses().get(0));
+            }
+        });
+        items.add(mutate);
+
+        List<HttpRequestResponse> selected = menuEvent.selectedRequestResponses();
+        if (selected.size() > 1) {
+            JMenuItem batchEdit = new JMenuItem("Edit PASETO token in " + selected.size() + " requests and replay");
+            batchEdit.addActionListener(e -> batchEditAndReplay(new ArrayList<>(selected)));
+            items.add(batchEdit);
+        }
+        return items;
+    }
+
+    //------------------------------------------------------------------
+    // Batch edit + replay
+    //------------------------------------------------------------------
+
+    /**
+     * Edits the token of the first selected request once, applies the same change to
+     * every selected request and replays them all through {@link ReplayEngine}.
+     * Requests carrying the same token get the edited token verbatim; requests with a
+     * different token get only the edit itself, see {@link #applyPartEdits}.
+     */
+    private void batchEditAndReplay(List<HttpRequestResponse> selected) {
+        List<HttpRequestResponse> withToken = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        for (HttpRequestResponse rr : selected) {
+            String token = findPasetoToken(rr.request());
+            if (token != null) {
+                withToken.add(rr);
+                tokens.add(token);
+            }
+        }
+        if (withToken.isEmpty()) {
+            JOptionPane.showMessageDialog(null,
+                    "None of the selected requests contains a PASETO token.",
+                    "Edit PASETO",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String baseToken = tokens.get(0);
+        String editedToken = showEditablePasetoDialog(parsePaseto(baseToken), baseToken);
+        if (editedToken.equals(baseToken)) {
+            return; // user cancelled or made no changes
+        }
+
+        List<ReplayEngine.Job> jobs = new ArrayList<>(withToken.size());
+        for (int i = 0; i < withToken.size(); i++) {
+            HttpRequestResponse rr = withToken.get(i);
+            String token = tokens.get(i);
+            String newToken = token.equals(baseToken) ? editedToken : applyPartEdits(baseToken, editedToken, token);
+            HttpRequest modified = replaceTokenInRequest(rr.request(), token, newToken);
+            jobs.add(new ReplayEngine.Job(rr.request().method() + " " + rr.request().url(), modified, rr));
+        }
+
+        ExtensionConfig.Snapshot current = config.current();
+        ReplayEngine engine = new ReplayEngine(api, current.replayConcurrency(), current.replayRatePerHost());
+        ReplayResultsWindow window = new ReplayResultsWindow("PASETO batch replay", jobs.size(), engine);
+        window.setVisible(true);
+        engine.replay(jobs, window::addResult, window::done);
+    }
+
+    /**
+     * Sends every {@link PasetoMutator} variant of the request's token and lists the
+     * responses by outcome, so accepted mutations stand out.
+     */
+    private void runMutations(HttpRequestResponse base) {
+        String token = findPasetoToken(base.request());
+        if (token == null) {
+            JOptionPane.showMessageDialog(null,
+                    "No PASETO token found in the selected request.",
+                    "PASETO mutations",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        ExtensionConfig.Snapshot current = config.current();
+        // Thousands of variants: generate them off the EDT and let the workers build each request
+        Thread generator = new Thread(() -> {
+            List<PasetoMutator.Mutation> mutations;
+            try {
+                mutations = PasetoMutator.mutate(token, current.mutationClaims(), PasetoMutator.DEFAULT_LIMIT);
+            } catch (RuntimeException e) {
+                api.logging().logToError("[!] PASETO mutations failed: " + e);
+                return;
+            }
+            ByteArray raw = base.request().toByteArray();
+            TokenSpans spans = HttpTokens.findAll(current.rules(), raw, base.request().bodyOffset());
+            List<ReplayEngine.Job> jobs = new ArrayList<>(mutations.size());
+            for (PasetoMutator.Mutation m : mutations) {
+                jobs.add(new ReplayEngine.Job("[" + m.category() + "] " + m.description(), base.request(), base, m.token()));
+            }
+            SwingUtilities.invokeLater(() -> {
+                ReplayEngine engine = new ReplayEngine(api, current.replayConcurrency(), current.replayRatePerHost());
+                ReplayResultsWindow window = new ReplayResultsWindow("PASETO mutations – " + base.request().url(),
+                        jobs.size(), engine);
+                window.setVisible(true);
+                engine.replay(jobs, (request, variant) -> HttpTokens.replaceToken(request, raw, spans, token, variant),
+                        window::addResult, window::done);
+            });
+        }, "paseto-mutations");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    /**
+     * Transfers the edit from {@code original} to {@code edited} onto {@code target}.
+     * Version, purpose and footer are taken from {@code edited} where the user changed
+     * them. A claim edit (both tokens public with a JSON message) is replayed on the
+     * target's own claims, so the target keeps its signature, its subject and every
+     * claim the user did not touch. Any other payload edit is copied verbatim.
+     */
+    static String applyPartEdits(String original, String edited, String target) {
+        PasetoInfo from = parsePaseto(original);
+        PasetoInfo to = parsePaseto(edited);
+        PasetoInfo t = parsePaseto(target);
+        String version = from.version.equals(to.version) ? t.version : to.version;
+        String purpose = from.purpose.equals(to.purpose) ? t.purpose : to.purpose;
+        String footer = from.footer.equals(to.footer) ? t.footer : to.footer;
+        String payload = t.payload;
+        if (!from.payload.equals(to.payload)) {
+            String claimEdit = applyClaimEdits(original, edited, target);
+            payload = claimEdit != null ? claimEdit : to.payload;
+        }
+        return version + "." + purpose + "." + payload + (footer.isEmpty() ? "" : "." + footer);
+    }
+
+    /**
+     * The target's payload with the claims added, changed or removed between
+     * {@code original} and {@code edited} applied, followed by the target's own
+     * signature; null if the edit is not a claim edit. A target without JSON claims
+     * keeps its payload.
+     */
+    static String applyClaimEdits(String original, String edited, String target) {
+        Map<String, Object> before = claims(PasetoDecoder.decode(original));
+        Map<String, Object> after = claims(PasetoDecoder.decode(edited));
+        if (before == null || after == null) {
+            return null;
+        }
+        DecodedPaseto decoded = PasetoDecoder.decode(target);
+        Map<String, Object> claims = claims(decoded);
+        String payload = parsePaseto(target).payload;
+        if (claims == null) {
+            return payload;
+        }
+        boolean changed = false;
+        for (Map.Entry<String, Object> e : after.entrySet()) {
+            if (!before.containsKey(e.getKey()) || !Objects.equals(before.get(e.getKey()), e.getValue())) {
+                claims.put(e.getKey(), e.getValue());
+                changed = true;
+            }
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                changed |= claims.containsKey(key);
+                claims.remove(key);
+            }
+        }
+        if (!changed) {
+            return payload;
+        }
+        byte[] message = MiniJson.write(claims).getBytes(StandardCharsets.UTF_8);
+        byte[] signature = decoded.signature();
+        byte[] signed = Arrays.copyOf(message, message.length + signature.length);
+        System.arraycopy(signature, 0, signed, message.length, signature.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signed);
+    }
+
+    /** Claims of a public token as a mutable map, or null if its message is not a JSON object. */
+    private static Map<String, Object> claims(DecodedPaseto decoded) {
+        if (!decoded.isPublic() || decoded.message() == null) {
+            return null;
+        }
+        try {
+            return MiniJson.parseObject(decoded.messageText());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    //------------------------------------------------------------------
+    // Helper methods (token replace / find / dialog etc.)
+    //------------------------------------------------------------------
+
+    private HttpRequest replaceTokenInRequest(HttpRequest original, String oldToken, String newToken) {
+        // Every occurrence (headers, cookies, query string, body) in one pass over the raw bytes
+        ByteArray raw = original.toByteArray();
+        TokenSpans spans = HttpTokens.findAll(config.current().rules(), raw, original.bodyOffset());
+        return HttpTokens.replaceToken(original, raw, spans, oldToken, newToken);
+    }
+
+    /** First token matched by the detection rules in the request, or null. */
+    private String findPasetoToken(HttpRequest request) {
+        return HttpTokens.firstToken(config.current().rules(), request);
+    }
+
+    static PasetoInfo parsePaseto(String token) {
+        return PasetoInfo.parse(token);
+    }
+
+    private String showEditablePasetoDialog(PasetoInfo info, String rawToken) {
+        final String[] result = { rawToken };
+        JDialog dlg = new JDialog((Frame) null, "Edit PASETO token before sending", true);
+        dlg.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dlg.setLayout(new BorderLayout(5,5));
+
+        // Raw token display (read-only)
+        JTextArea rawArea = new JTextArea(rawToken, 3, 60);
+        rawArea.setLineWrap(true);
+        rawArea.setWrapStyleWord(true);
+        rawArea.setEditable(false);
+        rawArea.setBorder(BorderFactory.createTitledBorder("Original raw token"));
+        String structure = PasetoDecoder.decode(rawToken).describe();
+        if (verifier.hasKeys()) {
+            structure += "\n" + verifier.verify(rawToken).describe();
+        }
+        JTextArea structureArea = new JTextArea(structure, 5, 60);
+        structureArea.setLineWrap(true);
+        structureArea.setEditable(false);
+        structureArea.setBorder(BorderFactory.createTitledBorder("Decoded structure"));
+        JPanel north = new JPanel(new BorderLayout());
+        north.add(new JScrollPane(rawArea, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER), BorderLayout.NORTH);
+        north.add(new JScrollPane(structureArea, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER), BorderLayout.CENTER);
+        dlg.add(north, BorderLayout.NORTH);
+
+        // Full‑token edit panel
+        JPanel wholePanel = new JPanel(new BorderLayout(5,0));
+        wholePanel.setBorder(BorderFactory.createTitledBorder("Edit entire token"));
+        JTextArea wholeField = new JTextArea(rawToken, 3, 60);
+        wholeField.setLineWrap(true);
+        wholeField.setWrapStyleWord(true);
+        wholePanel.add(new JScrollPane(wholeField, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER), BorderLayout.CENTER);
+        JButton submitWhole = new JButton("Save");
+        wholePanel.add(submitWhole, BorderLayout.EAST);
+
+        // Part‑wise edit panel
+        JPanel partsPanel = new JPanel(new GridBagLayout());
+        partsPanel.setBorder(BorderFactory.createTitledBorder("Edit token parts"));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(2,2,2,2);
+        gbc.anchor = GridBagConstraints.WEST;
+
+        gbc.gridx = 0; gbc.gridy = 0; partsPanel.add(new JLabel("Version:"), gbc);
+        JTextField versionField = new JTextField(info.version, 24);
+        gbc.gridx = 1; partsPanel.add(versionField, gbc);
+
+        gbc.gridx = 0; gbc.gridy++; partsPanel.add(new JLabel("Purpose:"), gbc);
+        JTextField purposeField = new JTextField(info.purpose, 24);
+        gbc.gridx = 1; partsPanel.add(purposeField, gbc);
+
+        // Payload row + decode button
+        gbc.gridx = 0; gbc.gridy++; partsPanel.add(new JLabel("Payload:"), gbc);
+        JTextField payloadField = new JTextField(info.payload, 24);
+        gbc.gridx = 1; partsPanel.add(payloadField, gbc);
+        JButton decodeButton = new JButton("Decode");
+        gbc.gridx = 2; partsPanel.add(decodeButton, gbc);
+
+        // Decoded payload row + encode button
+        gbc.gridx = 1; gbc.gridy++;
+        gbc.gridwidth = 1;
+        JTextArea decodedPayloadArea = new JTextArea(3, 24);
+        decodedPayloadArea.setEditable(true);
+        decodedPayloadArea.setLineWrap(true);
+        decodedPayloadArea.setWrapStyleWord(true);
+        decodedPayloadArea.setBorder(BorderFactory.createTitledBorder("Decoded Payload (editable)"));
+        partsPanel.add(new JScrollPane(decodedPayloadArea,
+                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER), gbc);
+
+        JButton encodeButton = new JButton("Encode");
+        gbc.gridx = 2; partsPanel.add(encodeButton, gbc);
+
+        gbc.gridx = 0; gbc.gridy++; partsPanel.add(new JLabel("Footer:"), gbc);
+        JTextField footerField = new JTextField(info.footer, 24);
+        gbc.gridx = 1; partsPanel.add(footerField, gbc);
+
+        JButton submitParts = new JButton("Save");
+        gbc.gridx = 1; gbc.gridy++; gbc.anchor = GridBagConstraints.EAST; partsPanel.add(submitParts, gbc);
+
+        JPanel center = new JPanel();
+        center.setLayout(new BoxLayout(center, BoxLayout.Y_AXIS));
+        center.add(wholePanel);
+        center.add(Box.createVerticalStrut(8));
+        center.add(partsPanel);
+        dlg.add(center, BorderLayout.CENTER);
+
+        JButton cancel = new JButton("Cancel");
+        cancel.addActionListener(ev -> dlg.dispose());
+        JPanel south = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        south.add(cancel);
+        dlg.add(south, BorderLayout.SOUTH);
+
+        // Button actions
+        submitWhole.addActionListener((ActionEvent e) -> {
+            String tok = wholeField.getText().trim();
+            if (!tok.isEmpty()) result[0] = tok;
+            dlg.dispose();
+        });
+
+        submitParts.addActionListener((ActionEvent e) -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append(versionField.getText().trim())
+                    .append('.')
+                    .append(purposeField.getText().trim())
+                    .append('.')
+                    .append(payloadField.getText().trim());
+            String f = footerField.getText().trim();
+            if (!f.isEmpty()) sb.append('.').append(f);
+            result[0] = sb.toString();
+            dlg.dispose();
+        });
+
+        // Decode button action: message only (signature kept aside) for public tokens
+        final byte[][] signature = { null };
+        decodeButton.addActionListener(ev -> {
+            String current = versionField.getText().trim() + "." + purposeField.getText().trim() + "."
+                    + payloadField.getText().trim();
+            DecodedPaseto decoded = PasetoDecoder.decode(current);
+            if (decoded.isPublic() && decoded.message() != null) {
+                signature[0] = decoded.signature();
+                decodedPayloadArea.setText(decoded.messageText());
+                return;
+            }
+            if (decoded.isLocal() && decoded.ciphertext() != null) {
+                JOptionPane.showMessageDialog(dlg,
+                        "Local tokens are encrypted; the payload cannot be decoded without the key.\n\n"
+                                + decoded.describe(),
+                        "Decode",
+                        JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            JOptionPane.showMessageDialog(dlg,
+                    "Cannot decode payload:\n" + String.join("\n", decoded.problems()),
+                    "Decode error",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+
+        // Encode button action: re-attaches the original signature of a public token
+        encodeButton.addActionListener(ev -> {
+            String decodedText = decodedPayloadArea.getText().trim();
+            try {
+                byte[] message = decodedText.getBytes(StandardCharsets.UTF_8);
+                if (signature[0] != null) {
+                    byte[] withSignature = Arrays.copyOf(message, message.length + signature[0].length);
+                    System.arraycopy(signature[0], 0, withSignature, message.length, signature[0].length);
+                    message = withSignature;
+                }
+                Base64.Encoder urlEncoder = Base64.getUrlEncoder().withoutPadding();
+                payloadField.setText(urlEncoder.encodeToString(message));
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(dlg,
+                        "Encoding failed:\n" + ex.getMessage(),
+                        "Encode error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        dlg.pack();
+        dlg.setSize(new Dimension(720, 640));
+        dlg.setLocationRelativeTo(null);
+        dlg.setVisible(true);
+        return result[0];
+    }
+}
@@ -0,0 +1,49 @@
+package burp.Paseto;
+
+import burp.api.montoya.ui.editor.extension.EditorCreationContext;
+import burp.api.montoya.ui.editor.extension.EditorMode;
+import burp.api.montoya.ui.editor.extension.ExtensionProvidedHttpRequestEditor;
+import burp.api.montoya.ui.editor.extension.ExtensionProvidedHttpResponseEditor;
+import burp.api.montoya.ui.editor.extension.HttpRequestEditorProvider;
+import burp.api.montoya.ui.editor.extension.HttpResponseEditorProvider;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates a {@link PasetoMessageEditor} for every request and response editor Burp
+ * opens. All editors decode on one shared background thread, so a burst of
+ * selections in the proxy history never runs more than one decode at a time.
+ */
+public class PasetoEditorProvider implements HttpRequestEditorProvider, HttpResponseEditorProvider {
+
+    private final ScanCache scanCache;
+    private final ExtensionConfig config;
+    private final PasetoVerifier verifier;
+    private final ExecutorService decoder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "paseto-editor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PasetoEditorProvider(ScanCache scanCache, ExtensionConfig config, PasetoVerifier verifier) {
+        this.scanCache = scanCache;
+        this.config = config;
+        this.verifier = verifier;
+    }
+
+    @Override
+    public ExtensionProvidedHttpRequestEditor provideHttpRequestEditor(EditorCreationContext context) {
+        return new PasetoMessageEditor(false, context.editorMode() != EditorMode.READ_ONLY,
+                scanCache, config, verifier, decoder);
+    }
+
+    @Override
+    public ExtensionProvidedHttpResponseEditor provideHttpResponseEditor(EditorCreationContext context) {
+        return new PasetoMessageEditor(true, false, scanCache, config, verifier, decoder);
+    }
+
+    public void shutdown() {
+        decoder.shutdownNow();
+    }
+}
@@ -0,0 +1,388 @@
+package burp.Paseto;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpMessage;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.ui.Selection;
+import burp.api.montoya.ui.editor.extension.ExtensionProvidedHttpRequestEditor;
+import burp.api.montoya.ui.editor.extension.ExtensionProvidedHttpResponseEditor;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.GapContent;
+import javax.swing.text.PlainDocument;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.Executor;
+
+/**
+ * "PASETO" tab in Burp's request and response editors.
+ *
+ * Burp asks {@link #isEnabledFor} for every message it displays, on the EDT. For
+ * requests the answer comes from the {@link ScanCache}, so a request the proxy has
+ * already seen costs one fingerprint lookup. Responses are never pre-scanned and
+ * can be large: they are scanned here under the same content-type rule and
+ * "responseScanLimitKb" as the {@link ResponseHarvester}, and kept out of the shared
+ * cache so they cannot evict the proxy's requests.
+ *
+ * {@link #setRequestResponse} only remembers the message: decoding and
+ * verification run on a background thread, and only while the tab is showing, so
+ * browsing history with another tab selected does no PASETO work.
+ *
+ * The token list is a fixed-height {@link JList}, which renders only the visible
+ * rows. Each decoded payload gets a fresh {@link PlainDocument} over a
+ * {@link GapContent} sized for it; edits only set a flag, and the text is read
+ * back once, when Burp asks for the edited request.
+ *
+ * In editable request editors (Repeater, Intercept) the selected token can be
+ * replaced as a whole or, for public tokens, by editing the message, which is
+ * re-encoded with the original signature. Edits apply to the selected token only.
+ * Responses are shown read-only.
+ */
+public class PasetoMessageEditor implements ExtensionProvidedHttpRequestEditor, ExtensionProvidedHttpResponseEditor {
+
+    private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final int LABEL_CHARS = 72;
+
+    private final boolean response;
+    private final boolean editable;
+    private final ScanCache scanCache;
+    private final ExtensionConfig config;
+    private final PasetoVerifier verifier;
+    private final Executor decoder;
+
+    private final JPanel panel = new JPanel(new BorderLayout(5, 5));
+    private final TokenListModel tokens = new TokenListModel();
+    private final JList<String> tokenList = new JList<>(tokens);
+    private final JTextArea tokenArea = new JTextArea(3, 60);
+    private final JTextArea structureArea = new JTextArea(6, 60);
+    private final JTextArea payloadArea = new JTextArea();
+    private final JLabel status = new JLabel();
+
+    // EDT only
+    private HttpRequestResponse requestResponse;
+    private ScanResult scan = ScanResult.NONE;
+    private int selected = -1;
+    private int loadSeq;
+    private boolean stale;
+    private boolean loading;
+    private boolean tokenModified;
+    private boolean payloadModified;
+    private DecodedPaseto shown;
+    private HttpResponse lastResponse;
+    private RuleMatcher lastResponseRules;
+    private ScanResult lastResponseScan;
+
+    public PasetoMessageEditor(boolean response, boolean editable, ScanCache scanCache, ExtensionConfig config,
+                               PasetoVerifier verifier, Executor decoder) {
+        this.response = response;
+        this.editable = editable && !response;
+        this.scanCache = scanCache;
+        this.config = config;
+        this.verifier = verifier;
+        this.decoder = decoder;
+        buildUi();
+    }
+
+    private void buildUi() {
+        Font mono = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+        tokenList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        tokenList.setFont(mono);
+        // Fixed cell size: the list never measures rows it does not paint
+        tokenList.setPrototypeCellValue("0000. " + "x".repeat(LABEL_CHARS + 1));
+        tokenList.setVisibleRowCount(4);
+        tokenList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && tokenList.getSelectedIndex() >= 0
+                    && tokenList.getSelectedIndex() != selected) {
+                selected = tokenList.getSelectedIndex();
+                load();
+            }
+        });
+
+        tokenArea.setFont(mono);
+        tokenArea.setLineWrap(true);
+        tokenArea.setEditable(editable);
+        tokenArea.setBorder(BorderFactory.createTitledBorder(editable ? "Token (editable)" : "Token"));
+        tokenArea.getDocument().addDocumentListener(modifiedFlag(() -> tokenModified = true));
+        structureArea.setFont(mono);
+        structureArea.setLineWrap(true);
+        structureArea.setEditable(false);
+        structureArea.setBorder(BorderFactory.createTitledBorder("Decoded structure"));
+        payloadArea.setFont(mono);
+        payloadArea.setLineWrap(true);
+        payloadArea.setEditable(false);
+
+        JPanel north = new JPanel(new BorderLayout(5, 5));
+        north.add(new JScrollPane(tokenList), BorderLayout.NORTH);
+        north.add(new JScrollPane(tokenArea, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER), BorderLayout.CENTER);
+        north.add(new JScrollPane(structureArea, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER), BorderLayout.SOUTH);
+        JScrollPane payloadScroll = new JScrollPane(payloadArea);
+        payloadScroll.setBorder(BorderFactory.createTitledBorder(editable ? "Message (editable for public tokens)" : "Message"));
+        panel.add(north, BorderLayout.NORTH);
+        panel.add(payloadScroll, BorderLayout.CENTER);
+        panel.add(status, BorderLayout.SOUTH);
+
+        // Decode lazily: only once the tab is actually on screen
+        panel.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && panel.isShowing() && stale) {
+                load();
+            }
+        });
+    }
+
+    //------------------------------------------------------------------
+    // ExtensionProvidedEditor
+    //------------------------------------------------------------------
+
+    @Override
+    public boolean isEnabledFor(HttpRequestResponse requestResponse) {
+        HttpMessage message = message(requestResponse);
+        return message != null && scan(message).hasToken();
+    }
+
+    @Override
+    public void setRequestResponse(HttpRequestResponse requestResponse) {
+        this.requestResponse = requestResponse;
+        HttpMessage message = message(requestResponse);
+        scan = message == null ? ScanResult.NONE : scan(message);
+        tokens.show(scan);
+        selected = scan.hasToken() ? 0 : -1;
+        tokenList.setSelectedIndex(selected);
+        shown = null;
+        clear(scan.hasToken() ? "" : "No PASETO token in this message.");
+        stale = selected >= 0;
+        if (stale && panel.isShowing()) {
+            load();
+        }
+    }
+
+    @Override
+    public HttpRequest getRequest() {
+        HttpRequest original = requestResponse == null ? null : requestResponse.request();
+        if (original == null || !isModified() || selected < 0) {
+            return original;
+        }
+        String oldToken = scan.token(selected);
+        String newToken = editedToken(oldToken);
+        if (newToken.isEmpty() || newToken.equals(oldToken)) {
+            return original;
+        }
+        // The cached spans point into these very bytes, so nothing is scanned again
+        return HttpTokens.replaceToken(original, original.toByteArray(), scan.spans(), oldToken, newToken);
+    }
+
+    @Override
+    public HttpResponse getResponse() {
+        return requestResponse == null ? null : requestResponse.response();
+    }
+
+    @Override
+    public String caption() {
+        return "PASETO";
+    }
+
+    @Override
+    public Component uiComponent() {
+        return panel;
+    }
+
+    @Override
+    public Selection selectedData() {
+        String text = payloadArea.getSelectedText();
+        if (text == null || text.isEmpty()) {
+            text = tokenArea.getSelectedText();
+        }
+        return text == null || text.isEmpty() ? null : Selection.selection(ByteArray.byteArray(text));
+    }
+
+    @Override
+    public boolean isModified() {
+        return editable && (tokenModified || payloadModified);
+    }
+
+    //------------------------------------------------------------------
+    // Decoding (background) and display (EDT)
+    //------------------------------------------------------------------
+
+    private HttpMessage message(HttpRequestResponse requestResponse) {
+        if (requestResponse == null) {
+            return null;
+        }
+        return response ? requestResponse.response() : requestResponse.request();
+    }
+
+    /**
+     * Requests: the shared cache. Responses: a bounded scan, remembered only for the
+     * last response, which covers Burp's isEnabledFor + setRequestResponse pair.
+     */
+    private ScanResult scan(HttpMessage message) {
+        ExtensionConfig.Snapshot current = config.current();
+        if (!response) {
+            return scanCache.scan(message, current.rules());
+        }
+        HttpResponse httpResponse = (HttpResponse) message;
+        if (httpResponse != lastResponse || current.rules() != lastResponseRules) {
+            ByteArray raw = httpResponse.toByteArray();
+            int bodyOffset = httpResponse.bodyOffset();
+            int limit = ResponseHarvester.scanLimit(httpResponse, raw.length(), current.responseScanLimitBytes());
+            ByteAt bytes = HttpTokens.bytes(raw);
+            lastResponseScan = ScanResult.of(bytes, current.rules().findAll(bytes, 0, limit, bodyOffset), bodyOffset);
+            lastResponse = httpResponse;
+            lastResponseRules = current.rules();
+        }
+        return lastResponseScan;
+    }
+
+    /** Decodes the selected token off the EDT; results of superseded loads are dropped. */
+    private void load() {
+        stale = false;
+        if (selected < 0 || selected >= scan.tokenCount()) {
+            return;
+        }
+        int seq = ++loadSeq;
+        String token = scan.token(selected);
+        status.setText("Decoding...");
+        decoder.execute(() -> {
+            DecodedPaseto decoded = PasetoDecoder.decode(token);
+            String structure = decoded.describe();
+            if (verifier.hasKeys()) {
+                structure += "\n" + verifier.verify(token).describe();
+            }
+            String message = decoded.isPublic() && decoded.message() != null ? decoded.messageText() : null;
+            String text = structure;
+            SwingUtilities.invokeLater(() -> {
+                if (seq == loadSeq) {
+                    show(token, decoded, text, message);
+                }
+            });
+        });
+    }
+
+    private void show(String token, DecodedPaseto decoded, String structure, String message) {
+        loading = true;
+        try {
+            tokenArea.setText(token);
+            tokenArea.setCaretPosition(0);
+            structureArea.setText(structure);
+            structureArea.setCaretPosition(0);
+            payloadArea.setDocument(document(message == null ? "" : message));
+            payloadArea.setEditable(editable && message != null);
+        } finally {
+            loading = false;
+        }
+        shown = decoded;
+        tokenModified = false;
+        payloadModified = false;
+        status.setText((selected + 1) + " of " + scan.tokenCount() + " token(s)"
+                + (message == null ? "" : ", message " + message.length() + " chars"));
+    }
+
+    /** One allocation sized for the text; later edits move the gap, they do not copy the content. */
+    private PlainDocument document(String text) {
+        PlainDocument document = new PlainDocument(new GapContent(Math.max(16, text.length() + 64)));
+        try {
+            document.insertString(0, text, null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        document.addDocumentListener(modifiedFlag(() -> payloadModified = true));
+        return document;
+    }
+
+    private void clear(String message) {
+        loading = true;
+        try {
+            tokenArea.setText("");
+            structureArea.setText("");
+            payloadArea.setDocument(document(""));
+            payloadArea.setEditable(false);
+        } finally {
+            loading = false;
+        }
+        tokenModified = false;
+        payloadModified = false;
+        status.setText(message);
+    }
+
+    /**
+     * The token to send: the edited message re-encoded with the original signature
+     * (public tokens), else the edited token text, else {@code oldToken}.
+     */
+    private String editedToken(String oldToken) {
+        if (payloadModified && shown != null && shown.isPublic() && shown.signature() != null) {
+            byte[] message = payloadArea.getText().getBytes(StandardCharsets.UTF_8);
+            byte[] signature = shown.signature();
+            byte[] payload = Arrays.copyOf(message, message.length + signature.length);
+            System.arraycopy(signature, 0, payload, message.length, signature.length);
+            PasetoInfo info = PasetoInfo.parse(oldToken);
+            return info.version + "." + info.purpose + "." + URL_ENCODER.encodeToString(payload)
+                    + (info.footer.isEmpty() ? "" : "." + info.footer);
+        }
+        if (tokenModified) {
+            return tokenArea.getText().trim();
+        }
+        return oldToken;
+    }
+
+    private DocumentListener modifiedFlag(Runnable mark) {
+        return new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                changed();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                changed();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // attribute changes only
+            }
+
+            private void changed() {
+                if (!loading) {
+                    mark.run();
+                }
+            }
+        };
+    }
+
+    /** List rows computed on demand from the scan result; nothing is copied per message. */
+    private static final class TokenListModel extends AbstractListModel<String> {
+        private ScanResult scan = ScanResult.NONE;
+
+        void show(ScanResult scan) {
+            int old = this.scan.tokenCount();
+            this.scan = scan;
+            if (old > 0) {
+                fireIntervalRemoved(this, 0, old - 1);
+            }
+            if (scan.tokenCount() > 0) {
+                fireIntervalAdded(this, 0, scan.tokenCount() - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return scan.tokenCount();
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            String token = scan.token(index);
+            String label = token.length() > LABEL_CHARS ? token.substring(0, LABEL_CHARS) + "..." : token;
+            return (index + 1) + ". " + label + (scan.inBody(index) ? "  (body)" : "");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package burp.Paseto;
+
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.proxy.http.InterceptedRequest;
+import burp.api.montoya.proxy.http.ProxyRequestHandler;
+import burp.api.montoya.proxy.http.ProxyRequestReceivedAction;
+import burp.api.montoya.proxy.http.ProxyRequestToBeSentAction;
+
+public class PasetoProxyHandler implements ProxyRequestHandler {
+    private final ExtensionConfig config;
+    private final MontoyaApi api;
+    private final ScanCache scanCache;
+    private final AnalysisPipeline pipeline;
+    private final ExtensionMetrics metrics;
+    private final PasetoVerifier verifier;
+
+    public PasetoProxyHandler(ExtensionConfig config,  MontoyaApi api, ScanCache scanCache, AnalysisPipeline pipeline,
+                              ExtensionMetrics metrics, PasetoVerifier verifier){
+        this.api=api;
+        this.config=config;
+        this.scanCache=scanCache;
+        this.pipeline=pipeline;
+        this.metrics=metrics;
+        this.verifier=verifier;
+    }
+
+    @Override
+    public ProxyRequestReceivedAction handleRequestReceived(InterceptedRequest interceptedRequest) {
+        long started = System.nanoTime();
+        ExtensionConfig.Snapshot current = config.current();
+        Annotations annotations = null;
+        // Look for a PASETO token in the request line, headers or body (one byte pass);
+        // the result is cached so HttpHandlerPaseto does not scan the same request again
+        ScanResult scan = scanCache.scan(interceptedRequest, current.rules());
+        if (scan.hasToken()) {
+            submitTokens(scan, interceptedRequest.httpService().host());
+            // The pipeline verifies new tokens; here only an already computed result is used,
+            // so a token's first sighting goes unlabelled and the later ones carry its status
+            PasetoVerifier.Verification verification = verifier.cached(scan.firstToken());
+            if (current.markRequests()) {
+                annotations = Annotations.annotations(describe(scan.firstToken(), verification), highlight(verification));
+            } else if (verification != null) {
+                annotations = Annotations.annotations(describe(scan.firstToken(), verification));
+            }
+        }
+        metrics.recordProxyRequest(scan.tokenCount(), System.nanoTime() - started);
+
+            // Continue with the (possibly) modified request
+            return annotations == null
+                    ?
+                    ProxyRequestReceivedAction.continueWith(interceptedRequest)
+                    :
+                    ProxyRequestReceivedAction.continueWith(interceptedRequest, annotations);
+        }
+
+        @Override
+        public ProxyRequestToBeSentAction handleRequestToBeSent(InterceptedRequest r) {
+            return ProxyRequestToBeSentAction.continueWith(r);
+        }
+
+        /** Short note such as "PASETO v4.public sub=alice [valid]"; decoding is memoised per token. */
+        static String describe(String token, PasetoVerifier.Verification verification){
+            DecodedPaseto decoded = PasetoDecoder.decode(token);
+            StringBuilder note = new StringBuilder("PASETO ").append(decoded.header()).append('.').append(decoded.purpose());
+            PasetoClaims claims = verification != null && verification.claims() != null
+                    ? verification.claims() : decoded.claims();
+            if (claims != null && claims.subject() != null) {
+                note.append(" sub=").append(claims.subject());
+            }
+            if (verification != null) {
+                note.append(" [").append(verification.status().label()).append(']');
+            } else if (decoded.isMalformed()) {
+                note.append(" (malformed)");
+            }
+            return note.toString();
+        }
+
+        static HighlightColor highlight(PasetoVerifier.Verification verification){
+            if (verification == null) {
+                return HighlightColor.GREEN;
+            }
+            switch (verification.status()) {
+                case INVALID: return HighlightColor.RED;
+                case EXPIRED:
+                case NOT_YET_VALID: return HighlightColor.ORANGE;
+                default: return HighlightColor.GREEN;
+            }
+        }
+
+        /** Hands the tokens to the analysis pipeline; the proxy thread only detects and annotates. */
+        private void submitTokens(ScanResult scan, String host){
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < scan.tokenCount(); i++) {
+                pipeline.submit(new TokenSighting(scan.token(i), host, now, TokenSighting.Source.REQUEST));
+            }
+        }
+
+
+    }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package burp.Paseto;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.proxy.websocket.BinaryMessageReceivedAction;
+import burp.api.montoya.proxy.websocket.BinaryMessageToBeSentAction;
+import burp.api.montoya.proxy.websocket.InterceptedBinaryMessage;
+import burp.api.montoya.proxy.websocket.InterceptedTextMessage;
+import burp.api.montoya.proxy.websocket.ProxyMessageHandler;
+import burp.api.montoya.proxy.websocket.ProxyWebSocketCreation;
+import burp.api.montoya.proxy.websocket.ProxyWebSocketCreationHandler;
+import burp.api.montoya.proxy.websocket.TextMessageReceivedAction;
+import burp.api.montoya.proxy.websocket.TextMessageToBeSentAction;
+import burp.api.montoya.websocket.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds tokens in WebSocket messages passing through the proxy, typically auth
+ * messages sent right after the upgrade.
+ *
+ * Burp hands the handler whole (reassembled) messages, so each message is scanned
+ * on its own: a token that ends its message is reported with that message, and is
+ * never run together with the start of the next one. Every connection keeps one
+ * {@link StreamingPasetoScanner} per direction, reused from message to message.
+ * Each message costs at most "webSocketScanLimitKb"; the rest of a larger message
+ * is skipped (and counted) and a token cut off by the limit is dropped. Sightings
+ * go to the {@link AnalysisPipeline} and messages are annotated like proxied
+ * requests.
+ */
+public class PasetoWebSocketHandler implements ProxyWebSocketCreationHandler {
+
+    private final ExtensionConfig config;
+    private final AnalysisPipeline pipeline;
+    private final ExtensionMetrics metrics;
+    private final PasetoVerifier verifier;
+
+    public PasetoWebSocketHandler(ExtensionConfig config, AnalysisPipeline pipeline, ExtensionMetrics metrics,
+                                  PasetoVerifier verifier) {
+        this.config = config;
+        this.pipeline = pipeline;
+        this.metrics = metrics;
+        this.verifier = verifier;
+    }
+
+    @Override
+    public void handleWebSocketCreation(ProxyWebSocketCreation creation) {
+        String host = creation.upgradeRequest().httpService().host();
+        creation.proxyWebSocket().registerProxyMessageHandler(new Connection(host));
+    }
+
+    /** Scanners of one connection; the two directions may be delivered on different threads. */
+    final class Connection implements ProxyMessageHandler {
+        private final String host;
+        private final FrameStream fromClient = new FrameStream();
+        private final FrameStream fromServer = new FrameStream();
+
+        Connection(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public TextMessageReceivedAction handleTextMessageReceived(InterceptedTextMessage message) {
+            scan(message.direction(), message.payload(), null, message.annotations());
+            return TextMessageReceivedAction.continueWith(message);
+        }
+
+        @Override
+        public TextMessageToBeSentAction handleTextMessageToBeSent(InterceptedTextMessage message) {
+            return TextMessageToBeSentAction.continueWith(message);
+        }
+
+        @Override
+        public BinaryMessageReceivedAction handleBinaryMessageReceived(InterceptedBinaryMessage message) {
+            scan(message.direction(), null, message.payload(), message.annotations());
+            return BinaryMessageReceivedAction.continueWith(message);
+        }
+
+        @Override
+        public BinaryMessageToBeSentAction handleBinaryMessageToBeSent(InterceptedBinaryMessage message) {
+            return BinaryMessageToBeSentAction.continueWith(message);
+        }
+
+        /** Exactly one of {@code text} and {@code binary} is set. */
+        private void scan(Direction direction, String text, ByteArray binary, Annotations annotations) {
+            // One snapshot per frame, so the settings cannot change halfway through
+            ExtensionConfig.Snapshot current = config.current();
+            int limit = current.webSocketScanLimitBytes();
+            if (limit == 0) {
+                return;
+            }
+            long started = System.nanoTime();
+            int length = text != null ? text.length() : binary.length();
+            int budget = Math.min(length, limit);
+            FrameStream stream = direction == Direction.CLIENT_TO_SERVER ? fromClient : fromServer;
+            List<String> tokens = stream.scan(current.rules(), text, binary, budget, budget < length);
+            if (!tokens.isEmpty()) {
+                submit(tokens);
+                annotate(tokens.get(0), tokens.size(), current, annotations);
+            }
+            metrics.recordWebSocketFrame(tokens.size(), budget, length - budget, System.nanoTime() - started);
+        }
+
+        private void submit(List<String> tokens) {
+            long now = System.currentTimeMillis();
+            for (String token : tokens) {
+                pipeline.submit(new TokenSighting(token, host, now, TokenSighting.Source.WEBSOCKET));
+            }
+        }
+
+        /** Same note and colour as {@link PasetoProxyHandler} gives a request. */
+        private void annotate(String token, int count, ExtensionConfig.Snapshot current, Annotations annotations) {
+            PasetoVerifier.Verification verification = verifier.cached(token);
+            if (!current.markRequests() && verification == null) {
+                return;
+            }
+            String note = PasetoProxyHandler.describe(token, verification);
+            annotations.setNotes(count > 1 ? note + " (+" + (count - 1) + ")" : note);
+            if (current.markRequests()) {
+                annotations.setHighlightColor(PasetoProxyHandler.highlight(verification));
+            }
+        }
+    }
+
+    /**
+     * One direction of a connection. Rule scopes are checked against the message,
+     * which is treated as a body.
+     */
+    static final class FrameStream {
+        private RuleMatcher rules;
+        private StreamingPasetoScanner scanner;
+        private final List<String> found = new ArrayList<>(2);
+        private ByteAt frame;
+
+        /**
+         * Scans the first {@code budget} bytes (characters) of one whole message;
+         * {@code truncated} if there are more.
+         */
+        synchronized List<String> scan(RuleMatcher rules, String text, ByteArray binary, int budget, boolean truncated) {
+            if (rules != this.rules) {
+                this.rules = rules;
+                this.scanner = new StreamingPasetoScanner(rules, this::token);
+            }
+            found.clear();
+            if (text != null) {
+                frame = i -> {
+                    char c = text.charAt(i);
+                    return c < 0x80 ? c : 0x80;
+                };
+                scanner.feed(text, 0, budget);
+            } else {
+                frame = binary::getByte;
+                byte[] bytes = budget == binary.length() ? binary.getBytes() : binary.subArray(0, budget).getBytes();
+                scanner.feed(bytes, 0, bytes.length);
+            }
+            if (truncated) {
+                scanner.reset(); // a token running into the limit is incomplete
+            } else {
+                scanner.finish(); // the message ends here, and so does a token at its end
+            }
+            frame = null;
+            return found.isEmpty() ? List.of() : List.copyOf(found);
+        }
+
+        private void token(String token, long start, DetectionRule rule) {
+            if (rule.allows(frame, (int) start, 0)) {
+                found.add(token);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package burp.Paseto;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Edited requests waiting for the original token to be sent again.
+ *
+ * Replaces the two parallel lists in {@link HttpHandlerPaseto}: lookups are O(1) by
+ * token, {@link #take(String)} finds and removes in one atomic step, entries expire
+ * after their time-to-live and the oldest entry is dropped once {@code maxEntries}
+ * is exceeded. {@link #isEmpty()} is lock-free so the HTTP handler can skip token
+ * extraction entirely when nothing is pending.
+ */
+public class PendingEdits {
+
+    public static final long DEFAULT_TTL_MILLIS = 10 * 60 * 1000L;
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile int size;
+    private volatile long modCount;
+    /** No entry expires before this; may be stale-low after removals, never too high. */
+    private volatile long earliestExpiry = Long.MAX_VALUE;
+
+    public PendingEdits() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public PendingEdits(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /** Registers (or replaces) the edited request for {@code token} with the default TTL. */
+    public void put(String token, HttpRequest edited) {
+        put(token, edited, ttlMillis);
+    }
+
+    public void put(String token, HttpRequest edited, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.put(token, new Entry(edited, now + ttlMillis));
+            earliestExpiry = Math.min(earliestExpiry, now + ttlMillis);
+            purge(now);
+            Iterator<Entry> it = entries.values().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+            size = entries.size();
+            modCount++;
+        }
+    }
+
+    /** Removes and returns the live edit for {@code token}, or {@code null}. */
+    public HttpRequest take(String token) {
+        if (size == 0 || token == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.remove(token);
+            purge(now);
+            if (entry != null) {
+                modCount++;
+            }
+            size = entries.size();
+            return entry == null || entry.expiresAt < now ? null : entry.request;
+        }
+    }
+
+    /**
+     * Lock-free check; may briefly report stale state but never misses a completed put.
+     * Takes the lock only once the earliest entry has expired, to drop it.
+     */
+    public boolean isEmpty() {
+        if (size == 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (earliestExpiry >= now) {
+            return false;
+        }
+        synchronized (entries) {
+            purge(now);
+            size = entries.size();
+            return size == 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            earliestExpiry = Long.MAX_VALUE;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /** Changes whenever an edit is added, taken or cleared; lets the persistence layer skip unchanged saves. */
+    public long modCount() {
+        return modCount;
+    }
+
+    /** Live (unexpired) edits, least recently used first. */
+    public List<Saved> snapshot() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            List<Saved> out = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (e.getValue().expiresAt >= now) {
+                    out.add(new Saved(e.getKey(), e.getValue().request, e.getValue().expiresAt));
+                }
+            }
+            return out;
+        }
+    }
+
+    /** Re-adds saved edits that have not expired yet; edits registered since startup win. */
+    public void restore(List<Saved> saved) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            for (Saved s : saved) {
+                if (s.expiresAt() >= now && !entries.containsKey(s.token()) && entries.size() < maxEntries) {
+                    entries.put(s.token(), new Entry(s.request(), s.expiresAt()));
+                    earliestExpiry = Math.min(earliestExpiry, s.expiresAt());
+                }
+            }
+            size = entries.size();
+        }
+    }
+
+    /** A pending edit with its absolute expiry time, as persisted across restarts. */
+    public record Saved(String token, HttpRequest request, long expiresAt) {
+    }
+
+    /**
+     * Drops expired entries. Custom TTLs and restored edits mean insertion order is not
+     * expiry order, so once the earliest expiry has passed the whole map is scanned and
+     * the bound recomputed. Caller holds the lock.
+     */
+    private void purge(long now) {
+        if (earliestExpiry >= now) {
+            return;
+        }
+        long earliest = Long.MAX_VALUE;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            long expiresAt = it.next().expiresAt;
+            if (expiresAt < now) {
+                it.remove();
+            } else {
+                earliest = Math.min(earliest, expiresAt);
+            }
+        }
+        earliestExpiry = earliest;
+    }
+
+    private record Entry(HttpRequest request, long expiresAt) {
+    }
+}
@@ -0,0 +1,209 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Sends batches of requests through {@code api.http()} with a cap on requests in
+ * flight and a per-host rate limit.
+ *
+ * A dispatcher thread takes a permit from the in-flight semaphore before handing a
+ * request to the worker pool, so a batch of thousands never queues more than
+ * {@code maxInFlight} requests at once (back-pressure instead of an unbounded queue).
+ * Results are delivered to the callback on worker threads as they arrive.
+ *
+ * A job may carry just a token instead of a finished request; the worker then
+ * builds the variant request right before sending it, so only the requests in
+ * flight are ever held in memory.
+ */
+public class ReplayEngine {
+
+    /**
+     * One request to send; {@code original} (may be null) is what it is compared against.
+     * If {@code token} is set, {@code request} is the base request and the token is
+     * swapped in by the worker, see {@link #replay(List, BiFunction, Consumer, Runnable)}.
+     */
+    public record Job(String label, HttpRequest request, HttpRequestResponse original, String token) {
+
+        public Job(String label, HttpRequest request, HttpRequestResponse original) {
+            this(label, request, original, null);
+        }
+    }
+
+    /** Coarse classification used to sort results: what did the server make of the request? */
+    public enum Outcome {
+        ACCEPTED,
+        REDIRECTED,
+        REJECTED,
+        ERROR
+    }
+
+    public record Result(Job job, short status, int length, long millis, String error) {
+
+        public boolean failed() {
+            return error != null;
+        }
+
+        /**
+         * Accepted when the status class matches the original response's (2xx without
+         * an original). A redirect the original did not get is usually the bounce to a
+         * login page, so it is kept apart from both.
+         */
+        public Outcome outcome() {
+            if (failed()) {
+                return Outcome.ERROR;
+            }
+            int original = originalStatus();
+            int expectedClass = original > 0 ? original / 100 : 2;
+            if (status / 100 == expectedClass) {
+                return Outcome.ACCEPTED;
+            }
+            return status / 100 == 3 ? Outcome.REDIRECTED : Outcome.REJECTED;
+        }
+
+        public int originalStatus() {
+            return job.original() != null && job.original().response() != null ? job.original().response().statusCode() : -1;
+        }
+
+        public int originalLength() {
+            return job.original() != null && job.original().response() != null
+                    ? job.original().response().toByteArray().length() : -1;
+        }
+    }
+
+    private final MontoyaApi api;
+    private final int maxInFlight;
+    private final long minIntervalNanos;
+    private final ConcurrentHashMap<String, HostSlot> hosts = new ConcurrentHashMap<>();
+    private volatile boolean cancelled;
+
+    /**
+     * @param maxInFlight        requests sent concurrently
+     * @param perHostRatePerSecond max requests per second to one host; 0 or less disables the limit
+     */
+    public ReplayEngine(MontoyaApi api, int maxInFlight, int perHostRatePerSecond) {
+        this.api = api;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.minIntervalNanos = perHostRatePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / perHostRatePerSecond : 0;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Sends all jobs in the background.
+     *
+     * @param onResult called once per completed job
+     * @param onDone   called once after the last job (or after cancellation)
+     */
+    public void replay(List<Job> jobs, Consumer<Result> onResult, Runnable onDone) {
+        replay(jobs, null, onResult, onDone);
+    }
+
+    /**
+     * Sends all jobs in the background, building the request of each job that carries
+     * a token on the worker thread.
+     *
+     * @param withToken turns a job's base request and token into the request to send;
+     *                  called concurrently, may be null if no job carries a token
+     */
+    public void replay(List<Job> jobs, BiFunction<HttpRequest, String, HttpRequest> withToken,
+                       Consumer<Result> onResult, Runnable onDone) {
+        Thread dispatcher = new Thread(() -> dispatch(jobs, withToken, onResult, onDone), "paseto-replay");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    private void dispatch(List<Job> jobs, BiFunction<HttpRequest, String, HttpRequest> withToken,
+                          Consumer<Result> onResult, Runnable onDone) {
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(maxInFlight, r -> {
+            Thread t = new Thread(r, "paseto-replay-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        try {
+            for (Job job : jobs) {
+                if (cancelled) {
+                    break;
+                }
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        if (!cancelled) {
+                            onResult.accept(send(job, withToken));
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(maxInFlight); // wait for the tail of the batch
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+            onDone.run();
+        }
+    }
+
+    private Result send(Job job, BiFunction<HttpRequest, String, HttpRequest> withToken) {
+        long started = System.nanoTime();
+        try {
+            awaitHostSlot(job.request().httpService() == null ? "" : job.request().httpService().host());
+            HttpRequest request = job.token() == null ? job.request() : withToken.apply(job.request(), job.token());
+            HttpRequestResponse rr = api.http().sendRequest(request);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (rr.response() == null) {
+                return new Result(job, (short) -1, -1, millis, "no response");
+            }
+            return new Result(job, rr.response().statusCode(), rr.response().toByteArray().length(), millis, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(job, (short) -1, -1, 0, "interrupted");
+        } catch (RuntimeException e) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return new Result(job, (short) -1, -1, millis, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /** Reserves the next send slot for {@code host} and sleeps until it comes up. */
+    private void awaitHostSlot(String host) throws InterruptedException {
+        if (minIntervalNanos == 0) {
+            return;
+        }
+        long slot = hosts.computeIfAbsent(host, h -> new HostSlot()).reserve(minIntervalNanos);
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private static final class HostSlot {
+        private long next;
+
+        synchronized long reserve(long interval) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, next);
+            next = slot + interval;
+            return slot;
+        }
+    }
+}
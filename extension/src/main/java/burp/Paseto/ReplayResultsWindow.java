@@ -0,0 +1,112 @@
+package burp.Paseto;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-modal window comparing original and replayed responses (status code and length)
+ * for a batch sent through {@link ReplayEngine}. Rows are appended as results arrive.
+ */
+public class ReplayResultsWindow extends JFrame {
+
+    private final ResultsModel model = new ResultsModel();
+    private final JLabel status = new JLabel();
+    private final int expected;
+
+    public ReplayResultsWindow(String title, int expected, ReplayEngine engine) {
+        super(title);
+        this.expected = expected;
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(5, 5));
+
+        JTable table = new JTable(model);
+        TableRowSorter<ResultsModel> sorter = new TableRowSorter<>(model);
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(ResultsModel.OUTCOME_COLUMN, SortOrder.ASCENDING)));
+        sorter.setSortsOnUpdates(true);
+        table.setRowSorter(sorter);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton cancel = new JButton("Cancel");
+        cancel.addActionListener(e -> engine.cancel());
+        JPanel north = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        north.add(status);
+        north.add(cancel);
+        add(north, BorderLayout.NORTH);
+        updateStatus(false);
+
+        setSize(new Dimension(900, 500));
+        setLocationRelativeTo(null);
+    }
+
+    /** Thread-safe; may be called from replay worker threads. */
+    public void addResult(ReplayEngine.Result result) {
+        SwingUtilities.invokeLater(() -> {
+            model.add(result);
+            updateStatus(false);
+        });
+    }
+
+    public void done() {
+        SwingUtilities.invokeLater(() -> updateStatus(true));
+    }
+
+    private void updateStatus(boolean finished) {
+        status.setText((finished ? "Finished: " : "Running: ") + model.getRowCount() + " / " + expected);
+    }
+
+    private static class ResultsModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"#", "Request", "Outcome", "Orig. status", "Status", "Orig. length", "Length", "Time (ms)", "Error"};
+        static final int OUTCOME_COLUMN = 2;
+        private final List<ReplayEngine.Result> rows = new ArrayList<>();
+
+        void add(ReplayEngine.Result result) {
+            rows.add(result);
+            fireTableRowsInserted(rows.size() - 1, rows.size() - 1);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 1:
+                case 8: return String.class;
+                case 2: return ReplayEngine.Outcome.class;
+                default: return Integer.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ReplayEngine.Result r = rows.get(rowIndex);
+            switch (columnIndex) {
+                case 0: return rowIndex + 1;
+                case 1: return r.job().label();
+                case 2: return r.outcome();
+                case 3: return r.originalStatus();
+                case 4: return (int) r.status();
+                case 5: return r.originalLength();
+                case 6: return r.length();
+                case 7: return (int) r.millis();
+                default: return r.error() == null ? "" : r.error();
+            }
+        }
+    }
+}
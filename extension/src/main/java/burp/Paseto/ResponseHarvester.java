@@ -0,0 +1,75 @@
+package burp.Paseto;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects PASETO tokens issued by servers (login / refresh responses, Set-Cookie).
+ *
+ * The rule matcher runs directly over the raw response bytes with a cap on how many
+ * body bytes are looked at, so large downloads are neither copied nor turned into a
+ * String. Bodies whose content type cannot carry a token are skipped.
+ */
+public class ResponseHarvester {
+
+    private static final String[] SKIPPED_TYPES = {
+            "image/", "font/", "audio/", "video/",
+            "application/font", "application/vnd.ms-fontobject", "application/zip",
+            "application/pdf", "application/wasm"
+    };
+
+    private ResponseHarvester() {
+    }
+
+    /**
+     * @param maxBodyBytes body bytes to scan at most; headers are always scanned
+     * @param scannedBytes receives the number of bytes actually scanned
+     * @return distinct tokens in order of appearance (empty list if none)
+     */
+    public static List<String> harvest(HttpResponse response, RuleMatcher rules, int maxBodyBytes,
+                                       LongAdder scannedBytes) {
+        ByteArray raw = response.toByteArray();
+        int bodyOffset = response.bodyOffset();
+        int limit = scanLimit(response, raw.length(), maxBodyBytes);
+
+        TokenSpans spans = rules.findAll(HttpTokens.bytes(raw), 0, limit, bodyOffset);
+        List<String> found = new ArrayList<>(spans.size());
+        for (int i = 0; i < spans.size(); i++) {
+            String token = HttpTokens.tokenAt(raw, spans.start(i), spans.end(i));
+            if (!found.contains(token)) {
+                found.add(token);
+            }
+        }
+        scannedBytes.add(limit);
+        return found;
+    }
+
+    /**
+     * End of the part of a response worth scanning: the headers, plus at most
+     * {@code maxBodyBytes} of a body whose content type can carry a token.
+     */
+    static int scanLimit(HttpResponse response, int length, int maxBodyBytes) {
+        int bodyOffset = response.bodyOffset();
+        return skipBody(response.headerValue("Content-Type"))
+                ? bodyOffset
+                : (int) Math.min(length, (long) bodyOffset + Math.max(0, maxBodyBytes));
+    }
+
+    static boolean skipBody(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.trim().toLowerCase(Locale.ROOT);
+        for (String skipped : SKIPPED_TYPES) {
+            if (type.startsWith(skipped)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,119 @@
+package burp.Paseto;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpMessage;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scan-once cache shared by {@link PasetoProxyHandler}, {@link HttpHandlerPaseto} and
+ * the {@link PasetoMessageEditor} tabs.
+ *
+ * A proxied request is seen by both handlers; the first one scans it and the second
+ * one finds the result under the request's fingerprint (byte length + 64-bit FNV-1a
+ * hash of the raw bytes). Requests changed in between (intercept edits, match/replace)
+ * simply fingerprint differently and get scanned again. Results belong to one compiled
+ * rule set; the cache starts over when the detection rules are reloaded.
+ *
+ * Most traffic carries no token. Those results go to a separate negative cache a
+ * sixteenth the size, which only has to bridge the gap between the two handlers, so
+ * a flood of token-free requests (Intruder, scanner) cannot push out the results
+ * for token-carrying requests.
+ */
+public class ScanCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final BoundedCache<Fingerprint, ScanResult> cache;
+    private final BoundedCache<Fingerprint, Boolean> negatives;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesFingerprinted = new LongAdder();
+    private final LongAdder bytesScanned = new LongAdder();
+    private volatile RuleMatcher cachedRules;
+
+    public ScanCache(int maxEntries) {
+        this.cache = new BoundedCache<>(maxEntries);
+        this.negatives = new BoundedCache<>(Math.max(1, maxEntries / 16));
+    }
+
+    /** Requests and responses alike; the result only depends on the raw bytes. */
+    public ScanResult scan(HttpMessage message, RuleMatcher rules) {
+        if (rules != cachedRules) {
+            cachedRules = rules;
+            cache.clear();
+            negatives.clear();
+        }
+        ByteArray raw = message.toByteArray();
+        Fingerprint key = Fingerprint.of(raw);
+        bytesFingerprinted.add(key.length());
+        ScanResult result = cache.get(key);
+        if (result == null && negatives.get(key) != null) {
+            result = ScanResult.NONE;
+        }
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        bytesScanned.add(key.length());
+        int bodyOffset = message.bodyOffset();
+        result = ScanResult.of(HttpTokens.bytes(raw), HttpTokens.findAll(rules, raw, bodyOffset), bodyOffset);
+        if (cachedRules == rules) { // not if the rules were reloaded meanwhile
+            if (result.hasToken()) {
+                cache.put(key, result);
+            } else {
+                negatives.put(key, Boolean.TRUE);
+            }
+        }
+        return result;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Bytes run through the token scanner (cache misses only). */
+    public long bytesScanned() {
+        return bytesScanned.sum();
+    }
+
+    /** Bytes hashed for fingerprints (every lookup). */
+    public long bytesFingerprinted() {
+        return bytesFingerprinted.sum();
+    }
+
+    /** Results with a token evicted to make room; negative results churn by design and are not counted. */
+    public long evictions() {
+        return cache.evictions();
+    }
+
+    public int size() {
+        return cache.size() + negatives.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ScanCache[" + cache + ", negatives " + negatives + "]";
+    }
+
+    /** Cheap identity of a raw request; collisions need equal length and equal 64-bit hash. */
+    record Fingerprint(int length, long hash) {
+
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        static Fingerprint of(ByteArray raw) {
+            int len = raw.length();
+            long h = FNV_OFFSET;
+            for (int i = 0; i < len; i++) {
+                h = (h ^ (raw.getByte(i) & 0xFF)) * FNV_PRIME;
+            }
+            return new Fingerprint(len, h);
+        }
+    }
+}
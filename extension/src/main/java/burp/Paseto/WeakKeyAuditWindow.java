@@ -0,0 +1,143 @@
+package burp.Paseto;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Non-modal window driving a {@link WeakKeyAudit} for one local token: pick the
+ * key derivations, start, watch candidates per second, and copy the
+ * "verificationKeys" entry if a key is found.
+ */
+public class WeakKeyAuditWindow extends JFrame {
+
+    private final String token;
+    private final Path wordlist;
+    private final JProgressBar progress = new JProgressBar(0, 1000);
+    private final JLabel status = new JLabel("Ready");
+    private final JTextArea result = new JTextArea(4, 60);
+    private final JButton start = new JButton("Start");
+    private final JButton cancel = new JButton("Cancel");
+    private volatile WeakKeyAudit audit;
+
+    public WeakKeyAuditWindow(String token, Path wordlist) {
+        super("PASETO weak-key audit: " + wordlist.getFileName());
+        this.token = token;
+        this.wordlist = wordlist;
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(5, 5));
+
+        JPanel derivations = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        derivations.add(new JLabel("Key from line:"));
+        JCheckBox[] boxes = new JCheckBox[WeakKeyAudit.Derivation.values().length];
+        for (WeakKeyAudit.Derivation derivation : WeakKeyAudit.Derivation.values()) {
+            JCheckBox box = new JCheckBox(derivation.description(), true);
+            boxes[derivation.ordinal()] = box;
+            derivations.add(box);
+        }
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        progress.setStringPainted(true);
+        progress.setString("");
+        cancel.setEnabled(false);
+        controls.add(start);
+        controls.add(cancel);
+        controls.add(progress);
+        controls.add(status);
+
+        JPanel north = new JPanel(new BorderLayout());
+        north.add(derivations, BorderLayout.NORTH);
+        north.add(controls, BorderLayout.SOUTH);
+        add(north, BorderLayout.NORTH);
+
+        result.setEditable(false);
+        result.setLineWrap(true);
+        result.setText("Token: " + token + "\nOffline check against the token's authentication tag; nothing is sent.");
+        add(new JScrollPane(result), BorderLayout.CENTER);
+
+        start.addActionListener(e -> {
+            Set<WeakKeyAudit.Derivation> selected = EnumSet.noneOf(WeakKeyAudit.Derivation.class);
+            for (WeakKeyAudit.Derivation derivation : WeakKeyAudit.Derivation.values()) {
+                if (boxes[derivation.ordinal()].isSelected()) {
+                    selected.add(derivation);
+                }
+            }
+            start(selected);
+        });
+        cancel.addActionListener(e -> {
+            WeakKeyAudit running = audit;
+            if (running != null) {
+                running.cancel();
+            }
+        });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                WeakKeyAudit running = audit;
+                if (running != null) {
+                    running.cancel();
+                }
+            }
+        });
+
+        setSize(new Dimension(900, 260));
+        setLocationRelativeTo(null);
+    }
+
+    private void start(Set<WeakKeyAudit.Derivation> derivations) {
+        WeakKeyAudit newAudit = new WeakKeyAudit(token, wordlist, derivations, Runtime.getRuntime().availableProcessors());
+        audit = newAudit;
+        start.setEnabled(false);
+        cancel.setEnabled(true);
+        status.setText("Starting...");
+        Thread t = new Thread(() -> {
+            try {
+                newAudit.run(new WeakKeyAudit.Listener() {
+                    @Override
+                    public void progress(long candidates, long bytesDone, long totalBytes, long candidatesPerSecond) {
+                        SwingUtilities.invokeLater(() -> {
+                            progress.setValue((int) (bytesDone * 1000 / Math.max(1, totalBytes)));
+                            progress.setString(bytesDone * 100 / Math.max(1, totalBytes) + "%");
+                            status.setText(String.format("%,d candidates, %,d cand/s", candidates, candidatesPerSecond));
+                        });
+                    }
+
+                    @Override
+                    public void finished(WeakKeyAudit.Result r) {
+                        SwingUtilities.invokeLater(() -> showResult(r));
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                SwingUtilities.invokeLater(() -> {
+                    status.setText("Failed: " + e.getMessage());
+                    start.setEnabled(true);
+                    cancel.setEnabled(false);
+                });
+            }
+        }, "paseto-weak-key-audit");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void showResult(WeakKeyAudit.Result r) {
+        start.setEnabled(true);
+        cancel.setEnabled(false);
+        String summary = String.format("%,d candidates in %,d ms", r.candidates(), r.millis());
+        if (r.found()) {
+            progress.setString("Key found");
+            status.setText(summary);
+            result.setText("Weak key found (" + r.derivation().description() + ")\n"
+                    + "Secret : " + r.secret() + "\n"
+                    + "Setting: " + r.keyEntry()
+                    + (r.header().startsWith("v4") ? "\nAdd the entry to \"verificationKeys\" to decrypt these tokens." : ""));
+        } else {
+            progress.setString(r.cancelled() ? "Cancelled" : "No key found");
+            status.setText(summary);
+        }
+    }
+}
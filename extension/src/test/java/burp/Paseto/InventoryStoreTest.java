@@ -0,0 +1,389 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.persistence.PersistedObject;
+import burp.api.montoya.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryStoreTest {
+
+    private static MontoyaObjectFactory previousFactory;
+
+    /** Only the factory methods the store calls; Burp normally installs the real one. */
+    @BeforeAll
+    static void installFactory() {
+        previousFactory = ObjectFactoryLocator.FACTORY;
+        ObjectFactoryLocator.FACTORY = stub(MontoyaObjectFactory.class, (method, args) -> switch (method) {
+            case "byteArray" -> byteArray((byte[]) args[0]);
+            case "httpService" -> service((String) args[0], (Integer) args[1], (Boolean) args[2]);
+            case "httpRequest" -> request((HttpService) args[0], ((ByteArray) args[1]).getBytes());
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    @AfterAll
+    static void restoreFactory() {
+        ObjectFactoryLocator.FACTORY = previousFactory;
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T stub(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(InventoryStoreTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> type.getSimpleName();
+                    default -> handler.invoke(method.getName(), args);
+                }));
+    }
+
+    private static ByteArray byteArray(byte[] bytes) {
+        return stub(ByteArray.class, (method, args) -> switch (method) {
+            case "getBytes" -> bytes.clone();
+            case "length" -> bytes.length;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static HttpService service(String host, int port, boolean secure) {
+        return stub(HttpService.class, (method, args) -> switch (method) {
+            case "host" -> host;
+            case "port" -> port;
+            case "secure" -> secure;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static HttpRequest request(HttpService service, byte[] bytes) {
+        return stub(HttpRequest.class, (method, args) -> switch (method) {
+            case "httpService" -> service;
+            case "toByteArray" -> byteArray(bytes);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static TokenInventory.Saved saved(String token, long firstSeen, long lastSeen, long hits, String... hosts) {
+        return new TokenInventory.Saved(token, firstSeen, lastSeen, hits, List.of(hosts));
+    }
+
+    private static Map<String, TokenInventory.Saved> replay(List<byte[]> segments) {
+        Map<String, TokenInventory.Saved> state = new HashMap<>();
+        for (byte[] segment : segments) {
+            InventoryStore.decodeSegment(segment, state);
+        }
+        return state;
+    }
+
+    private static Map<String, TokenInventory.Saved> byToken(List<TokenInventory.Saved> records) {
+        Map<String, TokenInventory.Saved> map = new HashMap<>();
+        records.forEach(s -> map.put(s.token(), s));
+        return map;
+    }
+
+    @Test
+    void segmentsRoundTripEveryField() {
+        List<TokenInventory.Saved> records = List.of(
+                saved("v4.public.first", 1_700_000_000_000L, 1_700_000_500_000L, 3, "a.example", "b.example:8443"),
+                // Seen before the segment's base time: negative delta
+                saved("v4.local.earlier", 1_600_000_000_000L, 1_600_000_000_000L, 1, "ümlaut.example"),
+                saved("v2.public.nohosts", 1_700_000_000_001L, 1_700_000_000_001L, Long.MAX_VALUE / 3),
+                // lastSeen before firstSeen is clamped rather than stored as a huge delta
+                saved("v3.public.clamped", 5_000L, 4_000L, 0, "x"));
+        List<byte[]> segments = InventoryStore.encodeSegments(records, false);
+        assertEquals(1, segments.size());
+
+        Map<String, TokenInventory.Saved> state = replay(segments);
+        assertEquals(4, state.size());
+        for (TokenInventory.Saved s : records.subList(0, 3)) {
+            assertEquals(s, state.get(s.token()));
+        }
+        assertEquals(saved("v3.public.clamped", 5_000L, 5_000L, 0, "x"), state.get("v3.public.clamped"));
+    }
+
+    @Test
+    void largeBatchesSplitIntoSegmentsAndOnlyTheFirstClears() {
+        List<TokenInventory.Saved> records = new ArrayList<>();
+        String filler = "A".repeat(900);
+        for (int i = 0; i < 3_000; i++) {
+            records.add(saved("v4.public." + filler + i, 1_000L + i, 2_000L + i, i, "host" + (i % 7)));
+        }
+        List<byte[]> segments = InventoryStore.encodeSegments(records, true);
+        assertTrue(segments.size() > 1, "segments: " + segments.size());
+        for (byte[] segment : segments) {
+            // One record over the limit at most
+            assertTrue(segment.length < InventoryStore.MAX_SEGMENT_BYTES + 2048, "segment bytes: " + segment.length);
+        }
+
+        Map<String, TokenInventory.Saved> state = new HashMap<>();
+        state.put("v4.local.stale", saved("v4.local.stale", 1, 1, 1));
+        for (byte[] segment : segments) {
+            InventoryStore.decodeSegment(segment, state);
+        }
+        // The CLEAR in the first segment drops the stale entry, the later segments do not drop the earlier ones
+        assertEquals(byToken(records), state);
+    }
+
+    @Test
+    void laterSegmentsWinAndClearForgetsEverythingBefore() {
+        byte[] first = InventoryStore.encodeSegments(List.of(
+                saved("t1", 10, 10, 1, "a"), saved("t2", 10, 10, 1, "a")), false).get(0);
+        byte[] update = InventoryStore.encodeSegments(List.of(saved("t1", 10, 30, 5, "a", "b")), false).get(0);
+        byte[] cleared = InventoryStore.encodeSegments(List.of(saved("t3", 40, 40, 1, "c")), true).get(0);
+        byte[] afterClear = InventoryStore.encodeSegments(List.of(saved("t1", 50, 50, 1, "d")), false).get(0);
+
+        assertEquals(Map.of("t1", saved("t1", 10, 30, 5, "a", "b"), "t2", saved("t2", 10, 10, 1, "a")),
+                replay(List.of(first, update)));
+        // Replay order, not timestamps, decides which copy survives
+        assertEquals(saved("t1", 10, 10, 1, "a"), replay(List.of(update, first)).get("t1"));
+        assertEquals(Map.of("t3", saved("t3", 40, 40, 1, "c"), "t1", saved("t1", 50, 50, 1, "d")),
+                replay(List.of(first, update, cleared, afterClear)));
+    }
+
+    @Test
+    void emptyClearStillWritesASegment() {
+        List<byte[]> segments = InventoryStore.encodeSegments(List.of(), true);
+        assertEquals(1, segments.size());
+        byte[] first = InventoryStore.encodeSegments(List.of(saved("t1", 10, 10, 1, "a")), false).get(0);
+        assertEquals(Map.of(), replay(List.of(first, segments.get(0))));
+
+        assertEquals(List.of(), InventoryStore.encodeSegments(List.of(), false));
+    }
+
+    @Test
+    void unknownSegmentsAreRejected() {
+        byte[] segment = InventoryStore.encodeSegments(List.of(saved("t1", 10, 10, 1, "a")), false).get(0);
+        byte[] wrongMagic = segment.clone();
+        wrongMagic[0] ^= 1;
+        assertThrows(IllegalStateException.class, () -> InventoryStore.decodeSegment(wrongMagic, new HashMap<>()));
+        byte[] newerFormat = segment.clone();
+        newerFormat[4]++;
+        assertThrows(IllegalStateException.class, () -> InventoryStore.decodeSegment(newerFormat, new HashMap<>()));
+        byte[] pending = InventoryStore.encodePending(List.of());
+        pending[1] ^= 1;
+        assertThrows(IllegalStateException.class, () -> InventoryStore.decodePending(pending));
+    }
+
+    @Test
+    void pendingEditsRoundTrip() {
+        byte[] raw = "POST /api HTTP/1.1\r\nHost: api.example\r\n\r\n{\"x\":\"ÿ\"}"
+                .getBytes(StandardCharsets.ISO_8859_1);
+        List<PendingEdits.Saved> edits = List.of(
+                new PendingEdits.Saved("v4.public.one", request(service("api.example", 8443, true), raw), 123_456_789L),
+                new PendingEdits.Saved("v4.local.two", request(service("ü.example", 80, false), new byte[0]), 1L));
+
+        List<PendingEdits.Saved> decoded = InventoryStore.decodePending(InventoryStore.encodePending(edits));
+        assertEquals(2, decoded.size());
+        for (int i = 0; i < edits.size(); i++) {
+            PendingEdits.Saved expected = edits.get(i);
+            PendingEdits.Saved actual = decoded.get(i);
+            assertEquals(expected.token(), actual.token());
+            assertEquals(expected.expiresAt(), actual.expiresAt());
+            assertEquals(expected.request().httpService().host(), actual.request().httpService().host());
+            assertEquals(expected.request().httpService().port(), actual.request().httpService().port());
+            assertEquals(expected.request().httpService().secure(), actual.request().httpService().secure());
+            assertArrayEquals(expected.request().toByteArray().getBytes(), actual.request().toByteArray().getBytes());
+        }
+        assertEquals(List.of(), InventoryStore.decodePending(InventoryStore.encodePending(List.of())));
+    }
+
+    //------------------------------------------------------------------
+    // Crash safety: stop the store after every possible write and replay what is left
+    //------------------------------------------------------------------
+
+    private static final class Crash extends RuntimeException {
+    }
+
+    /** extensionData() backed by maps, failing on the n-th write once armed. */
+    private static final class Data {
+        final Map<String, Integer> integers = new HashMap<>();
+        final Map<String, byte[]> bytes = new LinkedHashMap<>();
+        int writesLeft = Integer.MAX_VALUE;
+        int writes;
+
+        PersistedObject object() {
+            return stub(PersistedObject.class, (method, args) -> switch (method) {
+                case "getInteger" -> integers.get((String) args[0]);
+                case "getByteArray" -> {
+                    byte[] b = bytes.get((String) args[0]);
+                    yield b == null ? null : byteArray(b);
+                }
+                case "setInteger" -> write(() -> integers.put((String) args[0], (Integer) args[1]));
+                case "setByteArray" -> write(() -> bytes.put((String) args[0], ((ByteArray) args[1]).getBytes()));
+                case "deleteByteArray" -> write(() -> bytes.remove((String) args[0]));
+                default -> throw new UnsupportedOperationException(method);
+            });
+        }
+
+        private Object write(Runnable change) {
+            if (writesLeft-- <= 0) {
+                throw new Crash();
+            }
+            writes++;
+            change.run();
+            return null;
+        }
+
+        /** What load() would rebuild from the persisted log. */
+        Map<String, TokenInventory.Saved> replay() {
+            int base = integers.getOrDefault(InventoryStore.BASE_KEY, 0);
+            int next = integers.getOrDefault(InventoryStore.NEXT_KEY, 0);
+            List<byte[]> segments = new ArrayList<>();
+            for (int n = base; n < next; n++) {
+                byte[] segment = bytes.get(InventoryStore.SEGMENT_PREFIX + n);
+                if (segment != null) {
+                    segments.add(segment);
+                }
+            }
+            return InventoryStoreTest.replay(segments);
+        }
+    }
+
+    private static InventoryStore store(Data data, TokenInventory inventory) {
+        PersistedObject object = data.object();
+        Persistence persistence = stub(Persistence.class, (method, args) -> switch (method) {
+            case "extensionData" -> object;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        Logging logging = stub(Logging.class, (method, args) -> null);
+        MontoyaApi api = stub(MontoyaApi.class, (method, args) -> switch (method) {
+            case "persistence" -> persistence;
+            case "logging" -> logging;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        return new InventoryStore(api, inventory, new PendingEdits());
+    }
+
+    private static Map<String, TokenInventory.Saved> live(TokenInventory inventory) {
+        return byToken(inventory.drainAll());
+    }
+
+    /** A store one flush away from compaction (COMPACT_AFTER_SEGMENTS flushes of small changes). */
+    private record Setup(Data data, TokenInventory inventory, InventoryStore store) {
+        static Setup beforeCompaction() {
+            Data data = new Data();
+            TokenInventory inventory = new TokenInventory();
+            InventoryStore store = InventoryStoreTest.store(data, inventory);
+            for (int n = 0; n < InventoryStore.COMPACT_AFTER_SEGMENTS; n++) {
+                inventory.record("v4.public.token" + (n % 10), "host" + n, 1_000L * n);
+                store.flush();
+            }
+            return new Setup(data, inventory, store);
+        }
+    }
+
+    private interface Change {
+        void apply(Setup setup);
+    }
+
+    private static void assertEveryCrashPointReplays(Change change, boolean compacts) {
+        Setup probe = Setup.beforeCompaction();
+        Map<String, TokenInventory.Saved> before = probe.data().replay();
+        assertEquals(live(probe.inventory()), before);
+        int writesBefore = probe.data().writes;
+        change.apply(probe);
+        probe.store().flush();
+        int totalWrites = probe.data().writes - writesBefore;
+        Map<String, TokenInventory.Saved> after = live(probe.inventory());
+        assertEquals(after, probe.data().replay());
+        if (compacts) {
+            // A fresh log of CLEAR plus the live records, starting after the segment this flush appended
+            assertEquals(InventoryStore.COMPACT_AFTER_SEGMENTS + 1, probe.data().integers.get(InventoryStore.BASE_KEY));
+            assertEquals(probe.data().integers.get(InventoryStore.NEXT_KEY) - InventoryStore.COMPACT_AFTER_SEGMENTS - 1,
+                    probe.data().bytes.size());
+        }
+
+        for (int crashAt = 0; crashAt < totalWrites; crashAt++) {
+            Setup setup = Setup.beforeCompaction();
+            change.apply(setup);
+            setup.data().writesLeft = crashAt;
+            assertThrows(Crash.class, setup.store()::flush);
+            Map<String, TokenInventory.Saved> replayed = setup.data().replay();
+            assertTrue(replayed.equals(before) || replayed.equals(after),
+                    "crash after " + crashAt + " of " + totalWrites + " writes replays to " + replayed);
+        }
+    }
+
+    @Test
+    void crashDuringFlushAndCompactionStillReplays() {
+        assertEveryCrashPointReplays(setup -> setup.inventory().record("v4.public.token3", "late", 99_000L), true);
+    }
+
+    @Test
+    void crashDuringAClearingFlushStillReplays() {
+        assertEveryCrashPointReplays(setup -> {
+            setup.inventory().clear();
+            setup.inventory().record("v4.local.fresh", "after-clear", 100_000L);
+        }, false);
+    }
+
+    @Test
+    void restoreOverBudgetEvictsOldSessionsNotLiveSightings() {
+        Data data = new Data();
+        List<TokenInventory.Saved> saved = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            saved.add(saved(String.format("v4.public.saved%04d", i), 1_000L + i, 1_000L + i, 1, "old.example"));
+        }
+        List<byte[]> segments = InventoryStore.encodeSegments(saved, true);
+        for (int n = 0; n < segments.size(); n++) {
+            data.bytes.put(InventoryStore.SEGMENT_PREFIX + n, segments.get(n));
+        }
+        data.integers.put(InventoryStore.NEXT_KEY, segments.size());
+
+        // Room for about a third of the saved records
+        TokenInventory inventory = new TokenInventory(400_000);
+        List<String> liveTokens = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            liveTokens.add("v4.local.live" + i);
+        }
+        // Also saved, as the oldest record of all: the live sighting must still win
+        liveTokens.add("v4.public.saved0000");
+        for (int i = 0; i < liveTokens.size(); i++) {
+            inventory.record(liveTokens.get(i), "live.example", 1_000_000L + i);
+        }
+
+        InventoryStore store = store(data, inventory);
+        store.start();
+        store.close();
+
+        TokenInventory.TokenRecord[] records = inventory.snapshot();
+        assertTrue(inventory.usedBytes() <= 400_000, inventory.toString());
+        assertTrue(records.length > 1_000 && records.length < 5_000, inventory.toString());
+        // Least to most recently seen: the surviving saved records, oldest first, then this session
+        List<String> order = new ArrayList<>();
+        for (TokenInventory.TokenRecord record : records) {
+            order.add(record.token());
+        }
+        assertEquals(liveTokens, order.subList(order.size() - liveTokens.size(), order.size()));
+        List<String> restored = order.subList(0, order.size() - liveTokens.size());
+        List<String> newestSaved = new ArrayList<>();
+        for (TokenInventory.Saved s : saved.subList(saved.size() - restored.size(), saved.size())) {
+            newestSaved.add(s.token());
+        }
+        assertEquals(newestSaved, restored);
+        assertEquals(2, inventory.get("v4.public.saved0000").hits());
+    }
+}
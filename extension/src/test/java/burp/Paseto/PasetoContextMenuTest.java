@@ -0,0 +1,97 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Transfer of one batch edit onto the tokens of the other selected requests. */
+class PasetoContextMenuTest {
+
+    private static String publicToken(String json, int signatureByte, String footer) {
+        byte[] message = json.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = Arrays.copyOf(message, message.length + 64);
+        Arrays.fill(payload, message.length, payload.length, (byte) signatureByte);
+        return "v4.public." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload)
+                + (footer == null ? "" : "." + footer);
+    }
+
+    private static String message(String token) {
+        return PasetoDecoder.decode(token).messageText();
+    }
+
+    @Test
+    void changedClaimIsAppliedToEachTargetsOwnClaims() {
+        String base = publicToken("{\"sub\":\"alice\",\"role\":\"user\"}", 1, null);
+        String edited = publicToken("{\"sub\":\"alice\",\"role\":\"admin\"}", 1, null);
+        String target = publicToken("{\"sub\":\"bob\",\"tenant\":7,\"role\":\"user\"}", 2, "Zm9vdA");
+
+        String result = PasetoContextMenu.applyPartEdits(base, edited, target);
+
+        assertEquals("{\"sub\":\"bob\",\"tenant\":7,\"role\":\"admin\"}", message(result));
+        assertArrayEquals(PasetoDecoder.decode(target).signature(), PasetoDecoder.decode(result).signature());
+        assertEquals("Zm9vdA", PasetoInfo.parse(result).footer);
+    }
+
+    @Test
+    void addedAndRemovedClaims() {
+        String base = publicToken("{\"sub\":\"alice\",\"exp\":\"2030-01-01T00:00:00Z\"}", 1, null);
+        String edited = publicToken("{\"sub\":\"alice\",\"scope\":[\"read\",\"write\"]}", 1, null);
+        String target = publicToken("{\"sub\":\"bob\",\"exp\":\"2031-01-01T00:00:00Z\"}", 2, null);
+
+        assertEquals("{\"sub\":\"bob\",\"scope\":[\"read\",\"write\"]}",
+                message(PasetoContextMenu.applyPartEdits(base, edited, target)));
+    }
+
+    @Test
+    void nestedAndEscapedValuesSurvive() {
+        String base = publicToken("{\"sub\":\"a\",\"ctx\":{\"org\":\"x\"}}", 1, null);
+        String edited = publicToken("{\"sub\":\"a\",\"ctx\":{\"org\":\"y \\\"quoted\\\"\"}}", 1, null);
+        String target = publicToken("{\"sub\":\"b\\\\c\",\"ctx\":{\"org\":\"x\"}}", 2, null);
+
+        assertEquals("{\"sub\":\"b\\\\c\",\"ctx\":{\"org\":\"y \\\"quoted\\\"\"}}",
+                message(PasetoContextMenu.applyPartEdits(base, edited, target)));
+    }
+
+    @Test
+    void headerAndFooterEditsKeepTheTargetsPayload() {
+        String base = publicToken("{\"sub\":\"alice\"}", 1, null);
+        String target = publicToken("{\"sub\":\"bob\"}", 2, null);
+        String edited = "v3.public." + PasetoInfo.parse(base).payload + ".eyJraWQiOiJ4In0";
+
+        String result = PasetoContextMenu.applyPartEdits(base, edited, target);
+
+        assertEquals("v3.public." + PasetoInfo.parse(target).payload + ".eyJraWQiOiJ4In0", result);
+    }
+
+    @Test
+    void unchangedClaimsKeepTheTargetTokenVerbatim() {
+        String base = publicToken("{\"sub\":\"alice\"}", 1, null);
+        String edited = publicToken("{ \"sub\" : \"alice\" }", 1, null);
+        String target = publicToken("{\"sub\":\"bob\"}", 2, null);
+
+        assertEquals(target, PasetoContextMenu.applyPartEdits(base, edited, target));
+    }
+
+    @Test
+    void targetWithoutJsonClaimsKeepsItsPayload() {
+        String base = publicToken("{\"sub\":\"alice\"}", 1, null);
+        String edited = publicToken("{\"sub\":\"mallory\"}", 1, null);
+        String target = "v4.local.AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+
+        assertEquals(target, PasetoContextMenu.applyPartEdits(base, edited, target));
+    }
+
+    @Test
+    void nonClaimPayloadEditIsCopiedVerbatim() {
+        String base = "v4.local.QUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQUFBQQ";
+        String edited = "v4.local.QkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQkJCQg";
+        String target = "v4.local.Q0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQ0NDQw";
+
+        assertEquals(edited, PasetoContextMenu.applyPartEdits(base, edited, target));
+    }
+}
@@ -0,0 +1,44 @@
+package burp.Paseto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Message-by-message scanning of one WebSocket direction. */
+class PasetoWebSocketHandlerTest {
+
+    static final String TOKEN = "v4.public.eyJzdWIiOiJhbGljZSJ9c2lnbmF0dXJlX2J5dGVzX2dvX2hlcmU";
+
+    private final PasetoWebSocketHandler.FrameStream stream = new PasetoWebSocketHandler.FrameStream();
+
+    private List<String> text(String message) {
+        return stream.scan(RuleMatcher.DEFAULT, message, null, message.length(), false);
+    }
+
+    @Test
+    void tokenThatIsTheWholeMessageIsReportedWithIt() {
+        assertEquals(List.of(TOKEN), text(TOKEN));
+    }
+
+    @Test
+    void tokenIsNotRunTogetherWithTheNextMessage() {
+        assertEquals(List.of(TOKEN), text(TOKEN));
+        assertEquals(List.of(), text("ok"));
+        assertEquals(List.of(), text("ping"));
+        assertEquals(List.of(TOKEN), text("{\"auth\":\"" + TOKEN + "\"}"));
+    }
+
+    @Test
+    void tokenCutOffByTheLimitIsDropped() {
+        String message = "auth " + TOKEN;
+        assertEquals(List.of(), stream.scan(RuleMatcher.DEFAULT, message, null, message.length() - 4, true));
+        assertEquals(List.of(TOKEN), text(TOKEN));
+    }
+
+    @Test
+    void nonAsciiTextAroundTheToken() {
+        assertEquals(List.of(TOKEN), text("jeton été " + TOKEN + " ✓"));
+    }
+}
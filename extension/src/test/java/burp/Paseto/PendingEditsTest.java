@@ -0,0 +1,93 @@
+package burp.Paseto;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingEditsTest {
+
+    private static final long SHORT = 50;
+    private static final long LONG = 60_000;
+
+    private static HttpRequest request() {
+        return (HttpRequest) Proxy.newProxyInstance(PendingEditsTest.class.getClassLoader(),
+                new Class<?>[]{HttpRequest.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> "HttpRequest";
+                });
+    }
+
+    private static void waitPast(long millis) throws InterruptedException {
+        Thread.sleep(millis * 3);
+    }
+
+    @Test
+    void takeReturnsTheEditOnce() {
+        PendingEdits edits = new PendingEdits();
+        HttpRequest edited = request();
+        edits.put("v4.public.a", edited);
+        assertFalse(edits.isEmpty());
+        assertSame(edited, edits.take("v4.public.a"));
+        assertNull(edits.take("v4.public.a"));
+        assertTrue(edits.isEmpty());
+    }
+
+    @Test
+    void shortTtlBehindALongerOneStillExpires() throws InterruptedException {
+        PendingEdits edits = new PendingEdits();
+        edits.put("v4.public.long", request(), LONG);
+        edits.put("v4.public.short", request(), SHORT);
+        waitPast(SHORT);
+
+        assertNull(edits.take("v4.public.other"));
+        assertEquals(1, edits.size());
+        assertEquals(List.of("v4.public.long"), edits.snapshot().stream().map(PendingEdits.Saved::token).toList());
+        assertNull(edits.take("v4.public.short"));
+    }
+
+    @Test
+    void restoredEditsExpiringFirstAreDropped() throws InterruptedException {
+        PendingEdits edits = new PendingEdits();
+        edits.put("v4.public.new", request(), LONG);
+        long now = System.currentTimeMillis();
+        edits.restore(List.of(new PendingEdits.Saved("v4.public.restored", request(), now + SHORT)));
+        assertEquals(2, edits.size());
+        waitPast(SHORT);
+
+        edits.put("v4.public.another", request(), LONG);
+        assertEquals(2, edits.size());
+        assertNull(edits.take("v4.public.restored"));
+    }
+
+    @Test
+    void expiredEntriesDoNotKeepTheEmptyFastPathOff() throws InterruptedException {
+        PendingEdits edits = new PendingEdits();
+        edits.put("v4.public.a", request(), SHORT);
+        edits.put("v4.public.b", request(), SHORT * 2);
+        assertFalse(edits.isEmpty());
+        waitPast(SHORT * 2);
+
+        // No put or take in between: isEmpty itself notices the expiry
+        assertTrue(edits.isEmpty());
+        assertEquals(0, edits.size());
+    }
+
+    @Test
+    void oldestEntryIsDroppedOverTheLimit() {
+        PendingEdits edits = new PendingEdits(LONG, 2);
+        edits.put("v4.public.1", request());
+        edits.put("v4.public.2", request());
+        edits.put("v4.public.3", request());
+        assertEquals(2, edits.size());
+        assertNull(edits.take("v4.public.1"));
+    }
+}
@@ -0,0 +1,123 @@
+package burp.Paseto;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayEngineTest {
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T stub(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(ReplayEngineTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> type.getSimpleName();
+                    default -> handler.invoke(method.getName(), args);
+                }));
+    }
+
+    private static HttpResponse response(int status, int length) {
+        ByteArray bytes = stub(ByteArray.class, (method, args) -> switch (method) {
+            case "length" -> length;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        return stub(HttpResponse.class, (method, args) -> switch (method) {
+            case "statusCode" -> (short) status;
+            case "toByteArray" -> bytes;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static HttpRequestResponse original(int status) {
+        HttpResponse response = status < 0 ? null : response(status, 100);
+        return stub(HttpRequestResponse.class, (method, args) -> switch (method) {
+            case "response" -> response;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static ReplayEngine.Outcome outcome(int originalStatus, int status) {
+        ReplayEngine.Job job = new ReplayEngine.Job("job", null, originalStatus == 0 ? null : original(originalStatus));
+        return new ReplayEngine.Result(job, (short) status, 10, 1, null).outcome();
+    }
+
+    @Test
+    void outcomeIsJudgedAgainstTheOriginalStatusClass() {
+        assertEquals(ReplayEngine.Outcome.ACCEPTED, outcome(200, 204));
+        // The usual shape of an auth failure: bounced to the login page
+        assertEquals(ReplayEngine.Outcome.REDIRECTED, outcome(200, 302));
+        assertEquals(ReplayEngine.Outcome.REJECTED, outcome(200, 401));
+        // An original that already redirects is matched by a redirect, not by a 200
+        assertEquals(ReplayEngine.Outcome.ACCEPTED, outcome(302, 303));
+        assertEquals(ReplayEngine.Outcome.REJECTED, outcome(302, 200));
+        // Without an original (or its response) only 2xx counts as accepted
+        assertEquals(ReplayEngine.Outcome.ACCEPTED, outcome(0, 200));
+        assertEquals(ReplayEngine.Outcome.REDIRECTED, outcome(-1, 301));
+        assertEquals(ReplayEngine.Outcome.REJECTED, outcome(0, 500));
+
+        ReplayEngine.Job job = new ReplayEngine.Job("job", null, original(200));
+        assertEquals(ReplayEngine.Outcome.ERROR, new ReplayEngine.Result(job, (short) -1, -1, 1, "no response").outcome());
+    }
+
+    @Test
+    void tokenJobsAreBuiltOnTheWorkerRightBeforeSending() throws InterruptedException {
+        HttpRequest base = stub(HttpRequest.class, (method, args) -> switch (method) {
+            case "httpService" -> null;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        Http http = stub(Http.class, (method, args) -> {
+            sent.add(((HttpRequest) args[0]).path());
+            HttpResponse response = response(200, 5);
+            return stub(HttpRequestResponse.class, (m, a) -> switch (m) {
+                case "response" -> response;
+                default -> throw new UnsupportedOperationException(m);
+            });
+        });
+        MontoyaApi api = stub(MontoyaApi.class, (method, args) -> switch (method) {
+            case "http" -> http;
+            default -> throw new UnsupportedOperationException(method);
+        });
+
+        List<ReplayEngine.Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            jobs.add(new ReplayEngine.Job("variant " + i, base, null, "v4.public.variant" + i));
+        }
+        List<String> builtOn = Collections.synchronizedList(new ArrayList<>());
+        List<ReplayEngine.Result> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        new ReplayEngine(api, 4, 0).replay(jobs, (request, token) -> {
+            assertEquals(base, request);
+            builtOn.add(Thread.currentThread().getName());
+            return stub(HttpRequest.class, (method, args) -> switch (method) {
+                case "path" -> token;
+                default -> throw new UnsupportedOperationException(method);
+            });
+        }, results::add, done::countDown);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(50, results.size());
+        assertEquals(50, sent.stream().distinct().count());
+        assertTrue(sent.contains("v4.public.variant49"), sent.toString());
+        assertTrue(builtOn.stream().allMatch(name -> name.startsWith("paseto-replay-")), builtOn.toString());
+        assertTrue(results.stream().allMatch(r -> r.outcome() == ReplayEngine.Outcome.ACCEPTED));
+    }
+}
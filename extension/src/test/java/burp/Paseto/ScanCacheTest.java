@@ -0,0 +1,85 @@
+package burp.Paseto;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpMessage;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanCacheTest {
+
+    static final String TOKEN = "v4.public.eyJzdWIiOiJhbGljZSJ9c2lnbmF0dXJlX2J5dGVzX2dvX2hlcmU";
+
+    /** A request stub that only answers what the scan needs. */
+    private static HttpMessage request(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        ByteArray raw = (ByteArray) Proxy.newProxyInstance(ScanCacheTest.class.getClassLoader(),
+                new Class<?>[]{ByteArray.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "length" -> bytes.length;
+                    case "getByte" -> bytes[(Integer) args[0]];
+                    case "getBytes" -> bytes.clone();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        int bodyOffset = text.indexOf("\r\n\r\n") + 4;
+        return (HttpMessage) Proxy.newProxyInstance(ScanCacheTest.class.getClassLoader(),
+                new Class<?>[]{HttpMessage.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "toByteArray" -> raw;
+                    case "bodyOffset" -> bodyOffset;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static HttpMessage get(int i, String auth) {
+        return request("GET /item/" + i + " HTTP/1.1\r\nHost: example.test\r\n"
+                + (auth == null ? "" : "Authorization: Bearer " + auth + "\r\n") + "\r\n");
+    }
+
+    @Test
+    void secondLookupOfTheSameBytesIsAHit() {
+        ScanCache cache = new ScanCache(64);
+        ScanResult first = cache.scan(get(1, TOKEN), RuleMatcher.DEFAULT);
+        assertTrue(first.hasToken());
+        assertSame(first, cache.scan(get(1, TOKEN), RuleMatcher.DEFAULT));
+        assertSame(ScanResult.NONE, cache.scan(get(2, null), RuleMatcher.DEFAULT));
+        assertSame(ScanResult.NONE, cache.scan(get(2, null), RuleMatcher.DEFAULT));
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void tokenFreeTrafficDoesNotEvictTokenResults() {
+        ScanCache cache = new ScanCache(64);
+        for (int i = 0; i < 32; i++) {
+            cache.scan(get(i, TOKEN), RuleMatcher.DEFAULT);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(cache.scan(get(i, null), RuleMatcher.DEFAULT).hasToken());
+        }
+        long misses = cache.misses();
+        for (int i = 0; i < 32; i++) {
+            assertTrue(cache.scan(get(i, TOKEN), RuleMatcher.DEFAULT).hasToken());
+        }
+        assertEquals(misses, cache.misses());
+        assertEquals(0, cache.evictions());
+        assertTrue(cache.size() <= 32 + 64 / 16, cache.toString());
+    }
+
+    @Test
+    void reloadedRulesStartOver() {
+        ScanCache cache = new ScanCache(64);
+        cache.scan(get(1, TOKEN), RuleMatcher.DEFAULT);
+        cache.scan(get(2, null), RuleMatcher.DEFAULT);
+        RuleMatcher other = RuleMatcher.compile(DetectionRule.DEFAULT_RULES, new ArrayList<>());
+        assertTrue(cache.scan(get(1, TOKEN), other).hasToken());
+        cache.scan(get(2, null), other);
+        assertEquals(0, cache.hits());
+        assertEquals(4, cache.misses());
+    }
+}